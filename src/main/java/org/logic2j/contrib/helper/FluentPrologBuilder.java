@@ -22,11 +22,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
+import org.logic2j.core.api.library.PLibrary;
+import org.logic2j.core.impl.IndexingSolver;
 import org.logic2j.core.impl.PrologImplementation;
 import org.logic2j.core.impl.PrologReferenceImplementation;
 import org.logic2j.core.impl.theory.TheoryContent;
+import org.logic2j.core.impl.theory.TheoryFileWatcher;
 import org.logic2j.core.impl.theory.TheoryManager;
+import org.logic2j.core.library.impl.CoreLibrary;
 import org.logic2j.engine.exception.PrologNonSpecificException;
 
 /**
@@ -35,7 +40,8 @@ import org.logic2j.engine.exception.PrologNonSpecificException;
  * - selecting the implementation to use
  * - set parameters
  * - configure the libraries (none, default, or extensions)
- * - load theoryFiles
+ * - load theoryFiles, or all theory files of directories
+ * - optionally watch theory files and reload them when they change, see {@link TheoryFileWatcher}
  * <p/>
  * This object is designed to be used either programmatically with its fluent API,
  * or via CDI configuration since it is also a Java Bean whose properties can be injected.
@@ -48,6 +54,21 @@ public class FluentPrologBuilder implements PrologBuilder {
 
   private boolean coreLibraries = false;
 
+  private boolean indexingSolver = false;
+
+  private boolean hotReload = false;
+
+  private boolean parallelLoading = false;
+
+  private boolean compiledTheories = false;
+
+  private int distinctMemoryLimit = 0;
+
+  /**
+   * Set by {@link #build()} when hot reload is enabled, close it to stop watching.
+   */
+  private TheoryFileWatcher theoryWatcher = null;
+
   private Collection<File> theoryFiles = new ArrayList<>();
   private Collection<String> theoryResources = new ArrayList<>();
 
@@ -62,13 +83,34 @@ public class FluentPrologBuilder implements PrologBuilder {
       initLevel = PrologReferenceImplementation.InitLevel.L2_BASE_LIBRARIES;
     }
     final PrologReferenceImplementation prolog = new PrologReferenceImplementation(initLevel);
+    if (isIndexingSolver()) {
+      prolog.setSolver(new IndexingSolver(prolog));
+    }
+    if (getDistinctMemoryLimit() > 0) {
+      for (PLibrary library : prolog.getLibraryManager().getLibraries()) {
+        if (library instanceof CoreLibrary core) {
+          core.setDistinctMemoryLimit(getDistinctMemoryLimit(), new File(System.getProperty("java.io.tmpdir")));
+        }
+      }
+    }
 
     // Theories from files
     final TheoryManager theoryManager = prolog.getTheoryManager();
     try {
+      final List<File> files = new ArrayList<>();
       for (File theory : theoryFiles) {
-        final TheoryContent content = theoryManager.load(theory);
-        theoryManager.addTheory(content);
+        files.addAll(theory.isDirectory() ? TheoryFileWatcher.theoryFilesIn(theory) : Collections.singletonList(theory));
+      }
+      if (isParallelLoading()) {
+        theoryManager.loadInParallel(files).forEach(theoryManager::addTheory);
+      } else {
+        for (File file : files) {
+          final TheoryContent content = isCompiledTheories() ? theoryManager.compile(file) : theoryManager.load(file);
+          theoryManager.addTheory(content);
+        }
+      }
+      if (isHotReload() && !theoryFiles.isEmpty()) {
+        theoryWatcher = new TheoryFileWatcher(theoryManager, theoryFiles);
       }
     } catch (IOException e) {
       throw new PrologNonSpecificException("Builder could not load theory: " + e);
@@ -98,6 +140,50 @@ public class FluentPrologBuilder implements PrologBuilder {
   }
 
 
+  public FluentPrologBuilder withIndexingSolver(boolean indexingSolver) {
+    this.indexingSolver = indexingSolver;
+    return this;
+  }
+
+  /**
+   * @param parallelLoading When true, theory files are parsed concurrently, see {@link TheoryManager#loadInParallel(List)}
+   */
+  public FluentPrologBuilder withParallelLoading(boolean parallelLoading) {
+    this.parallelLoading = parallelLoading;
+    return this;
+  }
+
+  /**
+   * @param compiledTheories When true, the compiled form of theory files is written when missing or out of date,
+   *                         see {@link TheoryManager#compile(File)}. Up to date compiled forms are always used,
+   *                         but they are not written when loading in parallel.
+   */
+  public FluentPrologBuilder withCompiledTheories(boolean compiledTheories) {
+    this.compiledTheories = compiledTheories;
+    return this;
+  }
+
+  /**
+   * @param distinctMemoryLimit Number of values distinct/2 holds in memory before spilling to disk,
+   *                            see {@link CoreLibrary#setDistinctMemoryLimit(int, File)}; 0 for the default
+   */
+  public FluentPrologBuilder withDistinctMemoryLimit(int distinctMemoryLimit) {
+    this.distinctMemoryLimit = distinctMemoryLimit;
+    return this;
+  }
+
+  /**
+   * @param hotReload When true, theory files and directories registered with {@link #withTheory(File...)}
+   *                  are reloaded when they change on disk
+   */
+  public FluentPrologBuilder withHotReload(boolean hotReload) {
+    this.hotReload = hotReload;
+    return this;
+  }
+
+  /**
+   * @param files Theory files, or directories whose theory files are all loaded
+   */
   public FluentPrologBuilder withTheory(File... files) {
       Collections.addAll(theoryFiles, files);
     return this;
@@ -127,6 +213,53 @@ public class FluentPrologBuilder implements PrologBuilder {
     this.coreLibraries = coreLibraries;
   }
 
+  public boolean isIndexingSolver() {
+    return indexingSolver;
+  }
+
+  public void setIndexingSolver(boolean indexingSolver) {
+    this.indexingSolver = indexingSolver;
+  }
+
+  public boolean isParallelLoading() {
+    return parallelLoading;
+  }
+
+  public void setParallelLoading(boolean parallelLoading) {
+    this.parallelLoading = parallelLoading;
+  }
+
+  public boolean isCompiledTheories() {
+    return compiledTheories;
+  }
+
+  public void setCompiledTheories(boolean compiledTheories) {
+    this.compiledTheories = compiledTheories;
+  }
+
+  public int getDistinctMemoryLimit() {
+    return distinctMemoryLimit;
+  }
+
+  public void setDistinctMemoryLimit(int distinctMemoryLimit) {
+    this.distinctMemoryLimit = distinctMemoryLimit;
+  }
+
+  public boolean isHotReload() {
+    return hotReload;
+  }
+
+  public void setHotReload(boolean hotReload) {
+    this.hotReload = hotReload;
+  }
+
+  /**
+   * @return The watcher started by the last {@link #build()} with hot reload, or null
+   */
+  public TheoryFileWatcher getTheoryWatcher() {
+    return theoryWatcher;
+  }
+
   public Collection<File> getTheoryFiles() {
     return theoryFiles;
   }
@@ -16,6 +16,7 @@
  */
 package org.logic2j.core.api;
 
+import java.util.Collection;
 import org.logic2j.core.api.library.LibraryContent;
 import org.logic2j.core.api.library.PLibrary;
 
@@ -37,4 +38,9 @@ public interface LibraryManager {
    */
   LibraryContent wholeContent();
 
+  /**
+   * @return The libraries loaded, in the order they were loaded.
+   */
+  Collection<PLibrary> getLibraries();
+
 }
@@ -17,6 +17,9 @@
  */
 package org.logic2j.core.api;
 
+import java.util.Collection;
+import org.logic2j.core.api.model.Operator;
+import org.logic2j.core.api.model.OperatorDefinitions;
 
 /**
  * This class manages Prolog operators.
@@ -30,4 +33,20 @@ public interface OperatorManager {
   // TODO Unclear how this is an operation of a "manager". Rename method?
   int precedence(String operatorText, String associativity);
 
+  /**
+   * @param operatorText Text representation of the operator
+   * @return All definitions of operatorText in one lookup, {@link OperatorDefinitions#NONE} if it is not an operator
+   */
+  OperatorDefinitions operatorsOf(String operatorText);
+
+  /**
+   * @return All operators defined, in the order they were defined
+   */
+  Collection<Operator> getOperators();
+
+  /**
+   * @return A number that changes whenever an operator is defined, so that what was parsed before can be invalidated
+   */
+  int getVersion();
+
 }
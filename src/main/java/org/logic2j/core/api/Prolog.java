@@ -16,6 +16,7 @@
  */
 package org.logic2j.core.api;
 
+import org.logic2j.core.impl.SolutionIterator;
 import org.logic2j.core.impl.theory.TheoryManager;
 import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.model.Term;
@@ -53,6 +54,15 @@ public interface Prolog {
    */
   GoalHolder solve(Object theGoal);
 
+  /**
+   * Iterate over the solutions of a goal, solving for each only when requested. Close the iterator when not
+   * iterating until the end, so that the solve does not stay suspended.
+   *
+   * @param theGoal To solve, will be parsed into a Term.
+   * @return Each solution as theGoal with its variables bound
+   */
+  SolutionIterator iterate(CharSequence theGoal);
+
   // ---------------------------------------------------------------------------
   // Accessors to the sub-features of the Prolog engine
   // ---------------------------------------------------------------------------
@@ -16,6 +16,8 @@
  */
 package org.logic2j.core.api;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import org.logic2j.engine.model.Term;
 
 /**
@@ -39,4 +41,34 @@ public interface TermMarshaller {
    */
   CharSequence marshall(Object theTerm);
 
+  /**
+   * Formats a {@link Term} by appending its character representation to theOut, for example a
+   * {@link java.io.Writer} or a {@link java.nio.CharBuffer} (which throws {@link java.nio.BufferOverflowException} when full).
+   * Implementations should override this to avoid building intermediate strings, this default does not.
+   *
+   * @param theTerm
+   * @param theOut  Where to append
+   * @throws IOException If theOut fails
+   */
+  default void marshall(Object theTerm, Appendable theOut) throws IOException {
+    theOut.append(marshall(theTerm));
+  }
+
+  /**
+   * Same as {@link #marshall(Object, Appendable)}, for the common case of a StringBuilder that cannot fail.
+   *
+   * @param theTerm
+   * @param theOut  Where to append
+   * @return theOut
+   */
+  default StringBuilder marshall(Object theTerm, StringBuilder theOut) {
+    try {
+      marshall(theTerm, (Appendable) theOut);
+    } catch (IOException e) {
+      // Never happens with a StringBuilder
+      throw new UncheckedIOException(e);
+    }
+    return theOut;
+  }
+
 }
@@ -39,6 +39,8 @@ import org.logic2j.engine.unify.UnifyContext;
  */
 public class Clause {
 
+  private static final Var<?>[] NO_VARS = new Var<?>[0];
+
   private final Object content; // Immutable, not null
 
   /**
@@ -50,6 +52,11 @@ public class Clause {
   private Object head;
   private Object body;
 
+  /**
+   * The body compiled once for the Solver, null for facts.
+   */
+  private CompiledGoal compiledBody;
+
   /**
    * A number of clones of this Clause, to avoid many cloning during inference.
    */
@@ -77,6 +84,27 @@ public class Clause {
   }
 
 
+  /**
+   * @param theGroundFact Already normalized, without any Var
+   */
+  private Clause(Struct<?> theGroundFact) {
+    this.content = theGroundFact;
+    this.indexedVars = NO_VARS;
+    initDenormalizedFields();
+  }
+
+  /**
+   * A fact whose arguments are all atomic, such as those of
+   * {@link org.logic2j.core.impl.io.tuprolog.parse.Parser#nextGroundFact()}: there are no vars to collect.
+   *
+   * @param theProlog Required to normalize theFact according to the current libraries.
+   * @param theFact   A fact with only atomic arguments
+   * @return The Clause for theFact
+   */
+  public static Clause groundFact(PrologImplementation theProlog, Struct<?> theFact) {
+    return new Clause(termApiExt().normalizeGroundFact(theFact, theProlog.getLibraryManager().wholeContent()));
+  }
+
   private Clause(Clause original, Struct<?> cloned, Var<?>[] clonedVars) {
     this.content = cloned;
     this.indexedVars = clonedVars;
@@ -108,6 +136,7 @@ public class Clause {
     // The body is more complex, it's certainly a rule
     this.head = clauseArgs[0];
     this.body = body;
+    this.compiledBody = CompiledGoal.compile(body);
   }
 
   /**
@@ -127,6 +156,15 @@ public class Clause {
     clauseHeadAndBody[1] = clonedClause.body; // Will be null for facts
   }
 
+  /**
+   * @param currentVars
+   * @return This clause, or a clone with variables renamed apart from those of currentVars; use its
+   * {@link #getHead()}, {@link #getBody()} and {@link #getCompiledBody()} to solve a subgoal.
+   */
+  public Clause forSubgoal(UnifyContext currentVars) {
+    return needCloning() ? cloned(currentVars) : this;
+  }
+
   private Clause cloned(UnifyContext currentVars) {
     if (this.cache == null) {
       this.cache = new TreeMap<>();
@@ -210,6 +248,39 @@ public class Clause {
     return cs.getIndex() > 0;
   }
 
+  /**
+   * @return The whole normalized term of this clause
+   */
+  public Object getContent() {
+    return this.content;
+  }
+
+  public Object getHead() {
+    return this.head;
+  }
+
+  /**
+   * @return The body, null for facts
+   */
+  public Object getBody() {
+    return this.body;
+  }
+
+  /**
+   * @return The body compiled into a goal tree, null for facts
+   */
+  public CompiledGoal getCompiledBody() {
+    return this.compiledBody;
+  }
+
+  /**
+   * @param theOther
+   * @return true if theOther has the same term as this, as when parsed twice from the same text
+   */
+  public boolean hasSameContent(Clause theOther) {
+    return this.content.equals(theOther.content);
+  }
+
   /**
    * @return The key that uniquely identifies the family of the {@link Clause}'s head predicate.
    */
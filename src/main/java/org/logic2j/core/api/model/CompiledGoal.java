@@ -0,0 +1,204 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.api.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.logic2j.engine.model.Struct;
+
+/**
+ * The body of a {@link Clause} compiled into an immutable tree of typed goal nodes, so that the Solver does not need to
+ * re-interpret control functors and cut at every resolution.
+ * Leaves keep references to the original (normalized) terms of the body, so the term representation is unchanged.
+ */
+public abstract sealed class CompiledGoal {
+
+  /**
+   * Functor of the if-then construct.
+   */
+  public static final String FUNCTOR_IF_THEN = "->";
+
+  /**
+   * Functor of once/1.
+   */
+  public static final String FUNCTOR_ONCE = "once";
+
+  /**
+   * The empty conjunction, succeeds once (as "true").
+   */
+  public static final CompiledGoal TRUE = new Conjunction(new CompiledGoal[0]);
+
+  private CompiledGoal() {
+    // Only the nested classes
+  }
+
+  /**
+   * @param theBody A normalized goal term, typically the body of a clause
+   * @return The compiled tree
+   */
+  public static CompiledGoal compile(Object theBody) {
+    if (!(theBody instanceof Struct<?> struct)) {
+      // Var (meta-call) or anything the engine will resolve at runtime
+      return new Call(theBody);
+    }
+    final String functor = struct.getName(); // Names are {@link String#intern()}alized so OK to check by reference
+    final int arity = struct.getArity();
+    if (arity == 2 && functor == Struct.FUNCTOR_COMMA) {
+      final List<CompiledGoal> goals = new ArrayList<>();
+      Object running = struct;
+      while (running instanceof Struct<?> and && and.getArity() == 2 && and.getName() == Struct.FUNCTOR_COMMA) {
+        goals.add(compile(and.getLHS()));
+        running = and.getRHS();
+      }
+      goals.add(compile(running));
+      return new Conjunction(goals.toArray(new CompiledGoal[0]));
+    }
+    if (arity == 2 && functor == Struct.FUNCTOR_SEMICOLON) {
+      final List<CompiledGoal> alternatives = new ArrayList<>();
+      Object running = struct;
+      while (running instanceof Struct<?> or && or.getArity() == 2 && or.getName() == Struct.FUNCTOR_SEMICOLON) {
+        if (or.getLHS() instanceof Struct<?> ifThen && ifThen.getArity() == 2 && ifThen.getName() == FUNCTOR_IF_THEN) {
+          // (C -> T ; Rest) is if-then-else, the rest of the disjunction being its else branch
+          alternatives.add(new IfThenElse(compile(ifThen.getLHS()), compile(ifThen.getRHS()), compile(or.getRHS())));
+          running = null;
+          break;
+        }
+        alternatives.add(compile(or.getLHS()));
+        running = or.getRHS();
+      }
+      if (running != null) {
+        alternatives.add(compile(running));
+      }
+      return alternatives.size() == 1 ? alternatives.get(0) : new Disjunction(alternatives.toArray(new CompiledGoal[0]));
+    }
+    if (arity == 2 && functor == FUNCTOR_IF_THEN) {
+      return new IfThenElse(compile(struct.getLHS()), compile(struct.getRHS()), null);
+    }
+    if (arity == 1 && functor == FUNCTOR_ONCE) {
+      return new IfThenElse(compile(struct.getArg(0)), TRUE, null);
+    }
+    if (arity == 0 && functor == Struct.FUNCTOR_CUT) {
+      return new Cut(struct);
+    }
+    return new Call(struct);
+  }
+
+  // ---------------------------------------------------------------------------
+  // Nodes
+  // ---------------------------------------------------------------------------
+
+  /**
+   * All goals in sequence; with no goal it succeeds once.
+   */
+  public static final class Conjunction extends CompiledGoal {
+    private final CompiledGoal[] goals;
+
+    Conjunction(CompiledGoal[] theGoals) {
+      this.goals = theGoals;
+    }
+
+    public int size() {
+      return this.goals.length;
+    }
+
+    public CompiledGoal goal(int index) {
+      return this.goals[index];
+    }
+  }
+
+  /**
+   * Alternatives tried in order; transparent to cut.
+   */
+  public static final class Disjunction extends CompiledGoal {
+    private final CompiledGoal[] alternatives;
+
+    Disjunction(CompiledGoal[] theAlternatives) {
+      this.alternatives = theAlternatives;
+    }
+
+    public int size() {
+      return this.alternatives.length;
+    }
+
+    public CompiledGoal alternative(int index) {
+      return this.alternatives[index];
+    }
+  }
+
+  /**
+   * (Condition -> Then ; Else), or (Condition -> Then) when there is no else branch; also once/1.
+   * The condition is solved for its first solution only and is opaque to cut.
+   */
+  public static final class IfThenElse extends CompiledGoal {
+    private final CompiledGoal condition;
+    private final CompiledGoal then;
+    private final CompiledGoal orElse;
+
+    IfThenElse(CompiledGoal theCondition, CompiledGoal theThen, CompiledGoal theElse) {
+      this.condition = theCondition;
+      this.then = theThen;
+      this.orElse = theElse;
+    }
+
+    public CompiledGoal condition() {
+      return this.condition;
+    }
+
+    public CompiledGoal then() {
+      return this.then;
+    }
+
+    /**
+     * @return The else branch, null if none (then the construct fails when the condition fails)
+     */
+    public CompiledGoal orElse() {
+      return this.orElse;
+    }
+  }
+
+  /**
+   * Any other goal, left to the engine: a primitive, a goal solved against clause and data providers, or a goal only
+   * known at runtime (variable, call/N...).
+   */
+  public static final class Call extends CompiledGoal {
+    private final Object goal;
+
+    Call(Object theGoal) {
+      this.goal = theGoal;
+    }
+
+    public Object goal() {
+      return this.goal;
+    }
+  }
+
+  /**
+   * The cut: a barrier that prunes the choice points of the clause.
+   */
+  public static final class Cut extends CompiledGoal {
+    private final Struct<?> goal;
+
+    Cut(Struct<?> theGoal) {
+      this.goal = theGoal;
+    }
+
+    public Struct<?> goal() {
+      return this.goal;
+    }
+  }
+
+}
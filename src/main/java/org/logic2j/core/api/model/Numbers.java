@@ -0,0 +1,141 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.api.model;
+
+/**
+ * Factory and primitive helpers for numeric terms.
+ * Numbers remain plain immutable {@link Integer}, {@link Long} and {@link Double} so that the engine's unification
+ * (based on equals()) is unchanged, but all numbers created by the parser, the {@link TermApiExt} and the libraries
+ * should go through this class: small integral values are then shared instances from a cache much wider than the
+ * JDK's (-128..127), and arithmetic is done on unboxed long or double values.
+ */
+public final class Numbers {
+
+  /**
+   * Lowest integral value held in the caches.
+   */
+  public static final int CACHE_LOW = -1024;
+
+  /**
+   * Highest integral value held in the caches.
+   */
+  public static final int CACHE_HIGH = 65535;
+
+  private static final Integer[] INTEGER_CACHE = new Integer[CACHE_HIGH - CACHE_LOW + 1];
+
+  private static final Long[] LONG_CACHE = new Long[CACHE_HIGH - CACHE_LOW + 1];
+
+  private static final Double DOUBLE_ZERO = 0.0;
+
+  private static final Double DOUBLE_ONE = 1.0;
+
+  static {
+    for (int i = 0; i < INTEGER_CACHE.length; i++) {
+      INTEGER_CACHE[i] = Integer.valueOf(i + CACHE_LOW);
+      LONG_CACHE[i] = Long.valueOf(i + CACHE_LOW);
+    }
+  }
+
+  private Numbers() {
+    // static functions only
+  }
+
+  // ---------------------------------------------------------------------------
+  // Factories
+  // ---------------------------------------------------------------------------
+
+  public static Integer valueOf(int value) {
+    if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+      return INTEGER_CACHE[value - CACHE_LOW];
+    }
+    return value;
+  }
+
+  public static Long valueOf(long value) {
+    if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+      return LONG_CACHE[(int) value - CACHE_LOW];
+    }
+    return value;
+  }
+
+  public static Double valueOf(double value) {
+    // Compare raw bits so that -0.0 is not mistaken for 0.0
+    final long bits = Double.doubleToRawLongBits(value);
+    if (bits == 0L) {
+      return DOUBLE_ZERO;
+    }
+    if (bits == 0x3ff0000000000000L) {
+      return DOUBLE_ONE;
+    }
+    return value;
+  }
+
+  /**
+   * @param value
+   * @return An {@link Integer} if value fits into an int, otherwise a {@link Long}.
+   */
+  public static Number integral(long value) {
+    if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+      return valueOf((int) value);
+    }
+    return valueOf(value);
+  }
+
+  // ---------------------------------------------------------------------------
+  // Primitive comparisons
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @param theNumber
+   * @return true if theNumber has no fractional part by its type (Integer, Long, Short or Byte).
+   */
+  public static boolean isIntegral(Object theNumber) {
+    return theNumber instanceof Integer || theNumber instanceof Long || theNumber instanceof Short || theNumber instanceof Byte;
+  }
+
+  /**
+   * Numeric equality: compares longs when both numbers are integral (no loss of precision above 2^53),
+   * doubles otherwise. Unlike {@link Number#equals(Object)}, 2 and 2L and 2.0 are equal.
+   */
+  public static boolean numericEquals(Number n1, Number n2) {
+    if (isIntegral(n1) && isIntegral(n2)) {
+      return n1.longValue() == n2.longValue();
+    }
+    return n1.doubleValue() == n2.doubleValue();
+  }
+
+  /**
+   * Numeric comparison with the same promotion rules as {@link #numericEquals(Number, Number)}.
+   *
+   * @return negative, zero or positive as n1 is lower, equal or greater than n2.
+   */
+  public static int compare(Number n1, Number n2) {
+    if (isIntegral(n1) && isIntegral(n2)) {
+      return Long.compare(n1.longValue(), n2.longValue());
+    }
+    final double d1 = n1.doubleValue();
+    final double d2 = n2.doubleValue();
+    if (d1 < d2) {
+      return -1;
+    }
+    if (d1 > d2) {
+      return 1;
+    }
+    return 0;
+  }
+
+}
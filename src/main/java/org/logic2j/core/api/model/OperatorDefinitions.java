@@ -0,0 +1,79 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.api.model;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * All {@link Operator} definitions of one atom: the precedence for each associativity, 0 when the atom is not
+ * an operator of that associativity. Resolving an operator then takes a single lookup by atom, see
+ * {@link org.logic2j.core.api.OperatorManager#operatorsOf(String)}.
+ */
+public record OperatorDefinitions(int fx, int fy, int xfx, int xfy, int yfx, int yfy, int xf, int yf) implements Serializable {
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * For atoms that are not operators.
+   */
+  public static final OperatorDefinitions NONE = new OperatorDefinitions(0, 0, 0, 0, 0, 0, 0, 0);
+
+  /**
+   * @param theAssociativity One of the associativity constants of {@link Operator}
+   * @return The precedence for theAssociativity, 0 if not defined
+   */
+  public int precedence(String theAssociativity) {
+    return switch (theAssociativity) {
+      case Operator.FX -> this.fx;
+      case Operator.FY -> this.fy;
+      case Operator.XFX -> this.xfx;
+      case Operator.XFY -> this.xfy;
+      case Operator.YFX -> this.yfx;
+      case Operator.YFY -> this.yfy;
+      case Operator.XF -> this.xf;
+      case Operator.YF -> this.yf;
+      default -> 0;
+    };
+  }
+
+  /**
+   * @return True when the atom is a prefix operator
+   */
+  public boolean isPrefix() {
+    return this.fx >= Operator.OP_LOWEST || this.fy >= Operator.OP_LOWEST;
+  }
+
+  /**
+   * @param theAssociativity One of the associativity constants of {@link Operator}
+   * @param thePrecedence    Its new precedence
+   * @return The same definitions, except for theAssociativity
+   */
+  public OperatorDefinitions with(String theAssociativity, int thePrecedence) {
+    return switch (theAssociativity) {
+      case Operator.FX -> new OperatorDefinitions(thePrecedence, fy, xfx, xfy, yfx, yfy, xf, yf);
+      case Operator.FY -> new OperatorDefinitions(fx, thePrecedence, xfx, xfy, yfx, yfy, xf, yf);
+      case Operator.XFX -> new OperatorDefinitions(fx, fy, thePrecedence, xfy, yfx, yfy, xf, yf);
+      case Operator.XFY -> new OperatorDefinitions(fx, fy, xfx, thePrecedence, yfx, yfy, xf, yf);
+      case Operator.YFX -> new OperatorDefinitions(fx, fy, xfx, xfy, thePrecedence, yfy, xf, yf);
+      case Operator.YFY -> new OperatorDefinitions(fx, fy, xfx, xfy, yfx, thePrecedence, xf, yf);
+      case Operator.XF -> new OperatorDefinitions(fx, fy, xfx, xfy, yfx, yfy, thePrecedence, yf);
+      case Operator.YF -> new OperatorDefinitions(fx, fy, xfx, xfy, yfx, yfy, xf, thePrecedence);
+      default -> throw new IllegalArgumentException("Unknown operator associativity: " + theAssociativity);
+    };
+  }
+}
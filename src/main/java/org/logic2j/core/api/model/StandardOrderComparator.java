@@ -0,0 +1,125 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.api.model;
+
+import java.util.Comparator;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+
+/**
+ * The standard order of terms, as used by Prolog's sorting and comparison predicates:
+ * Var &lt; Number &lt; Atom &lt; other Java objects &lt; Compound.
+ * <ul>
+ * <li>Vars are ordered by index (their "age"),</li>
+ * <li>Numbers are compared by value; if equal, a floating number precedes an integral one,</li>
+ * <li>Atoms (Strings or Structs of arity 0) are ordered alphabetically,</li>
+ * <li>Java objects (POJOs) are ordered by their toString(),</li>
+ * <li>Compounds are ordered by arity, then name, then arguments from left to right.</li>
+ * </ul>
+ * Terms are expected to be reified already.
+ */
+public final class StandardOrderComparator implements Comparator<Object> {
+
+  public static final StandardOrderComparator INSTANCE = new StandardOrderComparator();
+
+  private static final int RANK_VAR = 0;
+  private static final int RANK_NUMBER = 1;
+  private static final int RANK_ATOM = 2;
+  private static final int RANK_OBJECT = 3;
+  private static final int RANK_COMPOUND = 4;
+
+  private StandardOrderComparator() {
+    // Stateless, use INSTANCE
+  }
+
+  @Override
+  public int compare(Object t1, Object t2) {
+    if (t1 == t2) {
+      return 0;
+    }
+    final int rank1 = rank(t1);
+    final int rank2 = rank(t2);
+    if (rank1 != rank2) {
+      return rank1 - rank2;
+    }
+    switch (rank1) {
+      case RANK_VAR: {
+        final Var<?> v1 = (Var<?>) t1;
+        final Var<?> v2 = (Var<?>) t2;
+        final int byIndex = Integer.compare(v1.getIndex(), v2.getIndex());
+        return byIndex != 0 ? byIndex : v1.getName().compareTo(v2.getName());
+      }
+      case RANK_NUMBER: {
+        final Number n1 = (Number) t1;
+        final Number n2 = (Number) t2;
+        final int byValue = Numbers.compare(n1, n2);
+        if (byValue != 0) {
+          return byValue;
+        }
+        // 1.0 @< 1
+        return Boolean.compare(Numbers.isIntegral(n1), Numbers.isIntegral(n2));
+      }
+      case RANK_ATOM:
+        return atomText(t1).compareTo(atomText(t2));
+      case RANK_OBJECT:
+        return t1.toString().compareTo(t2.toString());
+      default: {
+        final Struct<?> s1 = (Struct<?>) t1;
+        final Struct<?> s2 = (Struct<?>) t2;
+        final int arity = s1.getArity();
+        if (arity != s2.getArity()) {
+          return Integer.compare(arity, s2.getArity());
+        }
+        final int byName = s1.getName().compareTo(s2.getName());
+        if (byName != 0) {
+          return byName;
+        }
+        for (int i = 0; i < arity; i++) {
+          final int byArg = compare(s1.getArg(i), s2.getArg(i));
+          if (byArg != 0) {
+            return byArg;
+          }
+        }
+        return 0;
+      }
+    }
+  }
+
+  private static int rank(Object theTerm) {
+    if (theTerm instanceof Var<?>) {
+      return RANK_VAR;
+    }
+    if (theTerm instanceof Number) {
+      return RANK_NUMBER;
+    }
+    if (theTerm instanceof String) {
+      return RANK_ATOM;
+    }
+    if (theTerm instanceof Struct<?> struct) {
+      return struct.getArity() == 0 ? RANK_ATOM : RANK_COMPOUND;
+    }
+    return RANK_OBJECT;
+  }
+
+  private static String atomText(Object theAtom) {
+    if (theAtom instanceof Struct<?> struct) {
+      return struct.getName();
+    }
+    return (String) theAtom;
+  }
+
+}
@@ -191,6 +191,28 @@ public class TermApiExt extends TermApi {
     return preNormalized;
   }
 
+  /**
+   * Same as {@link #normalize(Object, LibraryContent)} for a fact whose arguments are all atomic (atoms, strings, numbers),
+   * without traversing it for sub-structures to replace or share.
+   *
+   * @param theFact           A fact with only atomic arguments
+   * @param theLibraryContent where primitives are to be found and assigned
+   * @return The normalized fact
+   */
+  public Struct<?> normalizeGroundFact(Struct<?> theFact, LibraryContent theLibraryContent) {
+    Struct<?> fact = theFact;
+    for (Function<Struct<?>, Struct<?>> factory : theLibraryContent.getFOPredicateFactories()) {
+      final Struct<?> pred = factory.apply(fact);
+      if (pred != null) {
+        fact = pred;
+        break;
+      }
+    }
+    final Struct<?> normalized = (Struct<?>) super.normalize(fact);
+    assignPrimitiveInfo((Struct<PrimitiveInfo>) normalized, theLibraryContent);
+    return normalized;
+  }
+
   private Object replaceStructByFOPredicates(Object theTerm, LibraryContent theLibraryContent) {
     final List<Function<Struct<?>, Struct<?>>> factories = theLibraryContent.getFOPredicateFactories();
     final Function<Struct<?>, Struct<?>> mappingFunction = struct -> {
@@ -265,13 +287,13 @@ public class TermApiExt extends TermApi {
       // Idempotence
       result = theObject;
     } else if (theObject instanceof Integer) {
-      result = theObject;
+      result = Numbers.valueOf((int) (Integer) theObject);
     } else if (theObject instanceof Long) {
-      result = ((Long) theObject).intValue();
+      result = Numbers.valueOf(((Long) theObject).intValue());
     } else if (theObject instanceof Float) {
-      result = ((Float) theObject).doubleValue();
+      result = Numbers.valueOf(((Float) theObject).doubleValue());
     } else if (theObject instanceof Double) {
-      result = theObject;
+      result = Numbers.valueOf((double) (Double) theObject);
     } else if (theObject instanceof Boolean) {
       result = (Boolean) theObject ? Struct.ATOM_TRUE : Struct.ATOM_FALSE;
     } else if (theObject instanceof CharSequence || theObject instanceof Character) {
@@ -299,10 +321,10 @@ public class TermApiExt extends TermApi {
       // Other types of numbers
       if (nbr.doubleValue() % 1 != 0) {
         // Has floating point number
-        result = nbr.doubleValue();
+        result = Numbers.valueOf(nbr.doubleValue());
       } else {
         // Is just an integer
-        result = nbr.longValue();
+        result = Numbers.valueOf(nbr.longValue());
       }
     } else if (theObject instanceof Enum<?>) {
       // Enums are just valid terms
@@ -0,0 +1,129 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.api.model;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+
+/**
+ * 64-bit structural hashing of (reified) terms, independent of {@link Object#hashCode()} of the term classes.
+ * Terms that are equal (same functors, same atoms, same numbers of the same type) always have the same hash
+ * for the same seed; different seeds give practically independent hash functions, so that two hashes of
+ * a term can be combined into a 128-bit fingerprint.
+ * The last argument of compounds is processed iteratively so that long lists do not consume the stack.
+ */
+public final class TermHash {
+
+  /**
+   * Default seed, see {@link #hash64(Object)}.
+   */
+  public static final long SEED = 0x9E3779B97F4A7C15L;
+
+  private static final long C1 = 0x87C37B91114253D5L;
+  private static final long C2 = 0x4CF5AD432745937FL;
+
+  private static final int TAG_VAR = 1;
+  private static final int TAG_INTEGER = 2;
+  private static final int TAG_LONG = 3;
+  private static final int TAG_DOUBLE = 4;
+  private static final int TAG_STRING = 5;
+  private static final int TAG_STRUCT = 6;
+  private static final int TAG_OBJECT = 7;
+
+  private TermHash() {
+    // static functions only
+  }
+
+  /**
+   * @param theTerm A term, normally reified
+   * @return The structural hash of theTerm with the default seed
+   */
+  public static long hash64(Object theTerm) {
+    return hash64(theTerm, SEED);
+  }
+
+  /**
+   * @param theTerm A term, normally reified
+   * @param theSeed Selects the hash function
+   * @return The structural hash of theTerm
+   */
+  public static long hash64(Object theTerm, long theSeed) {
+    long h = theSeed;
+    Object running = theTerm;
+    while (running instanceof Struct<?> struct) {
+      final int arity = struct.getArity();
+      h = mix(h, TAG_STRUCT);
+      h = mixString(h, struct.getName());
+      h = mix(h, arity);
+      if (arity == 0) {
+        return fmix(h);
+      }
+      for (int i = 0; i < arity - 1; i++) {
+        h = mix(h, hash64(struct.getArg(i), theSeed));
+      }
+      running = struct.getArg(arity - 1);
+    }
+    return fmix(mixLeaf(h, running));
+  }
+
+  private static long mixLeaf(long h, Object theLeaf) {
+    if (theLeaf instanceof String str) {
+      return mixString(mix(h, TAG_STRING), str);
+    }
+    if (theLeaf instanceof Integer value) {
+      return mix(mix(h, TAG_INTEGER), value);
+    }
+    if (theLeaf instanceof Long value) {
+      return mix(mix(h, TAG_LONG), value);
+    }
+    if (theLeaf instanceof Double value) {
+      return mix(mix(h, TAG_DOUBLE), Double.doubleToLongBits(value));
+    }
+    if (theLeaf instanceof Var<?> var) {
+      return mixString(mix(mix(h, TAG_VAR), var.getIndex()), var.getName());
+    }
+    return mix(mix(h, TAG_OBJECT), theLeaf == null ? 0 : theLeaf.hashCode());
+  }
+
+  private static long mixString(long h, String theString) {
+    final int length = theString.length();
+    long running = mix(h, length);
+    for (int i = 0; i < length; i++) {
+      running = mix(running, theString.charAt(i));
+    }
+    return running;
+  }
+
+  private static long mix(long h, long theValue) {
+    long k = theValue * C1;
+    k = Long.rotateLeft(k, 31);
+    k *= C2;
+    final long running = h ^ k;
+    return Long.rotateLeft(running, 27) * 5 + 0x52DCE729L;
+  }
+
+  private static long fmix(long h) {
+    long k = h;
+    k ^= k >>> 33;
+    k *= 0xFF51AFD7ED558CCDL;
+    k ^= k >>> 33;
+    k *= 0xC4CEB9FE1A85EC53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+}
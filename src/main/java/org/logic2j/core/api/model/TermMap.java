@@ -0,0 +1,306 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.api.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import org.logic2j.engine.model.Struct;
+
+/**
+ * An immutable, persistent map from ground terms to terms, used as an opaque term by the map_xxx predicates
+ * of {@link org.logic2j.core.library.impl.MapLibrary}.
+ * It is an AVL tree ordered by {@link StandardOrderComparator}: lookups, insertions and removals are O(log n),
+ * and every update returns a new TermMap sharing all untouched nodes with the original. Since instances are never
+ * mutated, they are safe under backtracking: an earlier map remains valid whatever was derived from it.
+ * <p/>
+ * Two TermMaps are equal when they hold equal entries, so that they unify.
+ */
+public final class TermMap implements Iterable<TermMap.Entry> {
+
+  public static final TermMap EMPTY = new TermMap(null);
+
+  /**
+   * Functor of the textual representation, see {@link #toString()}.
+   */
+  public static final String FUNCTOR_MAP = "map";
+
+  private final Node root;
+
+  private TermMap(Node theRoot) {
+    this.root = theRoot;
+  }
+
+  /**
+   * One key-value association.
+   */
+  public record Entry(Object key, Object value) {
+  }
+
+  private static final class Node {
+    final Object key;
+    final Object value;
+    final Node left;
+    final Node right;
+    final int height;
+    final int size;
+
+    Node(Object theKey, Object theValue, Node theLeft, Node theRight) {
+      this.key = theKey;
+      this.value = theValue;
+      this.left = theLeft;
+      this.right = theRight;
+      this.height = Math.max(height(theLeft), height(theRight)) + 1;
+      this.size = size(theLeft) + size(theRight) + 1;
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  public int size() {
+    return size(this.root);
+  }
+
+  public boolean isEmpty() {
+    return this.root == null;
+  }
+
+  /**
+   * @param theKey A ground term
+   * @return The value associated to theKey, or null if none
+   */
+  public Object get(Object theKey) {
+    Node node = this.root;
+    while (node != null) {
+      final int comparison = StandardOrderComparator.INSTANCE.compare(theKey, node.key);
+      if (comparison == 0) {
+        return node.value;
+      }
+      node = comparison < 0 ? node.left : node.right;
+    }
+    return null;
+  }
+
+  /**
+   * @return All keys, in standard order of terms
+   */
+  public List<Object> keys() {
+    final List<Object> keys = new ArrayList<>(size());
+    forEach((key, value) -> keys.add(key));
+    return keys;
+  }
+
+  /**
+   * Visit all entries in standard order of their keys.
+   */
+  public void forEach(BiConsumer<Object, Object> theConsumer) {
+    for (Entry entry : this) {
+      theConsumer.accept(entry.key(), entry.value());
+    }
+  }
+
+  @Override
+  public Iterator<Entry> iterator() {
+    // In-order traversal with an explicit stack, the height of an AVL tree is bounded by 1.44 log2(n)
+    final List<Node> stack = new ArrayList<>(height(this.root));
+    for (Node node = this.root; node != null; node = node.left) {
+      stack.add(node);
+    }
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return !stack.isEmpty();
+      }
+
+      @Override
+      public Entry next() {
+        if (stack.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        final Node node = stack.removeLast();
+        for (Node n = node.right; n != null; n = n.left) {
+          stack.add(n);
+        }
+        return new Entry(node.key, node.value);
+      }
+    };
+  }
+
+  // ---------------------------------------------------------------------------
+  // Persistent updates
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @param theKey   A ground term
+   * @param theValue
+   * @return A TermMap with theKey associated to theValue, replacing any previous association
+   */
+  public TermMap put(Object theKey, Object theValue) {
+    final Node newRoot = put(this.root, theKey, theValue);
+    return newRoot == this.root ? this : new TermMap(newRoot);
+  }
+
+  /**
+   * @param theKey A ground term
+   * @return A TermMap without theKey, or this if theKey was not present
+   */
+  public TermMap remove(Object theKey) {
+    final Node newRoot = remove(this.root, theKey);
+    return newRoot == this.root ? this : new TermMap(newRoot);
+  }
+
+  private static Node put(Node node, Object theKey, Object theValue) {
+    if (node == null) {
+      return new Node(theKey, theValue, null, null);
+    }
+    final int comparison = StandardOrderComparator.INSTANCE.compare(theKey, node.key);
+    if (comparison == 0) {
+      return node.value.equals(theValue) ? node : new Node(node.key, theValue, node.left, node.right);
+    }
+    if (comparison < 0) {
+      final Node newLeft = put(node.left, theKey, theValue);
+      return newLeft == node.left ? node : balance(node.key, node.value, newLeft, node.right);
+    }
+    final Node newRight = put(node.right, theKey, theValue);
+    return newRight == node.right ? node : balance(node.key, node.value, node.left, newRight);
+  }
+
+  private static Node remove(Node node, Object theKey) {
+    if (node == null) {
+      return null;
+    }
+    final int comparison = StandardOrderComparator.INSTANCE.compare(theKey, node.key);
+    if (comparison < 0) {
+      final Node newLeft = remove(node.left, theKey);
+      return newLeft == node.left ? node : balance(node.key, node.value, newLeft, node.right);
+    }
+    if (comparison > 0) {
+      final Node newRight = remove(node.right, theKey);
+      return newRight == node.right ? node : balance(node.key, node.value, node.left, newRight);
+    }
+    if (node.left == null) {
+      return node.right;
+    }
+    if (node.right == null) {
+      return node.left;
+    }
+    Node successor = node.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor.key, successor.value, node.left, remove(node.right, successor.key));
+  }
+
+  private static Node balance(Object theKey, Object theValue, Node left, Node right) {
+    final int diff = height(left) - height(right);
+    if (diff > 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new Node(left.key, left.value, left.left, new Node(theKey, theValue, left.right, right));
+      }
+      final Node pivot = left.right;
+      return new Node(pivot.key, pivot.value, new Node(left.key, left.value, left.left, pivot.left), new Node(theKey, theValue, pivot.right, right));
+    }
+    if (diff < -1) {
+      if (height(right.right) >= height(right.left)) {
+        return new Node(right.key, right.value, new Node(theKey, theValue, left, right.left), right.right);
+      }
+      final Node pivot = right.left;
+      return new Node(pivot.key, pivot.value, new Node(theKey, theValue, left, pivot.left), new Node(right.key, right.value, pivot.right, right.right));
+    }
+    return new Node(theKey, theValue, left, right);
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static int size(Node node) {
+    return node == null ? 0 : node.size;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Core java.lang.Object methods
+  // ---------------------------------------------------------------------------
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof TermMap that) || this.size() != that.size()) {
+      return false;
+    }
+    // Same size and same key order: compare entries pairwise, whatever the shape of the trees
+    final Iterator<Entry> these = this.iterator();
+    final Iterator<Entry> those = that.iterator();
+    while (these.hasNext()) {
+      final Entry e1 = these.next();
+      final Entry e2 = those.next();
+      if (StandardOrderComparator.INSTANCE.compare(e1.key(), e2.key()) != 0 || !e1.value().equals(e2.value())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 0;
+    for (Entry entry : this) {
+      hash = 31 * hash + (keyHash(entry.key()) ^ entry.value().hashCode());
+    }
+    return hash;
+  }
+
+  /**
+   * @return A hash consistent with {@link StandardOrderComparator}, by which keys are equal: 1 and 1L hash the same,
+   * and so do an atom as a String or as a Struct of arity 0.
+   */
+  private static int keyHash(Object theKey) {
+    if (theKey instanceof Number number) {
+      return Numbers.isIntegral(number) ? Long.hashCode(number.longValue()) : Double.hashCode(number.doubleValue());
+    }
+    if (theKey instanceof Struct<?> struct) {
+      int hash = struct.getName().hashCode();
+      for (int i = 0; i < struct.getArity(); i++) {
+        hash = 31 * hash + keyHash(struct.getArg(i));
+      }
+      return hash;
+    }
+    // Atoms as Strings, and other objects which are compared by their toString()
+    return theKey.toString().hashCode();
+  }
+
+  /**
+   * @return map([Key1-Value1, Key2-Value2, ...]), see also {@link org.logic2j.core.impl.DefaultTermMarshaller}
+   */
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder(FUNCTOR_MAP).append("([");
+    forEach((key, value) -> {
+      if (sb.length() > FUNCTOR_MAP.length() + 2) {
+        sb.append(',');
+      }
+      sb.append(key).append('-').append(value);
+    });
+    return sb.append("])").toString();
+  }
+}
@@ -65,6 +65,7 @@ public class DefaultOperatorManager extends OperatorManagerBase {
     addOperator("-", Operator.YFX, 500);
     addOperator("/\\", Operator.YFX, 500);
     addOperator("\\/", Operator.YFX, 500);
+    addOperator("xor", Operator.YFX, 500);
     addOperator("*", Operator.YFX, 400);
     addOperator("/", Operator.YFX, 400);
     addOperator("//", Operator.YFX, 400);
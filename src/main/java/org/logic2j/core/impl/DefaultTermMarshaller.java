@@ -19,9 +19,12 @@ package org.logic2j.core.impl;
 
 import static org.logic2j.engine.model.TermApiLocator.termApi;
 
+import java.io.IOException;
 import org.logic2j.core.api.OperatorManager;
 import org.logic2j.core.api.TermMarshaller;
 import org.logic2j.core.api.model.Operator;
+import org.logic2j.core.api.model.OperatorDefinitions;
+import org.logic2j.core.api.model.TermMap;
 import org.logic2j.engine.model.PrologLists;
 import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.model.TermApi;
@@ -33,6 +36,8 @@ import org.logic2j.engine.visitor.ExtendedTermVisitor;
 /**
  * Default and reference implementation of {@link org.logic2j.core.api.TermMarshaller#marshall(Object)}.
  * This implementation may be derived or composed to your wish.
+ * All formatting appends to a single {@link Appendable}, see {@link #marshall(Object, Appendable)}; lists are
+ * traversed iteratively so that long lists do not use stack depth.
  */
 public class DefaultTermMarshaller implements TermMarshaller, ExtendedTermVisitor<CharSequence> {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(DefaultTermMarshaller.class);
@@ -54,11 +59,13 @@ public class DefaultTermMarshaller implements TermMarshaller, ExtendedTermVisito
 
   @Override
   public CharSequence marshall(Object theTerm) {
-    if (theTerm instanceof Struct) {
-      // Rich formatting takes care of operators and lists
-      return this.toStringAsArgY(theTerm, Operator.OP_HIGHEST);
-    }
-    return accept(theTerm);
+    return marshall(theTerm, new StringBuilder()).toString();
+  }
+
+  @Override
+  public void marshall(Object theTerm, Appendable theOut) throws IOException {
+    // Rich formatting takes care of operators and lists
+    appendArg(theTerm, Operator.OP_HIGHEST, false, theOut);
   }
 
   // ---------------------------------------------------------------------------
@@ -85,12 +92,13 @@ public class DefaultTermMarshaller implements TermMarshaller, ExtendedTermVisito
   }
 
   /**
+   * Structures are formatted by {@link #marshall(Object, Appendable)}, taking operators into account.
+   *
    * @param theStruct
    */
   @Override
   public CharSequence visit(Struct<?> theStruct) {
-    final CharSequence formatted = formatStruct(theStruct);
-    return formatted;
+    return marshall(theStruct);
   }
 
   @Override
@@ -100,6 +108,9 @@ public class DefaultTermMarshaller implements TermMarshaller, ExtendedTermVisito
 
   @Override
   public CharSequence visit(Object theObject) {
+    if (theObject instanceof TermMap) {
+      return marshall(theObject);
+    }
     return String.valueOf(theObject);
   }
 
@@ -118,181 +129,184 @@ public class DefaultTermMarshaller implements TermMarshaller, ExtendedTermVisito
   }
 
   /**
-   * Gets the string representation of this structure
-   * <p/>
-   * Specific representations are provided for lists and atoms. Names starting with upper case letter are enclosed in apices.
-   * TODO Remove if similar if not equal to Struct.formatStruct
+   * Append theTerm as an argument of an operator, considering the associative property.
+   *
+   * @param precedence Precedence of the enclosing operator
+   * @param x          True for an X argument (its precedence must be strictly lower), false for an Y argument
    */
-  private CharSequence formatStruct(Struct<?> theStruct) {
-    // empty list case
-    if (PrologLists.isEmptyList(theStruct)) {
-      return PrologLists.FUNCTOR_EMPTY_LIST;
+  private void appendArg(Object theTerm, int precedence, boolean x, Appendable out) throws IOException {
+    if (theTerm instanceof CharSequence chars) {
+      out.append(termApi().quoteIfNeeded(chars));
+      return;
+    }
+    if (theTerm instanceof Var<?> var) {
+      appendVar(var, out);
+      return;
+    }
+    if (theTerm instanceof TermMap map) {
+      appendMap(map, out);
+      return;
+    }
+    if (!(theTerm instanceof Struct<?> theStruct)) {
+      out.append(accept(theTerm));
+      return;
     }
-    final StringBuilder sb = new StringBuilder();
     final String name = theStruct.getName();
     final int arity = theStruct.getArity();
-    // list case
-    if (PrologLists.isListNode(theStruct)) {
-      sb.append(PrologLists.LIST_OPEN);
-      sb.append(formatPListRecursive(theStruct));
-      sb.append(PrologLists.LIST_CLOSE);
-      return sb;
+    if (PrologLists.isEmptyList(theStruct)) {
+      out.append(PrologLists.FUNCTOR_EMPTY_LIST);
+      return;
     }
-    sb.append(termApi().quoteIfNeeded(name));
-    if (arity > 0) {
-      sb.append(Struct.PAR_OPEN);
-      for (int c = 0; c < arity; c++) {
-        final Object arg = theStruct.getArg(c);
-        final CharSequence formatted = accept(arg);
-        sb.append(formatted);
-        if (c < arity - 1) {
-          sb.append(Struct.ARG_SEPARATOR);
-        }
-      }
-      sb.append(Struct.PAR_CLOSE);
+    if (PrologLists.isListNode(theStruct)) {
+      appendList(theStruct, out);
+      return;
     }
-    return sb;
-  }
 
-  // TODO Remove if similar (if not equal) to Struct.formatPListRecursive
-  private CharSequence formatPListRecursive(Struct<?> theStruct) {
-    final Object head = theStruct.getLHS();
-    final Object tail = theStruct.getRHS();
-    if (PrologLists.isList(tail)) {
-      final Struct<?> tailStruct = (Struct<?>) tail;
-      if (PrologLists.isEmptyList(tailStruct)) {
-        return accept(head);
+    int p;
+    final OperatorDefinitions definitions = arity == 1 || arity == 2 ? operatorManager.operatorsOf(name) : OperatorDefinitions.NONE;
+    if (arity == 2) {
+      if ((p = definitions.xfx()) >= Operator.OP_LOWEST) {
+        appendInfix(theStruct, p, precedence, x, true, true, out);
+        return;
+      }
+      if ((p = definitions.yfx()) >= Operator.OP_LOWEST) {
+        appendInfix(theStruct, p, precedence, x, false, true, out);
+        return;
       }
-      // Why this special test?
-      if (head instanceof Var<?>) {
-        return visit((Var<?>) head) + PrologLists.LIST_ELEM_SEPARATOR + formatPListRecursive(tailStruct);
+      if ((p = definitions.xfy()) >= Operator.OP_LOWEST) {
+        appendInfix(theStruct, p, precedence, x, true, false, out);
+        return;
+      }
+    } else if (arity == 1) {
+      if ((p = definitions.fx()) >= Operator.OP_LOWEST) {
+        appendPrefix(theStruct, p, precedence, x, true, out);
+        return;
+      }
+      if ((p = definitions.fy()) >= Operator.OP_LOWEST) {
+        appendPrefix(theStruct, p, precedence, x, false, out);
+        return;
+      }
+      if ((p = definitions.xf()) >= Operator.OP_LOWEST) {
+        appendPostfix(theStruct, p, precedence, x, true, out);
+        return;
+      }
+      if ((p = definitions.yf()) >= Operator.OP_LOWEST) {
+        appendPostfix(theStruct, p, precedence, x, false, out);
+        return;
       }
-      return accept(head) + PrologLists.LIST_ELEM_SEPARATOR + formatPListRecursive(tailStruct);
     }
-    final StringBuilder sb = new StringBuilder();
-    // Head
-    final CharSequence h0;
-    if (head instanceof Var<?>) {
-      h0 = visit((Var<?>) head);
-    } else {
-      h0 = accept(head);
+    out.append(termApi().quoteIfNeeded(name));
+    if (arity == 0) {
+      return;
     }
-    sb.append(h0);
-    sb.append(PrologLists.HEAD_TAIL_SEPARATOR);
-    // Tail
-    final CharSequence t0;
-    if (tail instanceof Var<?>) {
-      t0 = visit((Var<?>) tail);
-    } else {
-      t0 = accept(tail);
+    out.append(Struct.PAR_OPEN);
+    for (int i = 0; i < arity; i++) {
+      if (i > 0) {
+        out.append(Struct.ARG_SEPARATOR);
+      }
+      appendArg(theStruct.getArg(i), 0, false, out);
     }
-    sb.append(t0);
-    return sb;
-  }
-
-  /**
-   * Gets the string representation of this term as an X argument of an operator, considering the associative property.
-   */
-  private CharSequence toStringAsArgX(Object theTerm, int precedence) {
-    return toStringAsArg(theTerm, precedence, true);
+    out.append(Struct.PAR_CLOSE);
   }
 
-  /**
-   * Gets the string representation of this term as an Y argument of an operator, considering the associative property.
-   */
-  private CharSequence toStringAsArgY(Object theTerm, int precedence) {
-    return toStringAsArg(theTerm, precedence, false);
+  private static boolean needsParentheses(int p, int precedence, boolean x) {
+    return (x && p >= precedence) || (!x && p > precedence);
   }
 
-  private CharSequence toStringAsList(Struct<?> theStruct) {
-    final Object h = theStruct.getLHS();
-    final Object t = theStruct.getRHS();
-    if (PrologLists.isList(t)) {
-      final Struct<?> tl = (Struct<?>) t;
-      if (PrologLists.isEmptyList(tl)) {
-        return toStringAsArgY(h, 0);
-      }
-      final StringBuilder sb = new StringBuilder();
-      sb.append(toStringAsArgY(h, 0));
-      sb.append(Struct.ARG_SEPARATOR);
-      sb.append(toStringAsList(tl));
-      return sb;
+  private void appendInfix(Struct<?> theStruct, int p, int precedence, boolean x, boolean leftX, boolean rightX, Appendable out) throws IOException {
+    final boolean parentheses = needsParentheses(p, precedence, x);
+    if (parentheses) {
+      out.append('(');
+    }
+    appendArg(theStruct.getLHS(), p, leftX, out);
+    final String name = theStruct.getName();
+    if (name.equals(Struct.ARG_SEPARATOR)) {
+      out.append(Struct.ARG_SEPARATOR);
+    } else {
+      out.append(' ').append(name).append(' ');
+    }
+    appendArg(theStruct.getRHS(), p, rightX, out);
+    if (parentheses) {
+      out.append(')');
     }
-    final StringBuilder sb = new StringBuilder();
-    sb.append(toStringAsArgY(h, 0));
-    sb.append(PrologLists.HEAD_TAIL_SEPARATOR);
-    sb.append(toStringAsArgY(t, 0));
-    return sb;
   }
 
-  private CharSequence toStringAsArg(Object theTerm, int precedence, boolean x) {
-    if (theTerm instanceof CharSequence) {
-      return termApi().quoteIfNeeded((CharSequence) theTerm);
+  private void appendPrefix(Struct<?> theStruct, int p, int precedence, boolean x, boolean argX, Appendable out) throws IOException {
+    final boolean parentheses = needsParentheses(p, precedence, x);
+    if (parentheses) {
+      out.append('(');
     }
-    if (!(theTerm instanceof Struct<?> theStruct)) {
-      return accept(theTerm);
+    out.append(theStruct.getName()).append(' ');
+    appendArg(theStruct.getArg(0), p, argX, out);
+    if (parentheses) {
+      out.append(')');
     }
-    int p;
-    final String name = theStruct.getName();
-    final int arity = theStruct.getArity();
-    if (PrologLists.isEmptyList(theStruct)) {
-      return PrologLists.FUNCTOR_EMPTY_LIST;
+  }
+
+  private void appendPostfix(Struct<?> theStruct, int p, int precedence, boolean x, boolean argX, Appendable out) throws IOException {
+    final boolean parentheses = needsParentheses(p, precedence, x);
+    if (parentheses) {
+      out.append('(');
     }
-    if (PrologLists.isListNode(theStruct)) {
-      final StringBuilder sb = new StringBuilder();
-      sb.append(PrologLists.LIST_OPEN);
-      sb.append(toStringAsList(theStruct));
-      sb.append(PrologLists.LIST_CLOSE);
-      return sb;
+    appendArg(theStruct.getArg(0), p, argX, out);
+    out.append(' ').append(theStruct.getName()).append(' ');
+    if (parentheses) {
+      out.append(')');
     }
+  }
 
-    if (arity == 2) {
-      if ((p = operatorManager.precedence(name, Operator.XFX)) >= Operator.OP_LOWEST) {
-        return ((((x && p >= precedence) || (!x && p > precedence)) ? "(" : "") + toStringAsArgX(theStruct.getLHS(), p) + " " + name + " "
-                + toStringAsArgX(theStruct.getRHS(), p) + (((x && p >= precedence) || (!x && p > precedence)) ? ")" : ""));
-      }
-      if ((p = operatorManager.precedence(name, Operator.YFX)) >= Operator.OP_LOWEST) {
-        return ((((x && p >= precedence) || (!x && p > precedence)) ? "(" : "") + toStringAsArgY(theStruct.getLHS(), p) + " " + name + " "
-                + toStringAsArgX(theStruct.getRHS(), p) + (((x && p >= precedence) || (!x && p > precedence)) ? ")" : ""));
-      }
-      if ((p = operatorManager.precedence(name, Operator.XFY)) >= Operator.OP_LOWEST) {
-        if (!name.equals(Struct.ARG_SEPARATOR)) {
-          return ((((x && p >= precedence) || (!x && p > precedence)) ? "(" : "") + toStringAsArgX(theStruct.getLHS(), p) + " " + name + " "
-                  + toStringAsArgY(theStruct.getRHS(), p) + (((x && p >= precedence) || (!x && p > precedence)) ? ")" : ""));
-        }
-        return ((((x && p >= precedence) || (!x && p > precedence)) ? "(" : "") + toStringAsArgX(theStruct.getLHS(), p) + Struct.ARG_SEPARATOR
-                + toStringAsArgY(theStruct.getRHS(), p) + (((x && p >= precedence) || (!x && p > precedence)) ? ")" : ""));
-      }
-    } else if (arity == 1) {
-      if ((p = operatorManager.precedence(name, Operator.FX)) >= Operator.OP_LOWEST) {
-        return ((((x && p >= precedence) || (!x && p > precedence)) ? "(" : "") + name + " " + toStringAsArgX(theStruct.getArg(0), p) + ((
-                (x && p >= precedence) || (!x && p > precedence)) ? ")" : ""));
-      }
-      if ((p = operatorManager.precedence(name, Operator.FY)) >= Operator.OP_LOWEST) {
-        return ((((x && p >= precedence) || (!x && p > precedence)) ? "(" : "") + name + " " + toStringAsArgY(theStruct.getArg(0), p) + ((
-                (x && p >= precedence) || (!x && p > precedence)) ? ")" : ""));
-      }
-      if ((p = operatorManager.precedence(name, Operator.XF)) >= Operator.OP_LOWEST) {
-        return ((((x && p >= precedence) || (!x && p > precedence)) ? "(" : "") + toStringAsArgX(theStruct.getArg(0), p) + " " + name + " " + ((
-                (x && p >= precedence) || (!x && p > precedence)) ? ")" : ""));
+  /**
+   * Iterate over list nodes instead of recursing on the tail: lists may be very long.
+   */
+  private void appendList(Struct<?> theList, Appendable out) throws IOException {
+    out.append(PrologLists.LIST_OPEN);
+    Struct<?> node = theList;
+    while (true) {
+      appendArg(node.getLHS(), 0, false, out);
+      final Object tail = node.getRHS();
+      if (tail instanceof Struct<?> next && PrologLists.isListNode(next)) {
+        out.append(Struct.ARG_SEPARATOR);
+        node = next;
+        continue;
       }
-      if ((p = operatorManager.precedence(name, Operator.YF)) >= Operator.OP_LOWEST) {
-        return ((((x && p >= precedence) || (!x && p > precedence)) ? "(" : "") + toStringAsArgY(theStruct.getArg(0), p) + " " + name + " " + ((
-                (x && p >= precedence) || (!x && p > precedence)) ? ")" : ""));
+      if (!(tail instanceof Struct<?> last && PrologLists.isEmptyList(last))) {
+        out.append(PrologLists.HEAD_TAIL_SEPARATOR);
+        appendArg(tail, 0, false, out);
       }
+      break;
     }
-    final StringBuilder sb = new StringBuilder(termApi().quoteIfNeeded(name));
-    if (arity == 0) {
-      return sb.toString();
+    out.append(PrologLists.LIST_CLOSE);
+  }
+
+  private void appendVar(Var<?> theVar, Appendable out) throws IOException {
+    final Object finalValue = this.currentVars != null ? this.currentVars.reify(theVar) : theVar;
+    if (finalValue instanceof Var<?>) {
+      // Must be free
+      out.append(theVar == Var.anon() ? Var.ANONYMOUS_VAR_NAME : theVar.getName());
+      return;
     }
-    sb.append(Struct.PAR_OPEN);
-    for (p = 1; p < arity; p++) {
-      sb.append(toStringAsArgY(theStruct.getArg(p - 1), 0));
-      sb.append(Struct.ARG_SEPARATOR);
+    appendArg(finalValue, Operator.OP_HIGHEST, false, out);
+  }
+
+  /**
+   * A {@link TermMap} is formatted as map([Key1-Value1, ...]), with keys and values formatted as any other term.
+   */
+  private void appendMap(TermMap theMap, Appendable out) throws IOException {
+    out.append(TermMap.FUNCTOR_MAP);
+    out.append(Struct.PAR_OPEN);
+    out.append(PrologLists.LIST_OPEN);
+    boolean first = true;
+    for (TermMap.Entry entry : theMap) {
+      if (!first) {
+        out.append(PrologLists.LIST_ELEM_SEPARATOR);
+      }
+      first = false;
+      appendArg(entry.key(), 0, false, out);
+      out.append('-');
+      appendArg(entry.value(), 0, false, out);
     }
-    sb.append(toStringAsArgY(theStruct.getArg(arity - 1), 0));
-    sb.append(Struct.PAR_CLOSE);
-    return sb.toString();
+    out.append(PrologLists.LIST_CLOSE);
+    out.append(Struct.PAR_CLOSE);
   }
 
 }
@@ -28,9 +28,16 @@ import org.logic2j.engine.exception.InvalidTermException;
 
 /**
  * Reference implementation of {@link org.logic2j.core.api.TermUnmarshaller}.
+ * Terms are cached by text, the same goals being typically unmarshalled again and again: a cached text
+ * is not parsed again, its term is copied with new vars, see {@link #setCacheSize(int)}.
  */
 public class DefaultTermUnmarshaller implements TermUnmarshaller {
 
+  /**
+   * Default maximal number of texts whose term is cached.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 1000;
+
   private static final TermAdapter termAdapter = new DefaultTermAdapter();
 
   private OperatorManager operatorManager = new DefaultOperatorManager();
@@ -42,6 +49,8 @@ public class DefaultTermUnmarshaller implements TermUnmarshaller {
     return termApi().normalize(theTerm); // Uh, will ignore any existing primitives, etc.?
   };
 
+  private final ParseCache cache = new ParseCache(DEFAULT_CACHE_SIZE);
+
   @Override
   public Object unmarshall(CharSequence theChars) {
     /*
@@ -50,11 +59,17 @@ public class DefaultTermUnmarshaller implements TermUnmarshaller {
        such as "The following token could not be identified: "<""
        Therefore we will throw a new exception that adds the context in the message.
      */
+    final String text = theChars.toString();
+    final int operatorsVersion = this.operatorManager.getVersion();
+    final Object cached = this.cache.get(text, operatorsVersion);
+    if (cached != null) {
+      return cached;
+    }
     try {
-      final Parser parser = new Parser(this.operatorManager, termAdapter, theChars);
+      final Parser parser = new Parser(this.operatorManager, termAdapter, text);
       final Object parsed = parser.parseSingleTerm();
       final Object normalized = normalizer.apply(parsed);
-      return normalized;
+      return this.cache.put(text, normalized, operatorsVersion);
     } catch (InvalidTermException e) {
       final String newMessage = "Parsing of expression \"" + theChars + "\" failed: " + e.getMessage();
       throw new InvalidTermException(newMessage, e);
@@ -68,6 +83,7 @@ public class DefaultTermUnmarshaller implements TermUnmarshaller {
 
   public void setNormalizer(TermMapper normalizer) {
     this.normalizer = normalizer;
+    clearCache();
   }
 
   public OperatorManager getOperatorManager() {
@@ -76,5 +92,46 @@ public class DefaultTermUnmarshaller implements TermUnmarshaller {
 
   public void setOperatorManager(OperatorManager operatorManager) {
     this.operatorManager = operatorManager;
+    clearCache();
+  }
+
+  /**
+   * Forget all terms cached, for instance after libraries were loaded: their primitives were not known
+   * when the cached terms were normalized.
+   */
+  public void clearCache() {
+    this.cache.clear();
+  }
+
+  public int getCacheSize() {
+    return this.cache.getMaxSize();
+  }
+
+  /**
+   * @param theCacheSize Maximal number of texts whose term is cached, the least recently used are evicted; 0 to disable caching
+   */
+  public void setCacheSize(int theCacheSize) {
+    this.cache.setMaxSize(theCacheSize);
+  }
+
+  /**
+   * @return Number of texts whose term was found in the cache
+   */
+  public long getCacheHits() {
+    return this.cache.getHits();
+  }
+
+  /**
+   * @return Number of texts parsed because their term was not in the cache
+   */
+  public long getCacheMisses() {
+    return this.cache.getMisses();
+  }
+
+  /**
+   * @return Number of terms evicted from the cache because it was full
+   */
+  public long getCacheEvictions() {
+    return this.cache.getEvictions();
   }
 }
@@ -20,10 +20,20 @@ package org.logic2j.core.impl;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.beanutils.PropertyUtils;
+import org.logic2j.engine.exception.PrologNonSpecificException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Variables of the engine, in three scopes selected by the prefix of their name:
+ * "jvm." for JVM system properties (read only), "thread." for variables local to the current thread,
+ * and no prefix for variables global to the engine (which also hold "env", the process environment).
+ * Engine-global names are first looked up directly in a concurrent map, so that any name set with {@link #setVariable(String, Object)}
+ * reads back; only names not found there and with a nested property syntax (containing '.', '[' or '(')
+ * are resolved with commons-beanutils.
+ */
 public class EnvManager {
   private static final Logger logger = LoggerFactory.getLogger(EnvManager.class);
 
@@ -42,46 +52,81 @@ public class EnvManager {
    */
   public static final String VAR_PREFIX_ENV = "env.";
 
-  private final Map<String, Object> environment = new HashMap<>();
+  /**
+   * Engine-global variables, may be accessed from several threads solving concurrently.
+   */
+  private final Map<String, Object> environment = new ConcurrentHashMap<>();
 
 
   public EnvManager() {
-    this.environment.put(VAR_PREFIX_ENV.replace(".", ""), System.getenv());
+    this.environment.put(VAR_PREFIX_ENV.substring(0, VAR_PREFIX_ENV.length() - 1), System.getenv());
   }
 
 
+  /**
+   * @param theExpression Name of the variable, possibly prefixed, or a nested property expression
+   * @return The value, or null if not defined
+   */
   public Object getVariable(String theExpression) {
-    final Object value;
-    try {
-      if (theExpression.startsWith(VAR_PREFIX_JVM)) {
-        // VAR_PREFIX_JVM properties have this stupid habit of using dot (".") which is also BeanUtils (and most ELs)
-        // nested properties separator - we have to work this around
-        final String rest = theExpression.replaceFirst(VAR_PREFIX_JVM, "");
-        value = System.getProperty(rest);
-      } else if (theExpression.startsWith(VAR_PREFIX_THREAD)) {
-        final String rest = theExpression.replaceFirst(VAR_PREFIX_THREAD, "");
-        value = getThreadVariable(rest);
-      } else {
-        value = PropertyUtils.getProperty(this.environment, theExpression);
+    Object value;
+    if (theExpression.startsWith(VAR_PREFIX_THREAD)) {
+      value = getThreadVariable(theExpression.substring(VAR_PREFIX_THREAD.length()));
+    } else if (theExpression.startsWith(VAR_PREFIX_JVM)) {
+      // VAR_PREFIX_JVM properties have this stupid habit of using dot (".") which is also BeanUtils (and most ELs)
+      // nested properties separator - we have to work this around
+      value = System.getProperty(theExpression.substring(VAR_PREFIX_JVM.length()));
+    } else {
+      // A variable set with this very name, whatever characters it contains, has precedence
+      value = this.environment.get(theExpression);
+      if (value == null && !isPlainName(theExpression)) {
+        try {
+          value = PropertyUtils.getProperty(this.environment, theExpression);
+        } catch (IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
+          // No solution
+          return null;
+        }
       }
-    } catch (IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
-      // No solution
-      return null;
     }
-    logger.debug("Getting variable \"{}\",  value={}", theExpression, value);
+    if (logger.isDebugEnabled()) {
+      logger.debug("Getting variable \"{}\",  value={}", theExpression, value);
+    }
     return value;
   }
 
+  /**
+   * @param theExpression Name of the variable, prefixed by {@link #VAR_PREFIX_THREAD} for a thread-local variable
+   * @param theValue      The value, null to remove the variable
+   * @throws PrologNonSpecificException For a JVM property, those are read only
+   */
   public void setVariable(String theExpression, Object theValue) {
-    logger.debug("Setting variable \"{}\", value={}", theExpression, theValue);
+    if (logger.isDebugEnabled()) {
+      logger.debug("Setting variable \"{}\", value={}", theExpression, theValue);
+    }
+    if (theExpression.startsWith(VAR_PREFIX_JVM)) {
+      throw new PrologNonSpecificException("JVM properties are read only, cannot set \"" + theExpression + '"');
+    }
     if (theExpression.startsWith(VAR_PREFIX_THREAD)) {
-      final String rest = theExpression.replaceFirst(VAR_PREFIX_THREAD, "");
-      setThreadVariable(rest, theValue);
+      setThreadVariable(theExpression.substring(VAR_PREFIX_THREAD.length()), theValue);
+    } else if (theValue == null) {
+      this.environment.remove(theExpression);
     } else {
       this.environment.put(theExpression, theValue);
     }
   }
 
+  /**
+   * @return true if theExpression cannot be a nested property expression, so it is the key itself
+   */
+  private static boolean isPlainName(String theExpression) {
+    for (int i = 0; i < theExpression.length(); i++) {
+      final char c = theExpression.charAt(i);
+      if (c == '.' || c == '[' || c == '(') {
+        return false;
+      }
+    }
+    return true;
+  }
+
 
   private static final ThreadLocal<Map<String, Object>> threadLocalBindings = ThreadLocal.withInitial(HashMap::new);
 
@@ -89,8 +134,16 @@ public class EnvManager {
     return threadLocalBindings.get().get(theVariableName);
   }
 
+  /**
+   * @param theVariableName
+   * @param theValue The value, null to remove the variable
+   */
   public static void setThreadVariable(String theVariableName, Object theValue) {
-    threadLocalBindings.get().put(theVariableName, theValue);
+    if (theValue == null) {
+      threadLocalBindings.get().remove(theVariableName);
+    } else {
+      threadLocalBindings.get().put(theVariableName, theValue);
+    }
   }
 
 }
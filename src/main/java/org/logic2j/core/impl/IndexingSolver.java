@@ -0,0 +1,71 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.logic2j.core.api.ClauseProvider;
+import org.logic2j.core.api.model.Clause;
+import org.logic2j.core.impl.theory.DefaultTheoryManager;
+import org.logic2j.core.impl.theory.FirstArgumentIndex;
+import org.logic2j.core.impl.theory.TheoryContent;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * An optional {@link Solver} for large rule bases: the clauses loaded by the {@link DefaultTheoryManager} are compiled,
+ * per predicate, into a {@link FirstArgumentIndex} (switch_on_term), so that only clauses whose first argument can
+ * match are tried. Indexes are built lazily at first call of each predicate, and rebuilt only for predicates whose
+ * clauses changed (such as by a reload).
+ * Clauses from other providers (dynamic, database, ...) and goals only known at runtime are solved by the regular
+ * interpreter.
+ * Install with {@link PrologReferenceImplementation#setSolver(Solver)}, or from the FluentPrologBuilder.
+ */
+public class IndexingSolver extends Solver {
+
+  private final Map<String, Indexed> indexes = new ConcurrentHashMap<>();
+
+  /**
+   * The index of a family, and the family it was built from: families changed in the theory are new List instances,
+   * see {@link TheoryContent#family(String)}.
+   */
+  private record Indexed(List<Clause> family, FirstArgumentIndex index) {
+  }
+
+  public IndexingSolver(PrologImplementation theProlog) {
+    super(theProlog);
+  }
+
+  @Override
+  protected Iterable<Clause> matchingClauses(ClauseProvider theProvider, Object goalTerm, UnifyContext currentVars) {
+    if (!(theProvider instanceof DefaultTheoryManager theory) || !(goalTerm instanceof Struct<?> goal) || goal.getArity() == 0) {
+      return super.matchingClauses(theProvider, goalTerm, currentVars);
+    }
+    final String predicateKey = termApi().predicateSignature(goal);
+    final List<Clause> family = theory.getWholeContent().family(predicateKey);
+    Indexed indexed = this.indexes.get(predicateKey);
+    if (indexed == null || indexed.family() != family) {
+      indexed = new Indexed(family, FirstArgumentIndex.of(family));
+      this.indexes.put(predicateKey, indexed);
+    }
+    return indexed.index().candidates(goal, currentVars);
+  }
+
+}
@@ -19,10 +19,13 @@ package org.logic2j.core.impl;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
 import org.logic2j.core.api.OperatorManager;
 import org.logic2j.core.api.model.Operator;
+import org.logic2j.core.api.model.OperatorDefinitions;
 import org.logic2j.engine.exception.PrologNonSpecificException;
 
 /**
@@ -37,6 +40,8 @@ abstract class OperatorManagerBase implements OperatorManager, Serializable {
    */
   private final OperatorRegister operatorList = new OperatorRegister();
 
+  private volatile int version = 0;
+
   /**
    * Creates and register a new operator. If the operator is already provided, it replaces it with the new one
    *
@@ -47,6 +52,7 @@ abstract class OperatorManagerBase implements OperatorManager, Serializable {
     final Operator op = new Operator(operatorText, associativity, precedence);
     if (precedence >= Operator.OP_LOWEST && precedence <= Operator.OP_HIGHEST) {
       this.operatorList.addOperator(op);
+      this.version++;
     } else {
       throw new PrologNonSpecificException("Operator priority not in valid range for " + op);
     }
@@ -59,12 +65,26 @@ abstract class OperatorManagerBase implements OperatorManager, Serializable {
    */
   @Override
   public int precedence(String operatorText, String associativity) {
-    final Operator operator = this.operatorList.findOperator(operatorText, associativity);
-    return (operator == null) ? 0 : operator.getPrecedence();
+    return operatorsOf(operatorText).precedence(associativity);
+  }
+
+  @Override
+  public OperatorDefinitions operatorsOf(String operatorText) {
+    return this.operatorList.findOperators(operatorText);
+  }
+
+  @Override
+  public int getVersion() {
+    return this.version;
+  }
+
+  @Override
+  public Collection<Operator> getOperators() {
+    return Collections.unmodifiableCollection(this.operatorList.operators);
   }
 
   /**
-   * A register for operators; caches operator by name+type description.
+   * A register for operators; holds all definitions of one atom in a single {@link OperatorDefinitions}.
    * Retains insertion order.
    * <p/>
    * Not 100% sure if 'insertion-order-priority' should be completely replaced by the explicit priority given to operators.
@@ -75,28 +95,25 @@ abstract class OperatorManagerBase implements OperatorManager, Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    // map of operators by name and type
-    // key is the nameType of an operator (for example ":-xfx") - value is an Operator
-    private final HashMap<String, Operator> nameTypeToKey = new HashMap<>();
+    // All definitions of an operator, by its text. Read by parsers and marshallers without locking.
+    private final ConcurrentHashMap<String, OperatorDefinitions> textToDefinitions = new ConcurrentHashMap<>();
     private final LinkedHashSet<Operator> operators = new LinkedHashSet<>();
 
-    public boolean addOperator(Operator op) {
-      final String key = mapKey(op.getText(), op.getAssociativity());
-      final Operator matchingOp = this.nameTypeToKey.get(key);
-      if (matchingOp != null) {
-        this.operators.remove(matchingOp); // removes found match from the main list
+    public synchronized boolean addOperator(Operator op) {
+      final String text = op.getText();
+      final String associativity = op.getAssociativity();
+      final OperatorDefinitions previous = findOperators(text);
+      if (previous.precedence(associativity) != 0) {
+        // removes found match from the main list
+        this.operators.removeIf(existing -> existing.getText().equals(text) && existing.getAssociativity().equals(associativity));
       }
-      this.nameTypeToKey.put(key, op); // writes over found match in nameTypeToKey map
+      this.textToDefinitions.put(text, previous.with(associativity, op.getPrecedence()));
       return this.operators.add(op); // adds new operator to the main list
     }
 
-    public Operator findOperator(String operatorText, String associativity) {
-      final String key = mapKey(operatorText, associativity);
-      return this.nameTypeToKey.get(key);
-    }
-
-    private String mapKey(String operatorText, String associativity) {
-      return operatorText + associativity;
+    public OperatorDefinitions findOperators(String operatorText) {
+      final OperatorDefinitions found = this.textToDefinitions.get(operatorText);
+      return found != null ? found : OperatorDefinitions.NONE;
     }
   }
 
@@ -0,0 +1,217 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+
+/**
+ * A bounded cache of normalized terms by their text, for {@link DefaultTermUnmarshaller}: applications tend to
+ * solve the same few goals again and again. Every hit returns a copy of the cached term with new vars,
+ * so that no two callers share vars; ground subterms are shared.
+ * When the cache is full, the least recently used tenth of its entries is evicted.
+ */
+final class ParseCache {
+
+  private static final class Entry {
+    private final Object term;
+
+    /**
+     * All Vars of term but the anonymous one, indexed by each Var's index, like in {@link org.logic2j.core.api.model.Clause}.
+     */
+    private final Var<?>[] indexedVars;
+
+    /**
+     * See {@link org.logic2j.core.api.OperatorManager#getVersion()}, the term was parsed with these operators.
+     */
+    private final int operatorsVersion;
+
+    private volatile long lastUsed = System.nanoTime();
+
+    Entry(Object theTerm, Var<?>[] theIndexedVars, int theOperatorsVersion) {
+      this.term = theTerm;
+      this.indexedVars = theIndexedVars;
+      this.operatorsVersion = theOperatorsVersion;
+    }
+  }
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private volatile int maxSize;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param theMaxSize Maximal number of entries, 0 to cache nothing
+   */
+  ParseCache(int theMaxSize) {
+    this.maxSize = theMaxSize;
+  }
+
+  /**
+   * @param theText             Text of a term
+   * @param theOperatorsVersion Version of the operators theText would be parsed with
+   * @return A copy of the term cached for theText, or null if none was cached with these operators
+   */
+  Object get(String theText, int theOperatorsVersion) {
+    final Entry entry = this.entries.get(theText);
+    if (entry == null || entry.operatorsVersion != theOperatorsVersion) {
+      this.misses.increment();
+      return null;
+    }
+    entry.lastUsed = System.nanoTime();
+    this.hits.increment();
+    return copy(entry);
+  }
+
+  /**
+   * @param theText             Text of a term
+   * @param theTerm             theText parsed and normalized, not to be used by the caller afterwards
+   * @param theOperatorsVersion Version of the operators theText was parsed with
+   * @return A copy of theTerm, to be used by the caller
+   */
+  Object put(String theText, Object theTerm, int theOperatorsVersion) {
+    if (this.maxSize <= 0) {
+      return theTerm;
+    }
+    final Var<?>[] indexedVars = indexedVars(theTerm);
+    if (indexedVars == null) {
+      return theTerm;
+    }
+    final Entry entry = new Entry(theTerm, indexedVars, theOperatorsVersion);
+    this.entries.put(theText, entry);
+    if (this.entries.size() > this.maxSize) {
+      evict();
+    }
+    return copy(entry);
+  }
+
+  void clear() {
+    this.entries.clear();
+  }
+
+  /**
+   * @param theMaxSize Maximal number of entries, 0 to cache nothing
+   */
+  void setMaxSize(int theMaxSize) {
+    this.maxSize = theMaxSize;
+    evict();
+  }
+
+  int getMaxSize() {
+    return this.maxSize;
+  }
+
+  int size() {
+    return this.entries.size();
+  }
+
+  long getHits() {
+    return this.hits.sum();
+  }
+
+  long getMisses() {
+    return this.misses.sum();
+  }
+
+  long getEvictions() {
+    return this.evictions.sum();
+  }
+
+  private synchronized void evict() {
+    final int max = this.maxSize;
+    if (this.entries.size() <= max) {
+      return;
+    }
+    final int target = max - max / 10;
+    final List<Map.Entry<String, Entry>> byAge = new ArrayList<>(this.entries.entrySet());
+    byAge.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+    for (int i = 0; i < byAge.size() && this.entries.size() > target; i++) {
+      final Map.Entry<String, Entry> oldest = byAge.get(i);
+      if (this.entries.remove(oldest.getKey(), oldest.getValue())) {
+        this.evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * @return The vars of theTerm but the anonymous one, indexed by their index, or null when theTerm is not normalized
+   */
+  private static Var<?>[] indexedVars(Object theTerm) {
+    final Var<?>[] distinctVars = termApi().distinctVars(theTerm);
+    int nbIndexes = 0;
+    for (Var<?> distinctVar : distinctVars) {
+      if (distinctVar != Var.anon()) {
+        if (distinctVar.getIndex() < 0) {
+          return null;
+        }
+        nbIndexes = Math.max(nbIndexes, distinctVar.getIndex() + 1);
+      }
+    }
+    final Var<?>[] indexedVars = new Var<?>[nbIndexes];
+    for (Var<?> distinctVar : distinctVars) {
+      if (distinctVar != Var.anon()) {
+        indexedVars[distinctVar.getIndex()] = distinctVar;
+      }
+    }
+    return indexedVars;
+  }
+
+  private static Object copy(Entry theEntry) {
+    if (theEntry.indexedVars.length == 0) {
+      // Immutable, nothing to rename
+      return theEntry.term;
+    }
+    final Var<?>[] copies = new Var<?>[theEntry.indexedVars.length];
+    for (int i = 0; i < copies.length; i++) {
+      copies[i] = theEntry.indexedVars[i] != null ? Var.copy(theEntry.indexedVars[i]) : null;
+    }
+    return copy(theEntry.term, copies);
+  }
+
+  private static Object copy(Object theTerm, Var<?>[] theCopies) {
+    if (theTerm instanceof Var<?> var && var != Var.anon()) {
+      return theCopies[var.getIndex()];
+    }
+    if (theTerm instanceof Struct<?> struct) {
+      final Object[] args = struct.getArgs();
+      Object[] copiedArgs = null;
+      for (int i = 0; i < args.length; i++) {
+        final Object copied = copy(args[i], theCopies);
+        if (copied != args[i] && copiedArgs == null) {
+          copiedArgs = args.clone();
+        }
+        if (copiedArgs != null) {
+          copiedArgs[i] = copied;
+        }
+      }
+      // A struct without vars is shared
+      return copiedArgs != null ? struct.cloneWithNewArguments(copiedArgs) : struct;
+    }
+    return theTerm;
+  }
+}
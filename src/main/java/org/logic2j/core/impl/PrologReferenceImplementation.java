@@ -30,6 +30,7 @@ import org.logic2j.core.impl.theory.TheoryManager;
 import org.logic2j.core.library.DefaultLibraryManager;
 import org.logic2j.core.library.impl.CoreLibrary;
 import org.logic2j.core.library.impl.IOLibrary;
+import org.logic2j.core.library.impl.MapLibrary;
 import org.logic2j.engine.predicates.impl.generator.Digit;
 import org.logic2j.engine.predicates.impl.math.compare.GE;
 import org.logic2j.engine.predicates.impl.math.compare.GT;
@@ -62,7 +63,7 @@ public class PrologReferenceImplementation implements PrologImplementation {
      */
     L1_CORE_LIBRARY,
     /**
-     * Higher level libraries loaded, such as {@link org.logic2j.core.library.impl.IOLibrary}.
+     * Higher level libraries loaded, such as {@link org.logic2j.core.library.impl.IOLibrary} and {@link org.logic2j.core.library.impl.MapLibrary}.
      */
     L2_BASE_LIBRARIES,
   }
@@ -85,6 +86,8 @@ public class PrologReferenceImplementation implements PrologImplementation {
 
   private Solver solver = new Solver(this);
 
+  private final InitLevel initLevel;
+
   /**
    * Default constructor will only provide an engine with the {@link org.logic2j.core.library.impl.CoreLibrary} loaded.
    */
@@ -98,6 +101,7 @@ public class PrologReferenceImplementation implements PrologImplementation {
    * @param theLevel
    */
   public PrologReferenceImplementation(InitLevel theLevel) {
+    this.initLevel = theLevel;
     // Here we load libs, watch out for the order
 
     // First we load libraries that define primitives, and only after libraries that define theories
@@ -106,6 +110,7 @@ public class PrologReferenceImplementation implements PrologImplementation {
     if (theLevel.ordinal() >= InitLevel.L2_BASE_LIBRARIES.ordinal()) {
       final PLibrary lib = new IOLibrary(this);
       this.libraryManager.loadLibrary(lib);
+      this.libraryManager.loadLibrary(new MapLibrary(this));
     }
     if (theLevel.ordinal() >= InitLevel.L1_CORE_LIBRARY.ordinal()) {
       final PLibrary lib = new CoreLibrary(this);
@@ -140,6 +145,11 @@ public class PrologReferenceImplementation implements PrologImplementation {
     return new GoalHolder(this.getSolver(), theGoal, this.getTermAdapter()::fromTerm);
   }
 
+  @Override
+  public SolutionIterator iterate(CharSequence theGoal) {
+    return new SolutionIterator(this.getSolver(), termUnmarshaller.unmarshall(theGoal));
+  }
+
   // ---------------------------------------------------------------------------
   // Accessors
   // You may use DI to inject all sub-features into setters
@@ -147,6 +157,10 @@ public class PrologReferenceImplementation implements PrologImplementation {
   // "afterPropertiesSet()" feature. We should use the standard @PostConstruct instead.
   // ---------------------------------------------------------------------------
 
+  public InitLevel getInitLevel() {
+    return this.initLevel;
+  }
+
   @Override
   public TermAdapter getTermAdapter() {
     return this.termAdapter;
@@ -0,0 +1,152 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import org.logic2j.core.api.LibraryManager;
+import org.logic2j.core.api.library.PLibrary;
+import org.logic2j.core.api.model.Operator;
+import org.logic2j.core.impl.theory.DefaultTheoryManager;
+import org.logic2j.engine.exception.PrologNonSpecificException;
+
+/**
+ * Save a fully initialized {@link PrologReferenceImplementation} into a file, and restore it later, typically in another JVM:
+ * much faster than loading its libraries and parsing its theories again, like a saved state.
+ * A snapshot holds the {@link PrologReferenceImplementation.InitLevel}, the classes of the libraries loaded, the operators,
+ * all clauses of the theories loaded and those of the {@link org.logic2j.core.impl.theory.DynamicDatabase}.
+ * <p/>
+ * On restore, libraries are instantiated again from their class names, with their public constructor taking the
+ * {@link PrologImplementation}, so that primitives are bound to the restored engine. Configuration such as the
+ * {@link Solver} is not part of a snapshot. Clauses restored are no longer associated to their theory files:
+ * {@link org.logic2j.core.impl.theory.TheoryManager#reload(File)} would add them as new.
+ */
+public final class PrologSnapshot {
+
+  private static final int MAGIC = 0x4C324A53; // "L2JS"
+
+  /**
+   * To be incremented whenever the layout changes.
+   */
+  private static final int FORMAT_VERSION = 1;
+
+  private PrologSnapshot() {
+    // Static only
+  }
+
+  /**
+   * @param theProlog Not to be modified while saving
+   * @param theFile   Replaced, atomically: a failed save leaves the previous snapshot in place
+   * @throws IOException
+   */
+  public static void save(PrologReferenceImplementation theProlog, File theFile) throws IOException {
+    final Path temporary = Files.createTempFile(theFile.getAbsoluteFile().getParentFile().toPath(), theFile.getName(), ".tmp");
+    try {
+      write(theProlog, temporary);
+      Files.move(temporary, theFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  private static void write(PrologReferenceImplementation theProlog, Path theFile) throws IOException {
+    try (OutputStream stream = Files.newOutputStream(theFile)) {
+      final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      writeString(out, theProlog.getInitLevel().name());
+      final Collection<PLibrary> libraries = theProlog.getLibraryManager().getLibraries();
+      out.writeInt(libraries.size());
+      for (PLibrary library : libraries) {
+        writeString(out, library.getClass().getName());
+      }
+      final Collection<Operator> operators = theProlog.getOperatorManager().getOperators();
+      out.writeInt(operators.size());
+      for (Operator operator : operators) {
+        writeString(out, operator.getText());
+        writeString(out, operator.getAssociativity());
+        out.writeInt(operator.getPrecedence());
+      }
+      out.flush();
+      ((DefaultTheoryManager) theProlog.getTheoryManager()).writeSnapshot(stream);
+    }
+  }
+
+  /**
+   * @param theFile As written by {@link #save(PrologReferenceImplementation, File)}
+   * @return A new engine in the state saved
+   * @throws IOException If theFile cannot be read, or is not a snapshot of this version
+   */
+  public static PrologReferenceImplementation restore(File theFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(theFile.toPath(), StandardOpenOption.READ)) {
+      final ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (bytes.remaining() < 8 || bytes.getInt() != MAGIC) {
+        throw new IOException("Not a snapshot: " + theFile);
+      }
+      if (bytes.getInt() != FORMAT_VERSION) {
+        throw new IOException("Snapshot " + theFile + " written by another version of logic2j");
+      }
+      final PrologReferenceImplementation prolog = new PrologReferenceImplementation(PrologReferenceImplementation.InitLevel.valueOf(readString(bytes)));
+      final LibraryManager libraryManager = prolog.getLibraryManager();
+      final int nbLibraries = bytes.getInt();
+      for (int i = 0; i < nbLibraries; i++) {
+        final String className = readString(bytes);
+        if (libraryManager.getLibraries().stream().noneMatch(library -> library.getClass().getName().equals(className))) {
+          libraryManager.loadLibrary(newLibrary(className, prolog));
+        }
+      }
+      final int nbOperators = bytes.getInt();
+      for (int i = 0; i < nbOperators; i++) {
+        prolog.getOperatorManager().addOperator(readString(bytes), readString(bytes), bytes.getInt());
+      }
+      ((DefaultTheoryManager) prolog.getTheoryManager()).restoreSnapshot(bytes);
+      return prolog;
+    }
+  }
+
+  private static PLibrary newLibrary(String theClassName, PrologImplementation theProlog) {
+    try {
+      final Class<? extends PLibrary> libraryClass = Class.forName(theClassName).asSubclass(PLibrary.class);
+      return libraryClass.getConstructor(PrologImplementation.class).newInstance(theProlog);
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new PrologNonSpecificException("Could not instantiate library " + theClassName + " to restore snapshot: " + e, e);
+    }
+  }
+
+  private static void writeString(DataOutputStream theOut, String theString) throws IOException {
+    final byte[] utf8 = theString.getBytes(StandardCharsets.UTF_8);
+    theOut.writeInt(utf8.length);
+    theOut.write(utf8);
+  }
+
+  private static String readString(ByteBuffer theBytes) {
+    final byte[] utf8 = new byte[theBytes.getInt()];
+    theBytes.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8).intern();
+  }
+}
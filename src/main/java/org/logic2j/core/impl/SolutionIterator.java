@@ -0,0 +1,138 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.core.impl;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import org.logic2j.engine.exception.PrologNonSpecificException;
+import org.logic2j.engine.solver.Continuation;
+
+/**
+ * Iterate over the solutions of a goal, solving for the next one only when it is requested.
+ * The goal is solved on a thread of its own, suspended while the caller handles a solution. The solve, and its pin of
+ * the {@link org.logic2j.core.impl.theory.DynamicDatabase}, end when the solutions are exhausted or when the iterator
+ * is closed: close it when not iterating until the end, for instance with try-with-resources.
+ */
+public class SolutionIterator implements Iterator<Object>, AutoCloseable {
+
+  /**
+   * Marks the end of the solutions.
+   */
+  private static final Object END = new Object();
+
+  /**
+   * At most one solution ahead of the caller.
+   */
+  private final BlockingQueue<Object> solutions = new LinkedBlockingQueue<>();
+
+  private final Semaphore requested = new Semaphore(0);
+
+  private volatile boolean closed = false;
+
+  private volatile RuntimeException failure = null;
+
+  private Object next = null;
+
+  private boolean exhausted = false;
+
+  /**
+   * Start solving, up to the first solution.
+   *
+   * @param theSolver
+   * @param theGoal   Solutions are theGoal with its variables bound
+   */
+  public SolutionIterator(Solver theSolver, Object theGoal) {
+    final Thread thread = new Thread(() -> {
+      try {
+        if (awaitRequest()) {
+          theSolver.solveGoal(theGoal, currentVars -> {
+            this.solutions.add(currentVars.reify(theGoal));
+            return awaitRequest() ? Continuation.CONTINUE : Continuation.USER_ABORT;
+          });
+        }
+      } catch (RuntimeException e) {
+        this.failure = e;
+      } finally {
+        this.solutions.add(END);
+      }
+    }, "logic2j-solution-iterator");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * @return false when closed while waiting
+   */
+  private boolean awaitRequest() {
+    try {
+      this.requested.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    return !this.closed;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (this.next == null && !this.exhausted && !this.closed) {
+      this.requested.release();
+      final Object solution;
+      try {
+        solution = this.solutions.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PrologNonSpecificException("Interrupted while waiting for the next solution", e);
+      }
+      if (solution == END) {
+        this.exhausted = true;
+        if (this.failure != null) {
+          throw this.failure;
+        }
+      } else {
+        this.next = solution;
+      }
+    }
+    return this.next != null;
+  }
+
+  @Override
+  public Object next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final Object solution = this.next;
+    this.next = null;
+    return solution;
+  }
+
+  /**
+   * Stop solving: the solve ends as soon as it resumes, releasing what it holds.
+   */
+  @Override
+  public void close() {
+    if (!this.closed) {
+      this.closed = true;
+      this.requested.release();
+    }
+  }
+
+}
@@ -20,8 +20,11 @@ import org.logic2j.core.api.ClauseProvider;
 import org.logic2j.core.api.DataFactProvider;
 import org.logic2j.core.api.library.PrimitiveInfo;
 import org.logic2j.core.api.model.Clause;
+import org.logic2j.core.api.model.CompiledGoal;
+import org.logic2j.core.impl.theory.DynamicDatabase;
 import org.logic2j.engine.model.DataFact;
 import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
 import org.logic2j.engine.predicates.impl.FOPredicate;
 import org.logic2j.engine.solver.Continuation;
 import org.logic2j.engine.solver.listener.SolutionListener;
@@ -42,15 +45,142 @@ public class Solver extends org.logic2j.engine.solver.Solver {
     this.prolog = theProlog;
   }
 
+  /**
+   * Pin the generation of the {@link org.logic2j.core.impl.theory.DynamicDatabase} for the duration of the solve,
+   * so that it sees a consistent state of the dynamic clauses whatever other threads assert or retract meanwhile.
+   * Nested solves (from findall/3, call/N, etc.) keep the generation of the outermost one.
+   * The outermost solve parks its pin while its caller handles a solution, see {@link DynamicDatabase#park()}: a caller
+   * that never asks for more solutions must not hold back compaction forever. {@link SolutionIterator} ends its solve
+   * when closed.
+   */
+  @Override
+  public int solveGoal(Object goal, UnifyContext currentVars) {
+    final DynamicDatabase dynamicDatabase = this.prolog.getTheoryManager().getDynamicDatabase();
+    if (!dynamicDatabase.pin()) {
+      try {
+        return super.solveGoal(goal, currentVars);
+      } finally {
+        dynamicDatabase.unpin();
+      }
+    }
+    final SolutionListener caller = currentVars.getSolutionListener();
+    final SolutionListener parking = solution -> {
+      dynamicDatabase.park();
+      try {
+        return caller.onSolution(solution);
+      } finally {
+        dynamicDatabase.unpark();
+      }
+    };
+    try {
+      return super.solveGoal(goal, currentVars.withListener(parking));
+    } finally {
+      dynamicDatabase.unpin();
+    }
+  }
+
 
   /**
-   * Do we solve the ";" (OR) predicate internally here or via using the external predicate?
-   * (see note re. processing of OR in CoreLibrary.pro)
+   * Solve the control constructs disjunction (;), if-then (->), if-then-else ((C->T);E) and once/1 natively,
+   * with ISO semantics: disjunction and the then/else branches are transparent to cut, the condition
+   * of if-then(-else) and the argument of once/1 are opaque to cut and solved for their first solution only.
+   * Clause bodies are not solved from here but from their {@link CompiledGoal}, see {@link #solveCompiled}; this
+   * handles goals met at runtime only (queries, meta-calls), compiled at every call: they are not cached since their
+   * terms, unlike clause bodies, are not kept. All other goals are handled by the engine.
    */
-  protected final boolean isInternalOr() {
-    return false;
-  } // FIXME Bug with "true" on sign4negative and sign4positive test cases
+  @Override
+  protected int solveInternalRecursive(final Object goalTerm, final UnifyContext currentVars, final int cutLevel) {
+    final Object goal = dereferenced(goalTerm, currentVars);
+    if (goal instanceof Struct<?> goalStruct) {
+      final String functor = goalStruct.getName();
+      final int arity = goalStruct.getArity();
+      if ((arity == 2 && (functor == Struct.FUNCTOR_SEMICOLON || functor == CompiledGoal.FUNCTOR_IF_THEN))
+              || (arity == 1 && functor == CompiledGoal.FUNCTOR_ONCE)) {
+        return solveCompiled(CompiledGoal.compile(goalStruct), currentVars, cutLevel);
+      }
+    }
+    return super.solveInternalRecursive(goalTerm, currentVars, cutLevel);
+  }
 
+  /**
+   * Walk a compiled goal tree.
+   * Calls, to primitives as to user predicates, go through {@link #solveInternalRecursive} as any goal solved by the
+   * engine, so that inference counting, profiling and overrides by subclasses apply within clause
+   * bodies as well.
+   *
+   * @param theGoal
+   * @param currentVars
+   * @param cutLevel
+   * @return continuation
+   */
+  protected int solveCompiled(CompiledGoal theGoal, UnifyContext currentVars, int cutLevel) {
+    if (theGoal instanceof CompiledGoal.Call call) {
+      return solveInternalRecursive(call.goal(), currentVars, cutLevel);
+    }
+    if (theGoal instanceof CompiledGoal.Conjunction conjunction) {
+      return solveConjunction(conjunction, 0, currentVars.getSolutionListener(), currentVars, cutLevel);
+    }
+    if (theGoal instanceof CompiledGoal.Disjunction disjunction) {
+      for (int i = 0; i < disjunction.size(); i++) {
+        final int result = solveCompiled(disjunction.alternative(i), currentVars, cutLevel);
+        if (result != Continuation.CONTINUE) {
+          // Cut or user abort: no more alternatives
+          return result;
+        }
+      }
+      return Continuation.CONTINUE;
+    }
+    if (theGoal instanceof CompiledGoal.IfThenElse ifThenElse) {
+      return solveIfThenElse(ifThenElse, currentVars, cutLevel);
+    }
+    // The cut is left to the engine
+    return super.solveInternalRecursive(((CompiledGoal.Cut) theGoal).goal(), currentVars, cutLevel);
+  }
+
+  /**
+   * Solve goals of theConjunction from index, each solution of one goal triggering the next one, and solutions
+   * of the last goal being notified to theDownstream.
+   */
+  private int solveConjunction(CompiledGoal.Conjunction theConjunction, int index, SolutionListener theDownstream, UnifyContext currentVars,
+                               int cutLevel) {
+    final int size = theConjunction.size();
+    if (size == 0) {
+      return theDownstream.onSolution(currentVars);
+    }
+    if (index == size - 1) {
+      return solveCompiled(theConjunction.goal(index), currentVars.withListener(theDownstream), cutLevel);
+    }
+    final SolutionListener solveNext = vars -> solveConjunction(theConjunction, index + 1, theDownstream, vars, cutLevel);
+    return solveCompiled(theConjunction.goal(index), currentVars.withListener(solveNext), cutLevel);
+  }
+
+  private int solveIfThenElse(CompiledGoal.IfThenElse theIfThenElse, UnifyContext currentVars, int cutLevel) {
+    final SolutionListener downstream = currentVars.getSolutionListener();
+    final boolean[] conditionSucceeded = {false};
+    final int[] thenResult = {Continuation.CONTINUE};
+    final SolutionListener onFirstSolutionOfCondition = vars -> {
+      conditionSucceeded[0] = true;
+      thenResult[0] = solveCompiled(theIfThenElse.then(), vars.withListener(downstream), cutLevel);
+      // The condition is never retried
+      return Continuation.USER_ABORT;
+    };
+    // Cut within the condition is local to it: whatever it returns stops here
+    solveCompiled(theIfThenElse.condition(), currentVars.withListener(onFirstSolutionOfCondition), cutLevel + 1);
+    if (conditionSucceeded[0]) {
+      return thenResult[0];
+    }
+    if (theIfThenElse.orElse() == null) {
+      return Continuation.CONTINUE;
+    }
+    return solveCompiled(theIfThenElse.orElse(), currentVars, cutLevel);
+  }
+
+  /**
+   * @return theTerm, or its value if it is a bound Var (a goal given by a variable)
+   */
+  private static Object dereferenced(Object theTerm, UnifyContext currentVars) {
+    return theTerm instanceof Var<?> ? currentVars.reify(theTerm) : theTerm;
+  }
 
   @Override
   protected boolean isJava(Struct<?> goalStruct) {
@@ -110,14 +240,13 @@ public class Solver extends org.logic2j.engine.solver.Solver {
     int result = Continuation.CONTINUE;
 
     // Now ready to iteratively try clause by clause, by first attempting to unify with its headTerm
-    final Object[] clauseHeadAndBody = new Object[2];
     final Iterable<ClauseProvider> providers = this.prolog.getTheoryManager().getClauseProviders();
     // Iterate on providers
     loopOnProviders:
     // This label used to cancel searching for more matching clauses following a CUT
     // Specifying a label because of two nested "for" loops - we need to break from the inner one
     for (final ClauseProvider provider : providers) {
-      final Iterable<Clause> matchingClauses = provider.listMatchingClauses(goalTerm, currentVars);
+      final Iterable<Clause> matchingClauses = matchingClauses(provider, goalTerm, currentVars);
       if (matchingClauses == null) {
         continue;
       }
@@ -127,13 +256,13 @@ public class Solver extends org.logic2j.engine.solver.Solver {
           logger.debug(" Attempting first/next clause: {}", clause);
         }
 
-        clause.headAndBodyForSubgoal(currentVars, clauseHeadAndBody);
-        final Object clauseHead = clauseHeadAndBody[0];
+        final Clause clauseForSubgoal = clause.forSubgoal(currentVars);
+        final Object clauseHead = clauseForSubgoal.getHead();
         final UnifyContext contextAfterHeadUnified = currentVars.unify(goalTerm, clauseHead);
         final boolean headUnified = contextAfterHeadUnified != null;
 
         if (headUnified) {
-          final Object clauseBody = clauseHeadAndBody[1];
+          final Object clauseBody = clauseForSubgoal.getBody();
           final boolean isFact = clauseBody == null;
           if (isFact) {
             if (isDebug) {
@@ -149,7 +278,7 @@ public class Solver extends org.logic2j.engine.solver.Solver {
             }
             // Solve the body with the same recursion level. The CUT logic is that only if a goal is solved
             // against clauses, it will increment the recursion level.
-            final int ruleResult = solveInternalRecursive(clauseBody, contextAfterHeadUnified, cutLevel);
+            final int ruleResult = solveCompiled(clauseForSubgoal.getCompiledBody(), contextAfterHeadUnified, cutLevel);
             if (isDebug) {
               logger.debug(" back from having solved rule's body = {} gave ruleResult={}", clauseBody, ruleResult);
             }
@@ -198,6 +327,16 @@ public class Solver extends org.logic2j.engine.solver.Solver {
     return result;
   }
 
+  /**
+   * @param theProvider
+   * @param goalTerm
+   * @param currentVars
+   * @return Clauses of theProvider that may match goalTerm, in order, or null if none.
+   */
+  protected Iterable<Clause> matchingClauses(ClauseProvider theProvider, Object goalTerm, UnifyContext currentVars) {
+    return theProvider.listMatchingClauses(goalTerm, currentVars);
+  }
+
   @Override
   protected int solveAgainstDataProviders(final Object goalTerm, final UnifyContext currentVars) {
     final boolean hasDataFactProviders = this.prolog.getTheoryManager().hasDataFactProviders();
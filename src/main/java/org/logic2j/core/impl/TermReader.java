@@ -0,0 +1,320 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl;
+
+import static org.logic2j.engine.model.TermApiLocator.termApiExt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.logic2j.core.impl.io.tuprolog.parse.Parser;
+import org.logic2j.core.impl.io.tuprolog.parse.SentenceSplitter;
+
+/**
+ * Read the terms of a text of any size, such as a log of facts, one after the other in bounded memory:
+ * only the complete sentences following the current term are held, about {@link #BATCH_SIZE} chars
+ * (more only for a longer sentence). Terms are normalized, ready to be solved or used as clauses;
+ * directives are returned like any other term.
+ * <p/>
+ * The {@link #stream()} of terms can be made parallel: batches of whole sentences are then read ahead and
+ * parsed concurrently. Read-ahead is bounded to {@link #MAX_PENDING_BATCHES} batches not entirely parsed yet;
+ * when they are reached, splitting waits for the pool to parse them. Memory is still proportional to the whole
+ * input when the terminal operation holds all terms, such as collecting them into a list.
+ */
+public class TermReader implements Iterator<Object>, Closeable {
+
+  /**
+   * Number of chars read and parsed at once.
+   */
+  public static final int BATCH_SIZE = 64 * 1024;
+
+  /**
+   * Number of batches read ahead by a parallel {@link #stream()} and not entirely parsed yet.
+   */
+  public static final int MAX_PENDING_BATCHES = 4 * Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Batches split off by the parallel stream and not entirely parsed yet.
+   */
+  private final AtomicInteger pendingBatches = new AtomicInteger();
+
+  private final PrologImplementation prolog;
+
+  private final Reader reader;
+
+  /**
+   * Chars read and not parsed yet are from start to limit.
+   */
+  private char[] buffer = new char[BATCH_SIZE];
+  private int start = 0;
+  private int limit = 0;
+  private boolean endOfInput = false;
+
+  /**
+   * Line number of the char at start.
+   */
+  private int line = 1;
+
+  /**
+   * Parsing the current batch, null when it is over.
+   */
+  private Parser parser = null;
+
+  private Object next = null;
+
+  /**
+   * @param theProlog To parse with its operators, and normalize with its libraries
+   * @param theReader Closed by {@link #close()}
+   */
+  public TermReader(PrologImplementation theProlog, Reader theReader) {
+    this.prolog = theProlog;
+    this.reader = theReader;
+  }
+
+  /**
+   * @param theProlog  To parse with its operators, and normalize with its libraries
+   * @param theChannel Decoded as UTF-8, closed by {@link #close()}
+   */
+  public TermReader(PrologImplementation theProlog, ReadableByteChannel theChannel) {
+    this(theProlog, Channels.newReader(theChannel, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws UncheckedIOException If the input cannot be read
+   * @throws org.logic2j.engine.exception.InvalidTermException If a sentence cannot be parsed
+   */
+  @Override
+  public boolean hasNext() {
+    while (this.next == null) {
+      if (this.parser == null) {
+        final SentenceSplitter.Chunk batch = nextBatch(false);
+        if (batch == null) {
+          return false;
+        }
+        this.parser = newParser(batch);
+      }
+      this.next = nextTerm(this.parser);
+      if (this.next == null) {
+        this.parser = null;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public Object next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final Object term = this.next;
+    this.next = null;
+    return term;
+  }
+
+  /**
+   * @return The terms not read yet, in order; closing the stream closes this reader
+   */
+  public Stream<Object> stream() {
+    return StreamSupport.stream(new TermSpliterator(), false).onClose(() -> {
+      try {
+        close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.reader.close();
+  }
+
+  private Parser newParser(SentenceSplitter.Chunk theBatch) {
+    return new Parser(this.prolog.getOperatorManager(), this.prolog.getTermAdapter(), theBatch.text(), theBatch.firstLine());
+  }
+
+  /**
+   * @return The next term of theParser, normalized, or null when there is none
+   */
+  private Object nextTerm(Parser theParser) {
+    final Object term = theParser.nextTerm(true);
+    return term != null ? termApiExt().normalize(term, this.prolog.getLibraryManager().wholeContent()) : null;
+  }
+
+  /**
+   * @param theCopy When false, the batch shares the buffer, it must be parsed before the next batch is read
+   * @return Complete sentences following those of the previous batch, or the rest of the input at its end,
+   * or null when all input was read
+   */
+  private SentenceSplitter.Chunk nextBatch(boolean theCopy) {
+    try {
+      while (true) {
+        final int end = SentenceSplitter.lastSentenceEnd(this.buffer, this.start, this.limit, this.endOfInput);
+        if (end >= 0) {
+          return take(end, theCopy);
+        }
+        if (this.endOfInput) {
+          // Only layout and comments, or an incomplete sentence that the parser will report
+          return this.start < this.limit ? take(this.limit, theCopy) : null;
+        }
+        fill();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private SentenceSplitter.Chunk take(int theEnd, boolean theCopy) {
+    final int length = theEnd - this.start;
+    final CharBuffer text = theCopy ? CharBuffer.wrap(Arrays.copyOfRange(this.buffer, this.start, theEnd)) : CharBuffer.wrap(this.buffer, this.start, length);
+    final SentenceSplitter.Chunk batch = new SentenceSplitter.Chunk(text, this.line);
+    for (int i = this.start; i < theEnd; i++) {
+      if (this.buffer[i] == '\n') {
+        this.line++;
+      }
+    }
+    this.start = theEnd;
+    return batch;
+  }
+
+  /**
+   * Read more chars after those not parsed yet, the buffer grows only when they fill it.
+   */
+  private void fill() throws IOException {
+    if (this.start > 0) {
+      System.arraycopy(this.buffer, this.start, this.buffer, 0, this.limit - this.start);
+      this.limit -= this.start;
+      this.start = 0;
+    }
+    if (this.limit == this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+    }
+    final int read = this.reader.read(this.buffer, this.limit, this.buffer.length - this.limit);
+    if (read < 0) {
+      this.endOfInput = true;
+    } else {
+      this.limit += read;
+    }
+  }
+
+  /**
+   * Terms of the reader. Splits hand over the next batch of sentences, copied, to be parsed by another thread.
+   */
+  private final class TermSpliterator implements Spliterator<Object> {
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Object> action) {
+      if (!hasNext()) {
+        return false;
+      }
+      action.accept(TermReader.this.next());
+      return true;
+    }
+
+    @Override
+    public Spliterator<Object> trySplit() {
+      // The current batch must be over, its text may be overwritten by the next one
+      if (TermReader.this.next != null || TermReader.this.parser != null) {
+        return null;
+      }
+      if (TermReader.this.pendingBatches.get() >= MAX_PENDING_BATCHES) {
+        // Bound the read-ahead: let the pending batches be parsed (helping when in the pool) before reading more
+        final ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        pool.awaitQuiescence(1, TimeUnit.SECONDS);
+        if (TermReader.this.pendingBatches.get() >= MAX_PENDING_BATCHES) {
+          // Batches abandoned by a short-circuiting operation, or a busy pool: the rest is read sequentially
+          return null;
+        }
+      }
+      final SentenceSplitter.Chunk batch = nextBatch(true);
+      if (batch == null) {
+        return null;
+      }
+      TermReader.this.pendingBatches.incrementAndGet();
+      return new BatchSpliterator(batch);
+    }
+
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL;
+    }
+  }
+
+  /**
+   * Terms of one batch of sentences, not split further.
+   */
+  private final class BatchSpliterator implements Spliterator<Object> {
+    private final Parser batchParser;
+
+    private boolean parsed = false;
+
+    BatchSpliterator(SentenceSplitter.Chunk theBatch) {
+      this.batchParser = newParser(theBatch);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Object> action) {
+      if (this.parsed) {
+        return false;
+      }
+      final Object term = nextTerm(this.batchParser);
+      if (term == null) {
+        this.parsed = true;
+        TermReader.this.pendingBatches.decrementAndGet();
+        return false;
+      }
+      action.accept(term);
+      return true;
+    }
+
+    @Override
+    public Spliterator<Object> trySplit() {
+      return null;
+    }
+
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL;
+    }
+  }
+}
@@ -18,14 +18,13 @@
 package org.logic2j.core.impl.io.tuprolog.parse;
 
 import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.ATOM;
-import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.DOUBLE;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.ATTRMASK;
 import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.DQ_SEQUENCE;
-import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.FLOAT;
-import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.INTEGER;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.END;
 import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.LBRA;
 import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.LBRA2;
-import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.LONG;
 import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.LPAR;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.OPERATOR;
 import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.RBRA;
 import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.RBRA2;
 import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.RPAR;
@@ -33,17 +32,17 @@ import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.SQ_SEQUENCE;
 import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.VARIABLE;
 import static org.logic2j.engine.model.Var.strVar;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.LineNumberReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Pattern;
 import org.logic2j.core.api.OperatorManager;
 import org.logic2j.core.api.TermAdapter;
+import org.logic2j.core.api.model.Numbers;
 import org.logic2j.core.api.model.Operator;
+import org.logic2j.core.api.model.OperatorDefinitions;
 import org.logic2j.engine.exception.InvalidTermException;
 import org.logic2j.engine.model.PrologLists;
 import org.logic2j.engine.model.Struct;
@@ -81,8 +80,6 @@ import org.logic2j.engine.model.Var;
 public class Parser {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(Parser.class);
 
-  private static final Pattern ATOM_PATTERN = Pattern.compile("(!|[a-z][a-zA-Z_0-9]*)");
-
   private static final String LIST_SEPARATOR = ","; // In notations pred(a, b, c)
 
 
@@ -98,20 +95,28 @@ public class Parser {
   }
 
 
-  private final Reader reader;
+  private final TermScanner scanner;
 
-  private final Tokenizer tokenizer;
+  /**
+   * When parsing a stream, errors are reported with their line number.
+   */
+  private final boolean reportLineNumbers;
 
   private final OperatorManager operatorManager;
 
   private final TermAdapter termAdapter;
 
+  /**
+   * Reused by {@link #nextGroundFact()}.
+   */
+  private Object[] factArguments = new Object[8];
+
   public Parser(OperatorManager theOperatorManager, TermAdapter theTermAdapter, CharSequence theoryText) {
-    this.reader = null;
     if (theoryText == null) {
       throw new InvalidTermException("null Term cannot be parsed");
     }
-    this.tokenizer = new Tokenizer(theoryText.toString());
+    this.scanner = new TermScanner(theoryText);
+    this.reportLineNumbers = false;
     this.operatorManager = theOperatorManager;
     this.termAdapter = theTermAdapter;
   }
@@ -119,11 +124,28 @@ public class Parser {
   /**
    * @param theOperatorManager
    * @param theTermAdapter
-   * @param theReader          This Reader will be wrapped into a LineNumberReader for improve error reporting.
+   * @param theReader          Entirely read at once, then scanned in memory. Errors will report their line number.
    */
   public Parser(OperatorManager theOperatorManager, TermAdapter theTermAdapter, Reader theReader) {
-    this.reader = new LineNumberReader(new BufferedReader(theReader), 10000);
-    this.tokenizer = new Tokenizer(this.reader);
+    try {
+      this.scanner = new TermScanner(TermScanner.readFully(theReader));
+    } catch (final IOException e) {
+      throw new InvalidTermException("An I/O error occurred: " + e);
+    }
+    this.reportLineNumbers = true;
+    this.operatorManager = theOperatorManager;
+    this.termAdapter = theTermAdapter;
+  }
+
+  /**
+   * @param theOperatorManager
+   * @param theTermAdapter
+   * @param theChunk           Part of a larger text, see {@link SentenceSplitter}
+   * @param theFirstLine       Line number of the first line of theChunk in the larger text, errors will report it
+   */
+  public Parser(OperatorManager theOperatorManager, TermAdapter theTermAdapter, CharSequence theChunk, int theFirstLine) {
+    this.scanner = new TermScanner(theChunk, theFirstLine);
+    this.reportLineNumbers = true;
     this.operatorManager = theOperatorManager;
     this.termAdapter = theTermAdapter;
   }
@@ -136,83 +158,153 @@ public class Parser {
    */
   public Object nextTerm(boolean endNeeded) throws InvalidTermException {
     try {
-      final Token t = this.tokenizer.readToken();
-      if (t.isEOF()) {
+      this.scanner.next();
+      if (this.scanner.isEOF()) {
         return null;
       }
 
-      this.tokenizer.unreadToken(t);
+      this.scanner.pushBack();
       final Object term = expr(false);
       if (term == null) {
         throw new InvalidTermException("The parser was unable to finish.");
       }
 
-      if (endNeeded && this.tokenizer.readToken().getType() != MaskConstants.END) {
+      if (endNeeded && this.scanner.next() != END) {
         throw new InvalidTermException("The term \"" + term + "\" must be terminated with a '.'");
       }
 
       return term;
-    } catch (final IOException ex) {
-      throw new InvalidTermException("An I/O error occurred.");
     } catch (InvalidTermException e) {
-      if (this.reader instanceof LineNumberReader lnr) {
-        int lineNumber = lnr.getLineNumber();
-        throw new InvalidTermException("Error at line " + lineNumber + ": " + e.getMessage());
+      if (this.reportLineNumbers) {
+        throw new InvalidTermException("Error at line " + this.scanner.lineno() + ": " + e.getMessage());
       }
       throw e;
     }
   }
 
-  public Object parseSingleTerm() throws InvalidTermException {
+  /**
+   * Fast path for files of facts: parse the next sentence only when it is a fact whose arguments are all atomic,
+   * such as name(atom, 123, 'Quoted', 4.5). Such facts need no operator resolution.
+   *
+   * @return The fact, or null when the next sentence is anything else, or there is none; then nothing was consumed
+   * and {@link #nextTerm(boolean)} will parse it.
+   */
+  public Struct<?> nextGroundFact() {
+    this.scanner.next();
+    final long start = this.scanner.mark();
     try {
-      final Token t = this.tokenizer.readToken();
-      // Shortcut to get a really clear message if there is no single token to be read
-      // Otherwise we would receive later (in the middle of the parsing) a
-      //   'The following token could not be identified: ""'
-      if (t.isEOF()) {
-        throw new InvalidTermException("Empty Term");
-      }
-      this.tokenizer.unreadToken(t);
-      final Object term = expr(false);
-      if (term == null) {
-        throw new InvalidTermException("Term is null");
+      if (this.scanner.isFunctor() && this.scanner.text() != Struct.FUNCTOR_CLAUSE) {
+        final String functor = this.scanner.text();
+        final int arity = groundArguments();
+        if (arity > 0) {
+          return new Struct<>(functor, Arrays.copyOf(this.factArguments, arity));
+        }
       }
-      final Token token = this.tokenizer.readToken();
-      if (!token.isEOF()) {
-        throw new InvalidTermException("Expecting end of stream after parsing \"" + term + "\", but found extra token \"" + token.text + '"');
+    } catch (InvalidTermException e) {
+      // Reported by nextTerm()
+    }
+    this.scanner.reset(start);
+    return null;
+  }
+
+  /**
+   * @return Number of atomic arguments read into factArguments, up to the final '.', or 0 if that is not a ground fact
+   */
+  private int groundArguments() {
+    if (this.scanner.next() != LPAR) {
+      return 0;
+    }
+    int arity = 0;
+    while (true) {
+      final Object argument = atomicArgument();
+      if (argument == null) {
+        return 0;
       }
-      return term;
-    } catch (final IOException ex) {
-      throw new InvalidTermException("An I/O error occurred");
+      if (arity == this.factArguments.length) {
+        this.factArguments = Arrays.copyOf(this.factArguments, arity * 2);
+      }
+      this.factArguments[arity++] = argument;
+      final int separator = this.scanner.next();
+      if (separator == RPAR) {
+        return this.scanner.next() == END ? arity : 0;
+      }
+      if (separator != OPERATOR || !LIST_SEPARATOR.equals(this.scanner.text())) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * @return The atom, string or number read, null if the next token is not one (or may start an expression)
+   */
+  private Object atomicArgument() {
+    this.scanner.next();
+    if (this.scanner.isNumber()) {
+      return this.scanner.number();
+    }
+    if ((this.scanner.isType(ATOM) || this.scanner.isType(SQ_SEQUENCE) || this.scanner.isType(DQ_SEQUENCE)) && !this.scanner.isFunctor()) {
+      final String atom = this.scanner.text();
+      if ((this.scanner.type() & ATTRMASK) == OPERATOR
+              && this.operatorManager.operatorsOf(atom).isPrefix()) {
+        // A prefix operator applied to what follows
+        return null;
+      }
+      return this.termAdapter.toTerm(atom, TermAdapter.FactoryMode.ATOM);
+    }
+    if (this.scanner.type() == OPERATOR && "-".equals(this.scanner.text())) {
+      this.scanner.next();
+      return this.scanner.isNumber() ? negate(this.scanner.number()) : null;
+    }
+    return null;
+  }
+
+  public Object parseSingleTerm() throws InvalidTermException {
+    this.scanner.next();
+    // Shortcut to get a really clear message if there is no single token to be read
+    // Otherwise we would receive later (in the middle of the parsing) a
+    //   'The following token could not be identified: ""'
+    if (this.scanner.isEOF()) {
+      throw new InvalidTermException("Empty Term");
+    }
+    this.scanner.pushBack();
+    final Object term = expr(false);
+    if (term == null) {
+      throw new InvalidTermException("Term is null");
     }
+    this.scanner.next();
+    if (!this.scanner.isEOF()) {
+      throw new InvalidTermException("Expecting end of stream after parsing \"" + term + "\", but found extra token \"" + this.scanner.text() + '"');
+    }
+    return term;
   }
 
   // ---------------------------------------------------------------------------
   // internal parsing procedures
   // ---------------------------------------------------------------------------
 
-  private Object expr(boolean commaIsEndMarker) throws InvalidTermException, IOException {
+  private Object expr(boolean commaIsEndMarker) throws InvalidTermException {
     return exprA(Operator.OP_HIGHEST, commaIsEndMarker).result;
   }
 
-  private IdentifiedTerm exprA(int maxPriority, boolean commaIsEndMarker) throws InvalidTermException, IOException {
+  private IdentifiedTerm exprA(int maxPriority, boolean commaIsEndMarker) throws InvalidTermException {
     IdentifiedTerm leftSide = exprB(maxPriority, commaIsEndMarker);
 
     // {op(yfx,n) exprA(n-1) | op(yf,n)}*
-    Token oper = this.tokenizer.readToken();
-    for (; oper.isOperator(commaIsEndMarker); oper = this.tokenizer.readToken()) {
+    for (this.scanner.next(); this.scanner.isOperator(commaIsEndMarker); this.scanner.next()) {
+      final String oper = this.scanner.text();
+      final OperatorDefinitions definitions = this.operatorManager.operatorsOf(oper);
 
-      int yfx = this.operatorManager.precedence(oper.text, Operator.YFX);
+      int yfx = definitions.yfx();
       if (yfx < leftSide.priority || yfx > maxPriority) {
         yfx = -1;
       }
 
-      int yf = this.operatorManager.precedence(oper.text, Operator.YF);
+      int yf = definitions.yf();
       if (yf < leftSide.priority || yf > maxPriority) {
         yf = -1;
       }
 
-      int yfy = this.operatorManager.precedence(oper.text, Operator.YFY);
+      int yfy = definitions.yfy();
       if (yfy < leftSide.priority || yfy > maxPriority) {
         yfy = -1;
       }
@@ -221,17 +313,17 @@ public class Parser {
       if (yfy >= yfx && yfy >= yf && yfy >= Operator.OP_LOWEST) {
         final List<Object> elements = new ArrayList<>();
         elements.add(leftSide.result);
-        final String functor = oper.text;
+        final String functor = oper;
         while (yfy >= yfx && yfy >= yf && yfy >= Operator.OP_LOWEST) {
           final IdentifiedTerm tb = exprB(yfy, commaIsEndMarker);
           elements.add(tb.result);
-          oper = this.tokenizer.readToken();
-          if (!oper.text.equals(functor)) {
+          this.scanner.next();
+          if (!this.scanner.text().equals(functor)) {
             // Changing operator - parsing must stop here
-            this.tokenizer.unreadToken(oper);
+            this.scanner.pushBack();
             break;
           }
-          yfy = this.operatorManager.precedence(oper.text, Operator.YFY);
+          yfy = definitions.yfy();
           if (yfy < leftSide.priority || yfy > maxPriority) {
             yfy = -1;
           }
@@ -244,33 +336,34 @@ public class Parser {
       if (yfx >= yf && yfx >= Operator.OP_LOWEST) {
         final IdentifiedTerm ta = exprA(yfx - 1, commaIsEndMarker);
         if (ta != null) {
-          leftSide = new IdentifiedTerm(yfx, new Struct<>(oper.text, leftSide.result, ta.result));
+          leftSide = new IdentifiedTerm(yfx, new Struct<>(oper, leftSide.result, ta.result));
           continue;
         }
         throw new IllegalStateException("Should we really get to here in the Parser?");
       }
       // either YF has priority over YFX or YFX failed
       if (yf >= Operator.OP_LOWEST) {
-        leftSide = new IdentifiedTerm(yf, new Struct<>(oper.text, leftSide.result));
+        leftSide = new IdentifiedTerm(yf, new Struct<>(oper, leftSide.result));
         continue;
       }
       break;
     }
-    this.tokenizer.unreadToken(oper);
+    this.scanner.pushBack();
     return leftSide;
   }
 
-  private IdentifiedTerm exprB(int maxPriority, boolean commaIsEndMarker) throws InvalidTermException, IOException {
+  private IdentifiedTerm exprB(int maxPriority, boolean commaIsEndMarker) throws InvalidTermException {
 
     // 1. op(fx,n) exprA(n-1) | op(fy,n) exprA(n) | expr0
     IdentifiedTerm left = exprC(commaIsEndMarker, maxPriority);
 
     // 2.left is followed by either xfx, xfy or xf operators, parse these
-    Token oper = this.tokenizer.readToken();
-    for (; oper.isOperator(commaIsEndMarker); oper = this.tokenizer.readToken()) {
-      int xfx = this.operatorManager.precedence(oper.text, Operator.XFX);
-      int xfy = this.operatorManager.precedence(oper.text, Operator.XFY);
-      int xf = this.operatorManager.precedence(oper.text, Operator.XF);
+    for (this.scanner.next(); this.scanner.isOperator(commaIsEndMarker); this.scanner.next()) {
+      final String oper = this.scanner.text();
+      final OperatorDefinitions definitions = this.operatorManager.operatorsOf(oper);
+      int xfx = definitions.xfx();
+      int xfy = definitions.xfy();
+      int xf = definitions.xf();
 
       // check that no operator has a priority higher than permitted
       // or a lower priority than the left side expression
@@ -288,7 +381,7 @@ public class Parser {
       if (xfx >= xfy && xfx >= xf && xfx >= left.priority) { // XFX has priority
         final IdentifiedTerm found = exprA(xfx - 1, commaIsEndMarker);
         if (found != null) {
-          final Struct<?> xfxStruct = new Struct<>(oper.text, left.result, found.result);
+          final Struct<?> xfxStruct = new Struct<>(oper, left.result, found.result);
           left = new IdentifiedTerm(xfx, xfxStruct);
           continue;
         }
@@ -298,7 +391,7 @@ public class Parser {
       if (xfy >= xf && xfy >= left.priority) { // XFY has priority, or XFX has failed
         final IdentifiedTerm found = exprA(xfy, commaIsEndMarker);
         if (found != null) {
-          final Struct<?> xfyStruct = new Struct<>(oper.text, left.result, found.result);
+          final Struct<?> xfyStruct = new Struct<>(oper, left.result, found.result);
           left = new IdentifiedTerm(xfy, xfyStruct);
           continue;
         }
@@ -306,14 +399,14 @@ public class Parser {
       }
       // XF
       if (xf >= left.priority) {
-        return new IdentifiedTerm(xf, new Struct<>(oper.text, left.result));
+        return new IdentifiedTerm(xf, new Struct<>(oper, left.result));
       }
 
       // XFX did not have top priority, but XFY failed
       if (xfx >= left.priority) {
         final IdentifiedTerm found = exprA(xfx - 1, commaIsEndMarker);
         if (found != null) {
-          final Struct<?> xfxStruct = new Struct<>(oper.text, left.result, found.result);
+          final Struct<?> xfxStruct = new Struct<>(oper, left.result, found.result);
           left = new IdentifiedTerm(xfx, xfxStruct);
           continue;
         }
@@ -321,7 +414,7 @@ public class Parser {
       }
       break;
     }
-    this.tokenizer.unreadToken(oper);
+    this.scanner.pushBack();
     return left;
   }
 
@@ -334,19 +427,24 @@ public class Parser {
    * @return a wrapper of: 1. term correctly structured and 2. the priority of its root operator
    * @throws InvalidTermException
    */
-  private IdentifiedTerm exprC(boolean commaIsEndMarker, int maxPriority) throws InvalidTermException, IOException {
+  private IdentifiedTerm exprC(boolean commaIsEndMarker, int maxPriority) throws InvalidTermException {
     // 1. prefix expression
-    final Token oper = this.tokenizer.readToken();
-    if (oper.isOperator(commaIsEndMarker)) {
-      int fx = this.operatorManager.precedence(oper.text, Operator.FX);
-      int fy = this.operatorManager.precedence(oper.text, Operator.FY);
-
-      if (oper.text.equals("-")) {
-        final Token t = this.tokenizer.readToken();
-        if (t.isNumber()) {
-          return new IdentifiedTerm(0, createNumber("-" + t.text));
+    this.scanner.next();
+    if (this.scanner.isOperator(commaIsEndMarker)) {
+      final String oper = this.scanner.text();
+      final OperatorDefinitions definitions = this.operatorManager.operatorsOf(oper);
+      int fx = definitions.fx();
+      int fy = definitions.fy();
+
+      if (oper.equals("-")) {
+        final long beforeMinus = this.scanner.mark();
+        this.scanner.next();
+        if (this.scanner.isNumber()) {
+          return new IdentifiedTerm(0, negate(this.scanner.number()));
         }
-        this.tokenizer.unreadToken(t);
+        // Two tokens to read again: scan the "-" again
+        this.scanner.reset(beforeMinus);
+        this.scanner.next();
       }
 
       // check that no operator has a priority higher than permitted
@@ -361,7 +459,7 @@ public class Parser {
       if (fx >= fy && fx >= Operator.OP_LOWEST) {
         final IdentifiedTerm found = exprA(fx - 1, commaIsEndMarker); // op(fx, n) exprA(n - 1)
         if (found != null) {
-          return new IdentifiedTerm(fx, new Struct<>(oper.text, found.result));
+          return new IdentifiedTerm(fx, new Struct<>(oper, found.result));
         }
         throw new IllegalStateException("Should we really get to here in the Parser?");
       }
@@ -369,7 +467,7 @@ public class Parser {
       if (fy >= Operator.OP_LOWEST) {
         final IdentifiedTerm found = exprA(fy, commaIsEndMarker); // op(fy,n) exprA(1200) or op(fy,n) exprA(n)
         if (found != null) {
-          return new IdentifiedTerm(fy, new Struct<>(oper.text, found.result));
+          return new IdentifiedTerm(fy, new Struct<>(oper, found.result));
         }
         throw new IllegalStateException("Should we really get to here in the Parser?");
       }
@@ -377,110 +475,103 @@ public class Parser {
       if (fx >= Operator.OP_LOWEST) {
         final IdentifiedTerm found = exprA(fx - 1, commaIsEndMarker); // op(fx, n) exprA(n - 1)
         if (found != null) {
-          return new IdentifiedTerm(fx, new Struct<>(oper.text, found.result));
+          return new IdentifiedTerm(fx, new Struct<>(oper, found.result));
         }
         throw new IllegalStateException("Should we really get to here in the Parser?");
       }
     }
-    this.tokenizer.unreadToken(oper);
+    this.scanner.pushBack();
     // 2. expr0
     return new IdentifiedTerm(0, exprA0());
   }
 
-  private Object exprA0() throws InvalidTermException, IOException {
-    final Token t1 = this.tokenizer.readToken();
-
-    if (t1.isType(INTEGER)) {
-      return Integer.valueOf(t1.text);
-    }
-
-    if (t1.isType(LONG)) {
-      return Long.valueOf(t1.text);
-    }
+  private Object exprA0() throws InvalidTermException {
+    this.scanner.next();
 
-    if (t1.isType(DOUBLE)) {
-      return Double.valueOf(t1.text);
+    if (this.scanner.isNumber()) {
+      return this.scanner.number();
     }
 
-    if (t1.isType(FLOAT)) {
-      return Float.valueOf(t1.text);
-    }
-
-    if (t1.isType(VARIABLE)) {
-      if (Var.ANONYMOUS_VAR_NAME.equals(t1.text)) {
+    if (this.scanner.isType(VARIABLE)) {
+      if (Var.ANONYMOUS_VAR_NAME.equals(this.scanner.text())) {
         return Var.anon();
       }
-      return strVar(t1.text);
+      return strVar(this.scanner.text());
     }
 
-    if (t1.isType(ATOM) || t1.isType(SQ_SEQUENCE) || t1.isType(DQ_SEQUENCE)) {
-      final String functor = t1.text.intern();
-      if (!t1.isFunctor()) {
+    if (this.scanner.isType(ATOM) || this.scanner.isType(SQ_SEQUENCE) || this.scanner.isType(DQ_SEQUENCE)) {
+      final String functor = this.scanner.text(); // Already interned
+      if (!this.scanner.isFunctor()) {
         // We delegate the instantiation of the atom to our TermAdapter
         final Object term = this.termAdapter.toTerm(functor, TermAdapter.FactoryMode.ATOM);
         return term;
       }
 
-      final Token t2 = this.tokenizer.readToken(); // reading left par
-      if (!t2.isType(LPAR)) {
+      this.scanner.next(); // reading left par
+      if (!this.scanner.isType(LPAR)) {
         throw new InvalidTermException("bug in parsing process. Something identified as functor misses its first left parenthesis");
       }
       final LinkedList<Object> a = exprA0_arglist(); // reading arguments
-      final Token t3 = this.tokenizer.readToken();
-      if (t3.isType(RPAR)) {
+      this.scanner.next();
+      if (this.scanner.isType(RPAR)) {
         return new Struct<>(functor, a.toArray(new Object[0]));
       }
       throw new InvalidTermException("Missing right parenthesis: (" + a + " -> here <-");
     }
 
-    if (t1.isType(LPAR)) {
+    if (this.scanner.isType(LPAR)) {
       final Object term = expr(false);
-      if (this.tokenizer.readToken().isType(RPAR)) {
+      this.scanner.next();
+      if (this.scanner.isType(RPAR)) {
         return term;
       }
       throw new InvalidTermException("Missing right parenthesis: (" + term + " -> here <-");
     }
 
-    if (t1.isType(LBRA)) {
-      final Token t2 = this.tokenizer.readToken();
-      if (t2.isType(RBRA)) {
+    if (this.scanner.isType(LBRA)) {
+      this.scanner.next();
+      if (this.scanner.isType(RBRA)) {
         return PrologLists.EMPTY_LIST;
       }
 
-      this.tokenizer.unreadToken(t2);
+      this.scanner.pushBack();
       final Term term = exprA0_list();
-      if (this.tokenizer.readToken().isType(RBRA)) {
+      this.scanner.next();
+      if (this.scanner.isType(RBRA)) {
         return term;
       }
       throw new InvalidTermException("Missing right bracket: [" + term + " -> here <-");
     }
 
-    if (t1.isType(LBRA2)) {
-      Token t2 = this.tokenizer.readToken();
-      if (t2.isType(RBRA2)) {
+    if (this.scanner.isType(LBRA2)) {
+      this.scanner.next();
+      if (this.scanner.isType(RBRA2)) {
         return new Struct<>("{}");
       }
 
-      this.tokenizer.unreadToken(t2);
+      this.scanner.pushBack();
       final Object arg = expr(false);
-      t2 = this.tokenizer.readToken();
-      if (t2.isType(RBRA2)) {
+      this.scanner.next();
+      if (this.scanner.isType(RBRA2)) {
         return new Struct<>("{}", arg);
       }
       throw new InvalidTermException("Missing right braces: {" + arg + " -> here <-");
     }
 
     // Handle placeholder for variables ${path.to.var}
-    if ("$".equals(t1.text)) {
-      Token nextToken = this.tokenizer.readToken();
-      if (!nextToken.isType(LBRA2)) {
+    if ("$".equals(this.scanner.text())) {
+      this.scanner.next();
+      if (!this.scanner.isType(LBRA2)) {
         throw new InvalidTermException("Placeholder for variable should be ${name}; missing opening brace");
       }
-      nextToken = this.tokenizer.readToken();
+      this.scanner.next();
       final StringBuilder varPathExpression = new StringBuilder();
-      while (!nextToken.isType(RBRA2)) {
-        varPathExpression.append(nextToken.text);
-        nextToken = this.tokenizer.readToken();
+      while (!this.scanner.isType(RBRA2)) {
+        if (this.scanner.isEOF()) {
+          throw new InvalidTermException("Placeholder for variable ${" + varPathExpression + " is missing its closing brace");
+        }
+        varPathExpression.append(this.scanner.text());
+        this.scanner.next();
       }
       // We delegate the instantiation of the atom to our TermAdapter
       Object term = this.termAdapter.getVariable(varPathExpression.toString());
@@ -493,35 +584,37 @@ public class Parser {
       return term;
     }
 
-    throw new InvalidTermException("The following token could not be identified: \"" + t1.text + '"');
+    throw new InvalidTermException("The following token could not be identified: \"" + this.scanner.text() + '"');
   }
 
-  private Term exprA0_list() throws InvalidTermException, IOException {
+  private Term exprA0_list() throws InvalidTermException {
     final Object head = expr(true);
-    final Token t = this.tokenizer.readToken();
-    if (PrologLists.LIST_ELEM_SEPARATOR.equals(t.text)) {
+    this.scanner.next();
+    final String separator = this.scanner.text();
+    if (PrologLists.LIST_ELEM_SEPARATOR.equals(separator)) {
       return PrologLists.createPList(head, exprA0_list());
     }
-    if ("|".equals(t.text)) {
+    if ("|".equals(separator)) {
       return PrologLists.createPList(head, expr(true));
     }
-    if ("]".equals(t.text)) {
-      this.tokenizer.unreadToken(t);
+    if ("]".equals(separator)) {
+      this.scanner.pushBack();
       return PrologLists.createPList(head, PrologLists.EMPTY_LIST);
     }
     throw new InvalidTermException("The expression \"" + head + "\" is not followed by either a ',' or '|'  or ']'.");
   }
 
-  private LinkedList<Object> exprA0_arglist() throws InvalidTermException, IOException {
+  private LinkedList<Object> exprA0_arglist() throws InvalidTermException {
     final Object head = expr(true);
-    final Token t = this.tokenizer.readToken();
-    if (LIST_SEPARATOR.equals(t.text)) {
+    this.scanner.next();
+    final String separator = this.scanner.text();
+    if (LIST_SEPARATOR.equals(separator)) {
       final LinkedList<Object> l = exprA0_arglist();
       l.addFirst(head);
       return l;
     }
-    if (")".equals(t.text)) {
-      this.tokenizer.unreadToken(t);
+    if (")".equals(separator)) {
+      this.scanner.pushBack();
       final LinkedList<Object> l = new LinkedList<>();
       l.add(head);
       return l;
@@ -531,23 +624,31 @@ public class Parser {
 
   // commodity methods to parse numbers
 
-  Object createNumber(String s) {
-    try {
-      return Integer.valueOf(s);
-    } catch (final Exception e) {
-      return Double.valueOf(s);
+  /**
+   * @return The opposite of theNumber, of the same type
+   */
+  static Number negate(Number theNumber) {
+    if (theNumber instanceof Integer i) {
+      return Numbers.valueOf(-i);
+    }
+    if (theNumber instanceof Long l) {
+      return Numbers.valueOf(-l);
+    }
+    if (theNumber instanceof Float f) {
+      return -f;
     }
+    return Numbers.valueOf(-theNumber.doubleValue());
   }
 
   public int getCurrentLine() {
-    return this.tokenizer.lineno();
+    return this.scanner.lineno();
   }
 
   /**
-   * @returorg.logic2j.core.api.TermAdaptern true if the String could be a prolog ATOM_PATTERN
+   * @return true if the String could be a prolog atom without quotes
    */
   public static boolean isAtom(String s) {
-    return ATOM_PATTERN.matcher(s).matches();
+    return TermScanner.isAtom(s);
   }
 
 }
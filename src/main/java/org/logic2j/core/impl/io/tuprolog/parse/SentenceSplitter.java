@@ -0,0 +1,189 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl.io.tuprolog.parse;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Split a theory text into chunks of whole sentences, so that large texts can be parsed concurrently, or read
+ * in bounded memory.
+ * Sentences end at an end token: a '.' followed by a layout character, outside of quotes and comments.
+ */
+public final class SentenceSplitter {
+
+  /**
+   * @param text      A slice of the original text, sharing its chars
+   * @param firstLine Line number in the original text of the first line of this chunk
+   */
+  public record Chunk(CharBuffer text, int firstLine) {
+  }
+
+  private SentenceSplitter() {
+    // Static only
+  }
+
+  /**
+   * @param theText      To be split
+   * @param theChunkSize Minimal number of chars of a chunk, the last one may be smaller
+   * @return Chunks covering theText in order, or null when theText contains directives: they may define
+   * operators that change how the following sentences are parsed, such a text must be parsed sequentially.
+   */
+  public static List<Chunk> split(CharBuffer theText, int theChunkSize) {
+    final char[] chars = theText.array();
+    final int from = theText.arrayOffset() + theText.position();
+    final int to = from + theText.remaining();
+    final EndFinder ends = new EndFinder(chars, from, to, true);
+    final List<Chunk> chunks = new ArrayList<>();
+    int chunkStart = from;
+    int chunkLine = 1;
+    for (int end = ends.next(); end >= 0; end = ends.next()) {
+      if (ends.directive) {
+        return null;
+      }
+      if (end - chunkStart >= theChunkSize) {
+        chunks.add(new Chunk(CharBuffer.wrap(chars, chunkStart, end - chunkStart), chunkLine));
+        chunkStart = end;
+        chunkLine = ends.line;
+      }
+    }
+    if (ends.directive) {
+      return null;
+    }
+    if (chunkStart < to || chunks.isEmpty()) {
+      chunks.add(new Chunk(CharBuffer.wrap(chars, chunkStart, to - chunkStart), chunkLine));
+    }
+    return chunks;
+  }
+
+  /**
+   * Find where the complete sentences at the beginning of a text end, to read a stream sentence by sentence.
+   *
+   * @param theChars Text
+   * @param theFrom  Beginning of a sentence
+   * @param theTo    End of the text available so far
+   * @param theAtEnd True when no text follows theTo, so that a final '.' ends a sentence
+   * @return The index after the end token of the last sentence complete before theTo, or -1 if there is none
+   */
+  public static int lastSentenceEnd(char[] theChars, int theFrom, int theTo, boolean theAtEnd) {
+    final EndFinder ends = new EndFinder(theChars, theFrom, theTo, theAtEnd);
+    int last = -1;
+    for (int end = ends.next(); end >= 0; end = ends.next()) {
+      last = end;
+    }
+    return last;
+  }
+
+  /**
+   * Finds end tokens one after the other, skipping quotes and comments, and counting lines.
+   */
+  private static final class EndFinder {
+    private final char[] chars;
+    private final int from;
+    private final int to;
+    private final boolean atEnd;
+    private int i;
+    private boolean sentenceStart = true;
+
+    /**
+     * Line number of the last end token found, the first line is 1.
+     */
+    int line = 1;
+
+    /**
+     * Whether a sentence starting with ":-" was met so far.
+     */
+    boolean directive = false;
+
+    EndFinder(char[] theChars, int theFrom, int theTo, boolean theAtEnd) {
+      this.chars = theChars;
+      this.from = theFrom;
+      this.to = theTo;
+      this.atEnd = theAtEnd;
+      this.i = theFrom;
+    }
+
+    /**
+     * @return The index after the next end token, or -1 when there is none before the end of the text
+     */
+    int next() {
+      final char[] chars = this.chars;
+      final int from = this.from;
+      final int to = this.to;
+      for (int i = this.i; i < to; i++) {
+        final char c = chars[i];
+        final boolean last = i + 1 >= to;
+        final char next = last ? 0 : chars[i + 1];
+        if (c == '\n') {
+          this.line++;
+        } else if (isLayout(c)) {
+          // Skip
+        } else if (c == '%') {
+          while (i + 1 < to && chars[i + 1] != '\n') {
+            i++;
+          }
+        } else if (c == '/' && next == '*') {
+          for (i += 2; i + 1 < to && !(chars[i] == '*' && chars[i + 1] == '/'); i++) {
+            if (chars[i] == '\n') {
+              this.line++;
+            }
+          }
+          i++;
+        } else if (this.sentenceStart && c == ':' && next == '-') {
+          this.directive = true;
+          this.sentenceStart = false;
+          i++;
+        } else {
+          this.sentenceStart = false;
+          if (c == '\'' && i >= from + 1 && chars[i - 1] == '0' && !(i >= from + 2 && isWordChar(chars[i - 2]))) {
+            // Character code constant such as 0'. : skip the character
+            i++;
+          } else if (c == '\'' || c == '"' || c == '`') {
+            // Skip quoted text; a doubled quote closes then opens again
+            for (i++; i < to && chars[i] != c; i++) {
+              if (chars[i] == '\n') {
+                this.line++;
+              }
+            }
+          } else if (c == '.' && (last ? this.atEnd : (next == '%' || isLayout(next))) && !(i > from && isSymbolChar(chars[i - 1]))) {
+            this.sentenceStart = true;
+            this.i = i + 1;
+            return this.i;
+          }
+        }
+      }
+      this.i = to;
+      return -1;
+    }
+  }
+
+  private static boolean isLayout(char c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+  }
+
+  private static boolean isWordChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  /**
+   * A '.' after one of these is part of a symbol atom, such as =..
+   */
+  private static boolean isSymbolChar(char c) {
+    return "\\$&?^@#.:;=<>+-*/~,".indexOf(c) >= 0;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl.io.tuprolog.parse;
+
+/**
+ * Canonical, {@link String#intern() interned} Strings for the names scanned from a char[], shared by all parsers.
+ * A hit returns the cached instance without allocating: repetitive input, such as files of facts, resolves
+ * the same functors and atoms over and over.
+ * The table is a direct-mapped cache: a slot holds the last symbol hashed there. Slots are written without
+ * synchronization, which is safe since Strings are immutable - a lost race only costs one more String.intern().
+ */
+final class SymbolTable {
+
+  private static final int SIZE = 1 << 13;
+
+  /**
+   * Longer texts (such as quoted sentences) are unlikely to repeat and would only evict useful symbols.
+   */
+  private static final int MAX_CACHED_LENGTH = 64;
+
+  private static final String[] SYMBOLS = new String[SIZE];
+
+  private SymbolTable() {
+    // Static only
+  }
+
+  /**
+   * @return The interned String of length chars at offset in chars
+   */
+  static String intern(char[] chars, int offset, int length) {
+    if (length > MAX_CACHED_LENGTH) {
+      return new String(chars, offset, length).intern();
+    }
+    int hash = 0;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      hash = 31 * hash + chars[i];
+    }
+    final int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+    final String cached = SYMBOLS[slot];
+    if (cached != null && cached.hashCode() == hash && matches(cached, chars, offset, length)) {
+      return cached;
+    }
+    final String symbol = new String(chars, offset, length).intern();
+    SYMBOLS[slot] = symbol;
+    return symbol;
+  }
+
+  private static boolean matches(String symbol, char[] chars, int offset, int length) {
+    if (symbol.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (symbol.charAt(i) != chars[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,612 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl.io.tuprolog.parse;
+
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.ATOM;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.ATTRMASK;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.BAR;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.DOUBLE;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.DQ_SEQUENCE;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.END;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.EOF;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.FLOAT;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.FUNCTOR;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.INTEGER;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.LBRA;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.LBRA2;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.LONG;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.LPAR;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.OPERATOR;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.RBRA;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.RBRA2;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.RPAR;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.SQ_SEQUENCE;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.TYPEMASK;
+import static org.logic2j.core.impl.io.tuprolog.parse.MaskConstants.VARIABLE;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import org.logic2j.core.api.model.Numbers;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.Struct;
+
+/**
+ * The lexer of the {@link Parser}, scanning a char[] in place.
+ * <p>
+ * Characters are classified through a table, names are resolved through the shared {@link SymbolTable},
+ * integers are converted without intermediate Strings. There is no token object: the current token is held in
+ * fields (type, text, number), and one token of lookahead is provided by {@link #pushBack()}.
+ * <p>
+ * Lexical rules, from tuProlog:
+ * <pre>
+ * digit ::= 0 .. 9
+ * lc_letter ::= a .. z
+ * uc_letter ::= A .. Z | _
+ * symbol ::= \ | $ | & | ? | ^ | @ | # | . | , | : | ; | = | < | > | + | - | * | / | ~
+ * letter ::= digit | lc_letter | uc_letter
+ * integer ::= { digit }+ [ L ] | 0b{ digit }+ | 0o{ digit }+ | 0x{ digit }+ | 0'char
+ * float ::= { digit }+ . { digit }+ [ E|e [ +|- ] { digit }+ ] [ F ]
+ * atom ::= lc_letter { letter }* | ! | { symbol }+ | 'quoted'
+ * variable ::= uc_letter { letter }*
+ * </pre>
+ * Non-ASCII letters are letters, upper case ones start variables.
+ */
+final class TermScanner {
+
+  // Character classes
+  private static final byte OTHER = 0;
+  private static final byte LAYOUT = 1;
+  private static final byte LOWER = 2;
+  private static final byte UPPER = 3;
+  private static final byte DIGIT = 4;
+  private static final byte SYMBOL = 5;
+  private static final byte SOLO = 6;
+  private static final byte QUOTE = 7;
+
+  private static final byte[] CLASSES = new byte[128];
+
+  static {
+    for (char c : " \t\r\n\f".toCharArray()) {
+      CLASSES[c] = LAYOUT;
+    }
+    for (char c = 'a'; c <= 'z'; c++) {
+      CLASSES[c] = LOWER;
+    }
+    for (char c = 'A'; c <= 'Z'; c++) {
+      CLASSES[c] = UPPER;
+    }
+    CLASSES['_'] = UPPER;
+    for (char c = '0'; c <= '9'; c++) {
+      CLASSES[c] = DIGIT;
+    }
+    for (char c : "\\$&?^@#.:;=<>+-*/~".toCharArray()) {
+      CLASSES[c] = SYMBOL;
+    }
+    for (char c : "()[]{}|!,".toCharArray()) {
+      CLASSES[c] = SOLO;
+    }
+    for (char c : "'\"`".toCharArray()) {
+      CLASSES[c] = QUOTE;
+    }
+  }
+
+  private static final int NO_CHAR = -1;
+
+  private final char[] chars;
+
+  private final int end;
+
+  private int pos;
+
+  private int line = 1;
+
+  // The current token
+  private int type;
+  private String text;
+  private Number number;
+  private int tokenStart;
+  private int tokenLine;
+
+  private boolean pushedBack = false;
+
+  TermScanner(char[] theChars, int theOffset, int theLength) {
+    this.chars = theChars;
+    this.pos = theOffset;
+    this.end = theOffset + theLength;
+  }
+
+  TermScanner(CharSequence theText) {
+    if (theText instanceof CharBuffer buffer && buffer.hasArray()) {
+      this.chars = buffer.array();
+      this.pos = buffer.arrayOffset() + buffer.position();
+      this.end = this.pos + buffer.remaining();
+    } else {
+      this.chars = theText.toString().toCharArray();
+      this.pos = 0;
+      this.end = this.chars.length;
+    }
+  }
+
+  /**
+   * @param theFirstLine Line number of the first line of theText, when it is part of a larger text
+   */
+  TermScanner(CharSequence theText, int theFirstLine) {
+    this(theText);
+    this.line = theFirstLine;
+  }
+
+  /**
+   * @return All characters of theReader, which is not closed
+   */
+  static CharBuffer readFully(Reader theReader) throws IOException {
+    char[] buffer = new char[8192];
+    int length = 0;
+    for (int read; (read = theReader.read(buffer, length, buffer.length - length)) >= 0; ) {
+      length += read;
+      if (length == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+    }
+    return CharBuffer.wrap(buffer, 0, length);
+  }
+
+  // ---------------------------------------------------------------------------
+  // The current token
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @return Type of the current token: one of the {@link MaskConstants} types, possibly with an attribute
+   */
+  int type() {
+    return this.type;
+  }
+
+  /**
+   * @return Text of the current token, names are interned
+   */
+  String text() {
+    if (this.text == null) {
+      this.text = String.valueOf(this.number);
+    }
+    return this.text;
+  }
+
+  /**
+   * @return Value of the current token when {@link #isNumber()}
+   */
+  Number number() {
+    return this.number;
+  }
+
+  boolean isType(int theType) {
+    return (this.type & TYPEMASK) == theType;
+  }
+
+  boolean isOperator(boolean commaIsEndMarker) {
+    return (this.type & ATTRMASK) == OPERATOR && !(commaIsEndMarker && ",".equals(this.text));
+  }
+
+  boolean isFunctor() {
+    return (this.type & ATTRMASK) == FUNCTOR;
+  }
+
+  boolean isNumber() {
+    return this.type == INTEGER || this.type == LONG || this.type == FLOAT || this.type == DOUBLE;
+  }
+
+  boolean isEOF() {
+    return (this.type & ATTRMASK) == EOF;
+  }
+
+  int lineno() {
+    return this.line;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Scanning
+  // ---------------------------------------------------------------------------
+
+  /**
+   * The next call to {@link #next()} will return the current token again.
+   */
+  void pushBack() {
+    this.pushedBack = true;
+  }
+
+  /**
+   * @return A position just before the current token, see {@link #reset(long)}
+   */
+  long mark() {
+    return ((long) this.tokenLine << 32) | this.tokenStart;
+  }
+
+  /**
+   * Scan again from theMark, when more than one token must be read again.
+   */
+  void reset(long theMark) {
+    this.pos = (int) theMark;
+    this.line = (int) (theMark >>> 32);
+    this.pushedBack = false;
+  }
+
+  /**
+   * Advance to the next token.
+   *
+   * @return Its type, see {@link #type()}
+   */
+  int next() {
+    if (this.pushedBack) {
+      this.pushedBack = false;
+      return this.type;
+    }
+    skipLayoutAndComments();
+    this.tokenStart = this.pos;
+    this.tokenLine = this.line;
+    this.number = null;
+    if (this.pos >= this.end) {
+      return token(EOF, "");
+    }
+    final char c = this.chars[this.pos];
+    switch (classOf(c)) {
+      case LOWER:
+        return atom();
+      case UPPER:
+        this.pos = endOfWord(this.pos);
+        return token(VARIABLE, symbol(this.tokenStart, this.pos));
+      case DIGIT:
+        return number();
+      case QUOTE:
+        return quoted(c);
+      case SOLO:
+        this.pos++;
+        return switch (c) {
+          case '(' -> token(LPAR, "(");
+          case ')' -> token(RPAR, ")");
+          case '[' -> token(LBRA, "[");
+          case ']' -> token(RBRA, "]");
+          case '{' -> token(LBRA2, "{");
+          case '}' -> token(RBRA2, "}");
+          case '|' -> token(BAR, "|");
+          case '!' -> token(ATOM, Struct.FUNCTOR_CUT);
+          default -> token(OPERATOR, ",");
+        };
+      case SYMBOL:
+        // The end '.' must be followed by a layout character, see ISO Standard 6.4.8 endnote
+        if (c == '.') {
+          final int after = charAt(this.pos + 1);
+          if (after == NO_CHAR || after == '%' || isLayout(after)) {
+            this.pos++;
+            return token(END, ".");
+          }
+        }
+        while (this.pos < this.end && isSymbol(this.chars[this.pos])) {
+          this.pos++;
+        }
+        return token(OPERATOR, symbol(this.tokenStart, this.pos));
+      default:
+        throw new InvalidTermException("Unknown Unicode character: " + (int) c + " at line: " + this.line);
+    }
+  }
+
+  private int token(int theType, String theText) {
+    this.type = theType;
+    this.text = theText;
+    return theType;
+  }
+
+  private int numberToken(int theType, Number theNumber) {
+    this.type = theType;
+    this.text = null;
+    this.number = theNumber;
+    return theType;
+  }
+
+  private void skipLayoutAndComments() {
+    while (this.pos < this.end) {
+      final char c = this.chars[this.pos];
+      if (c == '\n') {
+        this.line++;
+        this.pos++;
+      } else if (isLayout(c)) {
+        this.pos++;
+      } else if (c == '%') {
+        while (this.pos < this.end && this.chars[this.pos] != '\n' && this.chars[this.pos] != '\r') {
+          this.pos++;
+        }
+      } else if (c == '/' && charAt(this.pos + 1) == '*') {
+        final int startLine = this.line;
+        this.pos += 2;
+        while (!(charAt(this.pos) == '*' && charAt(this.pos + 1) == '/')) {
+          if (this.pos >= this.end) {
+            throw new InvalidTermException("Comment starting at line: " + startLine + " is not terminated with */");
+          }
+          if (this.chars[this.pos++] == '\n') {
+            this.line++;
+          }
+        }
+        this.pos += 2;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private int atom() {
+    this.pos = endOfWord(this.pos);
+    final String name = symbol(this.tokenStart, this.pos);
+    final int after = charAt(this.pos);
+    if (after == '(') {
+      return token(ATOM | FUNCTOR, name);
+    }
+    if (isLayout(after)) {
+      return token(ATOM | OPERATOR, name);
+    }
+    return token(ATOM, name);
+  }
+
+  private int quoted(char quote) {
+    final int startLine = this.line;
+    this.pos++;
+    StringBuilder unescaped = null;
+    int segment = this.pos;
+    while (true) {
+      if (this.pos >= this.end) {
+        throw new InvalidTermException("Quoted text starting at line: " + startLine + " is not terminated with " + quote);
+      }
+      final char c = this.chars[this.pos];
+      if (c == quote) {
+        if (charAt(this.pos + 1) != quote) {
+          break;
+        }
+        // Doubled quote
+        unescaped = append(unescaped, segment, this.pos).append(quote);
+        this.pos += 2;
+        segment = this.pos;
+      } else if (c == '\\') {
+        final int escaped = charAt(this.pos + 1);
+        if (escaped == '\n' || escaped == '\r') {
+          // Continuation escape sequence
+          unescaped = append(unescaped, segment, this.pos);
+          this.pos += 2;
+          if (escaped == '\r' && charAt(this.pos) == '\n') {
+            this.pos++;
+          }
+          this.line++;
+          segment = this.pos;
+        } else if (escaped == '\\' || escaped == 'n' || escaped == 'r') {
+          unescaped = append(unescaped, segment, this.pos).append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : '\\');
+          this.pos += 2;
+          segment = this.pos;
+        } else {
+          // Any other backslash is kept as is
+          this.pos++;
+        }
+      } else if (c == '\n' || c == '\r') {
+        throw new InvalidTermException("line break in quote not allowed (unless they are escaped \\ first)");
+      } else {
+        this.pos++;
+      }
+    }
+    final String body = unescaped == null ? symbol(segment, this.pos) : append(unescaped, segment, this.pos).toString().intern();
+    this.pos++; // Closing quote
+    if (quote == '"') {
+      return token(DQ_SEQUENCE, body);
+    }
+    final int type = isAtom(body) ? ATOM : SQ_SEQUENCE;
+    return token(charAt(this.pos) == '(' ? type | FUNCTOR : type, body);
+  }
+
+  private StringBuilder append(StringBuilder theBuilder, int from, int to) {
+    final StringBuilder builder = theBuilder != null ? theBuilder : new StringBuilder();
+    return builder.append(this.chars, from, to - from);
+  }
+
+  private int number() {
+    final int wordEnd = endOfWord(this.pos);
+    final int length = wordEnd - this.tokenStart;
+    try {
+      // Binary, octal and hexadecimal integers
+      if (this.chars[this.tokenStart] == '0' && length > 2) {
+        final int radix = switch (this.chars[this.tokenStart + 1]) {
+          case 'b' -> 2;
+          case 'o' -> 8;
+          case 'x' -> 16;
+          default -> 0;
+        };
+        if (radix != 0) {
+          this.pos = wordEnd;
+          return integral(parseLong(this.tokenStart + 2, wordEnd, radix));
+        }
+      }
+      final int after = charAt(wordEnd);
+      // Character code constant
+      if (after == '\'' && length == 1 && this.chars[this.tokenStart] == '0') {
+        return characterCode(wordEnd + 1);
+      }
+      // Fraction
+      if (after == '.' && isWordChar(charAt(wordEnd + 1))) {
+        return fraction(wordEnd + 1);
+      }
+      if (after == '\'') {
+        throw new InvalidTermException("A number starting with 0-9 cannot be recognized as an int and does not have a fraction '.' at line: " + this.line);
+      }
+      // Integer, a following '.' is the end of the clause
+      this.pos = wordEnd;
+      final char last = this.chars[wordEnd - 1];
+      if (last == 'L' || last == 'l') {
+        return numberToken(LONG, Numbers.valueOf(parseLong(this.tokenStart, wordEnd - 1, 10)));
+      }
+      // Beyond the range of int, a Long as for the other radixes
+      return integral(parseLong(this.tokenStart, wordEnd, 10));
+    } catch (final NumberFormatException | ArithmeticException e) {
+      throw new InvalidTermException("A term starting with 0-9 cannot be parsed as a number at line: " + this.line);
+    }
+  }
+
+  private int integral(long value) {
+    if (value == (int) value) {
+      return numberToken(INTEGER, Numbers.valueOf((int) value));
+    }
+    return numberToken(LONG, Numbers.valueOf(value));
+  }
+
+  /**
+   * @param from Just after 0'
+   */
+  private int characterCode(int from) {
+    final int c = charAt(from);
+    if (isWordChar(c)) {
+      if (endOfWord(from) == from + 1) {
+        this.pos = from + 1;
+        return numberToken(INTEGER, Numbers.valueOf(c));
+      }
+    } else if (c == ' ' || (c != NO_CHAR && isSymbol((char) c))) {
+      this.pos = from + 1;
+      return numberToken(INTEGER, Numbers.valueOf(c));
+    }
+    // Meta, control, octal and hexadecimal escape sequences are not implemented
+    throw new InvalidTermException("Character code constant starting with 0'<X> at line: " + this.line + " cannot be recognized.");
+  }
+
+  /**
+   * @param from Just after the decimal point
+   */
+  private int fraction(int from) {
+    int to = endOfWord(from);
+    int exponent = from;
+    while (exponent < to && this.chars[exponent] != 'E' && this.chars[exponent] != 'e') {
+      exponent++;
+    }
+    final int sign = charAt(to);
+    if (exponent > from && exponent == to - 1 && (sign == '+' || sign == '-') && isWordChar(charAt(to + 1))) {
+      // Signed exponent: all digits on both sides
+      final int exponentEnd = endOfWord(to + 1);
+      if (!allDigits(from, exponent) || !allDigits(to + 1, exponentEnd)) {
+        throw new NumberFormatException();
+      }
+      to = exponentEnd;
+    }
+    this.pos = to;
+    final char last = this.chars[to - 1];
+    if (last == 'F' || last == 'f') {
+      return numberToken(FLOAT, Float.valueOf(new String(this.chars, this.tokenStart, to - 1 - this.tokenStart)));
+    }
+    return numberToken(DOUBLE, Numbers.valueOf(Double.parseDouble(new String(this.chars, this.tokenStart, to - this.tokenStart))));
+  }
+
+  private long parseLong(int from, int to, int radix) {
+    if (from >= to) {
+      throw new NumberFormatException();
+    }
+    long value = 0;
+    for (int i = from; i < to; i++) {
+      final int digit = Character.digit(this.chars[i], radix);
+      if (digit < 0) {
+        throw new NumberFormatException();
+      }
+      value = Math.addExact(Math.multiplyExact(value, radix), digit);
+    }
+    return value;
+  }
+
+  private boolean allDigits(int from, int to) {
+    if (from >= to) {
+      return false;
+    }
+    for (int i = from; i < to; i++) {
+      if (classOf(this.chars[i]) != DIGIT) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String symbol(int from, int to) {
+    return SymbolTable.intern(this.chars, from, to - from);
+  }
+
+  private int endOfWord(int from) {
+    int i = from;
+    while (i < this.end && isWordChar(this.chars[i])) {
+      i++;
+    }
+    return i;
+  }
+
+  private int charAt(int index) {
+    return index < this.end ? this.chars[index] : NO_CHAR;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Character classes
+  // ---------------------------------------------------------------------------
+
+  private static byte classOf(char c) {
+    if (c < 128) {
+      return CLASSES[c];
+    }
+    if (Character.isLetterOrDigit(c)) {
+      return Character.isUpperCase(c) ? UPPER : LOWER;
+    }
+    return OTHER;
+  }
+
+  private static boolean isWordChar(int c) {
+    if (c == NO_CHAR) {
+      return false;
+    }
+    final byte charClass = classOf((char) c);
+    return charClass == LOWER || charClass == UPPER || charClass == DIGIT;
+  }
+
+  private static boolean isLayout(int c) {
+    return c >= 0 && c < 128 && CLASSES[c] == LAYOUT;
+  }
+
+  /**
+   * @return True for the characters of symbol atoms, such as :- or =..
+   */
+  private static boolean isSymbol(char c) {
+    return c == ',' || (c < 128 && CLASSES[c] == SYMBOL);
+  }
+
+  /**
+   * @return true if theText is a plain atom, that needs no quotes
+   */
+  static boolean isAtom(String theText) {
+    if (theText.isEmpty()) {
+      return false;
+    }
+    if (theText.equals(Struct.FUNCTOR_CUT)) {
+      return true;
+    }
+    final char first = theText.charAt(0);
+    if (first < 'a' || first > 'z') {
+      return false;
+    }
+    for (int i = 1; i < theText.length(); i++) {
+      final char c = theText.charAt(i);
+      if (c >= 128 || (CLASSES[c] != LOWER && CLASSES[c] != UPPER && CLASSES[c] != DIGIT)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
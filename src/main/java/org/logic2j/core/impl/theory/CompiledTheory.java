@@ -0,0 +1,413 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.core.impl.theory;
+
+import static org.logic2j.engine.model.Var.strVar;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.logic2j.core.api.model.Clause;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+
+/**
+ * The binary form of a theory, written next to its file with the extension {@link #EXTENSION}, so that next loads
+ * skip scanning and parsing.
+ * After a header, the atoms and the struct shapes (name and arity) are stored once each in tables; then come
+ * the directives, the initialization goal, and the clauses of each predicate in order, as tagged terms referring
+ * to these tables. Vars are numbered within each term.
+ * <p/>
+ * The header holds the format version, and the length and CRC-32 of the source text the theory was compiled from:
+ * a compiled theory is only used for that very source. Clauses are still normalized when read, since the primitives
+ * they refer to belong to the engine loading them.
+ */
+final class CompiledTheory {
+
+  static final String EXTENSION = ".l2jc";
+
+  private static final int MAGIC = 0x4C324A43; // "L2JC"
+
+  /**
+   * To be incremented whenever the layout changes: compiled theories of other versions are ignored.
+   */
+  static final int FORMAT_VERSION = 1;
+
+  private static final int HEADER_LENGTH = 4 + 4 + 8 + 8;
+
+  private static final byte TAG_ATOM = 1;
+  private static final byte TAG_INTEGER = 2;
+  private static final byte TAG_LONG = 3;
+  private static final byte TAG_DOUBLE = 4;
+  private static final byte TAG_FLOAT = 5;
+  private static final byte TAG_ANONYMOUS_VAR = 6;
+  private static final byte TAG_VAR = 7;
+  private static final byte TAG_STRUCT = 8;
+
+  /**
+   * Identifies the source text of a compiled theory.
+   */
+  record Source(long length, long checksum) {
+
+    /**
+     * For content that was not loaded from one text, such as that of an engine snapshot.
+     */
+    static final Source NONE = new Source(0, 0);
+
+    static Source of(File theFile) throws IOException {
+      try (FileChannel channel = FileChannel.open(theFile.toPath(), StandardOpenOption.READ)) {
+        return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+      }
+    }
+
+    static Source of(ByteBuffer theText) {
+      final long length = theText.remaining();
+      final CRC32 crc = new CRC32();
+      crc.update(theText);
+      return new Source(length, crc.getValue());
+    }
+  }
+
+  /**
+   * The terms of a compiled theory, not normalized.
+   *
+   * @param groundFacts Indexes of the clauses that are facts with only atomic arguments, see {@link Clause#groundFact}
+   */
+  record Terms(List<Object> directives, Object initializationGoal, List<Object> clauses, BitSet groundFacts) {
+  }
+
+  private CompiledTheory() {
+    // Static only
+  }
+
+  /**
+   * @param theSource A theory file
+   * @return Where the compiled form of theSource is, next to it
+   */
+  static File compiledFileOf(File theSource) {
+    return new File(theSource.getParentFile(), compiledNameOf(theSource.getName()));
+  }
+
+  /**
+   * @param theSourceName Name, path or URL of a theory
+   * @return The same for its compiled form: {@link TheoryFileWatcher#THEORY_FILE_EXTENSION} replaced by {@link #EXTENSION}
+   */
+  static String compiledNameOf(String theSourceName) {
+    if (theSourceName.endsWith(TheoryFileWatcher.THEORY_FILE_EXTENSION)) {
+      return theSourceName.substring(0, theSourceName.length() - TheoryFileWatcher.THEORY_FILE_EXTENSION.length()) + EXTENSION;
+    }
+    return theSourceName + EXTENSION;
+  }
+
+  /**
+   * @param theContent As loaded from the source, with its directives
+   * @param theSource  The source theContent was loaded from
+   * @param theStream  Not closed
+   * @throws InvalidTermException If theContent holds terms that cannot be compiled, such as Java objects
+   */
+  static void write(TheoryContent theContent, Source theSource, OutputStream theStream) throws IOException {
+    final Encoder encoder = new Encoder();
+    encoder.body.writeInt(theContent.getDirectives().size());
+    for (Object directive : theContent.getDirectives()) {
+      encoder.term(directive);
+    }
+    final Object initializationGoal = theContent.getInitializationGoal();
+    encoder.body.writeBoolean(initializationGoal != null);
+    if (initializationGoal != null) {
+      encoder.term(initializationGoal);
+    }
+    final List<Clause> clauses = new ArrayList<>();
+    for (String key : theContent.predicateKeys()) {
+      clauses.addAll(theContent.family(key));
+    }
+    encoder.body.writeInt(clauses.size());
+    for (Clause clause : clauses) {
+      encoder.body.writeBoolean(isGroundFact(clause.getContent()));
+      encoder.term(clause.getContent());
+    }
+
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(theStream));
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    out.writeLong(theSource.length());
+    out.writeLong(theSource.checksum());
+    out.writeInt(encoder.atomTable.size());
+    for (String atom : encoder.atomTable) {
+      final byte[] utf8 = atom.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(utf8.length);
+      out.write(utf8);
+    }
+    out.writeInt(encoder.shapeNames.size());
+    for (int i = 0; i < encoder.shapeNames.size(); i++) {
+      out.writeInt(encoder.shapeNames.get(i));
+      out.writeInt(encoder.shapeArities.get(i));
+    }
+    encoder.bytes.writeTo(out);
+    out.flush();
+  }
+
+  /**
+   * @param theCompiledFile As written by {@link #write(TheoryContent, Source, OutputStream)}
+   * @param theSource       The source that theCompiledFile is expected to be compiled from
+   * @return The terms, or null when theCompiledFile is of another format version or another source
+   * @throws IOException If theCompiledFile cannot be read or is corrupt
+   */
+  static Terms read(File theCompiledFile, Source theSource) throws IOException {
+    try (FileChannel channel = FileChannel.open(theCompiledFile.toPath(), StandardOpenOption.READ)) {
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), theSource);
+    }
+  }
+
+  /**
+   * @see #read(File, Source)
+   */
+  static Terms read(ByteBuffer theBytes, Source theSource) throws IOException {
+    if (theBytes.remaining() < HEADER_LENGTH || theBytes.getInt() != MAGIC) {
+      throw new IOException("Not a compiled theory");
+    }
+    if (theBytes.getInt() != FORMAT_VERSION || theBytes.getLong() != theSource.length() || theBytes.getLong() != theSource.checksum()) {
+      return null;
+    }
+    try {
+      final String[] atoms = new String[theBytes.getInt()];
+      for (int i = 0; i < atoms.length; i++) {
+        final byte[] utf8 = new byte[theBytes.getInt()];
+        theBytes.get(utf8);
+        atoms[i] = new String(utf8, StandardCharsets.UTF_8).intern();
+      }
+      final int nbShapes = theBytes.getInt();
+      final String[] shapeNames = new String[nbShapes];
+      final int[] shapeArities = new int[nbShapes];
+      for (int i = 0; i < nbShapes; i++) {
+        shapeNames[i] = atoms[theBytes.getInt()];
+        shapeArities[i] = theBytes.getInt();
+      }
+      final Decoder decoder = new Decoder(theBytes, atoms, shapeNames, shapeArities);
+      final int nbDirectives = theBytes.getInt();
+      final List<Object> directives = new ArrayList<>(nbDirectives);
+      for (int i = 0; i < nbDirectives; i++) {
+        directives.add(decoder.term());
+      }
+      final Object initializationGoal = theBytes.get() != 0 ? decoder.term() : null;
+      final int nbClauses = theBytes.getInt();
+      final List<Object> clauses = new ArrayList<>(nbClauses);
+      final BitSet groundFacts = new BitSet(nbClauses);
+      for (int i = 0; i < nbClauses; i++) {
+        groundFacts.set(i, theBytes.get() != 0);
+        clauses.add(decoder.term());
+      }
+      return new Terms(directives, initializationGoal, clauses, groundFacts);
+    } catch (RuntimeException e) {
+      // Buffer underflow, index out of bounds or unknown tag
+      throw new IOException("Corrupt compiled theory: " + e, e);
+    }
+  }
+
+  private static boolean isGroundFact(Object theClauseContent) {
+    if (!(theClauseContent instanceof Struct<?> struct) || struct.getName() == Struct.FUNCTOR_CLAUSE || struct.getArity() == 0) {
+      return false;
+    }
+    for (int i = 0; i < struct.getArity(); i++) {
+      final Object arg = struct.getArg(i);
+      if (!(arg instanceof String || arg instanceof Number)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Collects the atom and shape tables while writing the terms.
+   */
+  private static final class Encoder {
+    private final Map<String, Integer> atoms = new HashMap<>();
+    private final List<String> atomTable = new ArrayList<>();
+    private final Map<String, Map<Integer, Integer>> shapes = new HashMap<>();
+    private final List<Integer> shapeNames = new ArrayList<>();
+    private final List<Integer> shapeArities = new ArrayList<>();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream body = new DataOutputStream(this.bytes);
+    private final Map<Var<?>, Integer> vars = new IdentityHashMap<>();
+
+    /**
+     * Write a whole term, its vars are numbered from 0.
+     */
+    void term(Object theTerm) throws IOException {
+      this.vars.clear();
+      subTerm(theTerm);
+    }
+
+    private void subTerm(Object theTerm) throws IOException {
+      Object term = theTerm;
+      // Iterate along the last argument of structs, lists may be long
+      while (term instanceof Struct<?> struct) {
+        final int arity = struct.getArity();
+        this.body.writeByte(TAG_STRUCT);
+        this.body.writeInt(shape(struct.getName(), arity));
+        if (arity == 0) {
+          return;
+        }
+        for (int i = 0; i < arity - 1; i++) {
+          subTerm(struct.getArg(i));
+        }
+        term = struct.getArg(arity - 1);
+      }
+      if (term instanceof String atom) {
+        this.body.writeByte(TAG_ATOM);
+        this.body.writeInt(atom(atom));
+      } else if (term instanceof Integer value) {
+        this.body.writeByte(TAG_INTEGER);
+        this.body.writeInt(value);
+      } else if (term instanceof Long value) {
+        this.body.writeByte(TAG_LONG);
+        this.body.writeLong(value);
+      } else if (term instanceof Double value) {
+        this.body.writeByte(TAG_DOUBLE);
+        this.body.writeDouble(value);
+      } else if (term instanceof Float value) {
+        this.body.writeByte(TAG_FLOAT);
+        this.body.writeFloat(value);
+      } else if (term == Var.anon()) {
+        this.body.writeByte(TAG_ANONYMOUS_VAR);
+      } else if (term instanceof Var<?> var) {
+        this.body.writeByte(TAG_VAR);
+        final Integer number = this.vars.get(var);
+        if (number != null) {
+          this.body.writeInt(number);
+        } else {
+          // First occurrence: the number is followed by the name
+          this.body.writeInt(this.vars.size());
+          this.body.writeInt(atom(var.getName()));
+          this.vars.put(var, this.vars.size());
+        }
+      } else {
+        throw new InvalidTermException("Cannot compile term \"" + term + "\" of " + term.getClass());
+      }
+    }
+
+    private int atom(String theAtom) {
+      return this.atoms.computeIfAbsent(theAtom, atom -> {
+        this.atomTable.add(atom);
+        return this.atomTable.size() - 1;
+      });
+    }
+
+    private int shape(String theName, int theArity) {
+      final int name = atom(theName);
+      return this.shapes.computeIfAbsent(theName, n -> new HashMap<>()).computeIfAbsent(theArity, arity -> {
+        this.shapeNames.add(name);
+        this.shapeArities.add(arity);
+        return this.shapeNames.size() - 1;
+      });
+    }
+  }
+
+  private static final class Decoder {
+    private final ByteBuffer bytes;
+    private final String[] atoms;
+    private final String[] shapeNames;
+    private final int[] shapeArities;
+    private final List<Var<?>> vars = new ArrayList<>();
+
+    Decoder(ByteBuffer theBytes, String[] theAtoms, String[] theShapeNames, int[] theShapeArities) {
+      this.bytes = theBytes;
+      this.atoms = theAtoms;
+      this.shapeNames = theShapeNames;
+      this.shapeArities = theShapeArities;
+    }
+
+    /**
+     * Read a whole term, with its own vars.
+     */
+    Object term() {
+      this.vars.clear();
+      return subTerm();
+    }
+
+    private Object subTerm() {
+      // Shapes and arguments of the structs whose last argument is still to be read, see Encoder#subTerm
+      List<Integer> pendingShapes = null;
+      List<Object[]> pendingArgs = null;
+      Object term;
+      while (true) {
+        final byte tag = this.bytes.get();
+        if (tag != TAG_STRUCT) {
+          term = atomic(tag);
+          break;
+        }
+        final int shape = this.bytes.getInt();
+        final Object[] args = new Object[this.shapeArities[shape]];
+        if (args.length == 0) {
+          term = new Struct<>(this.shapeNames[shape], args);
+          break;
+        }
+        for (int i = 0; i < args.length - 1; i++) {
+          args[i] = subTerm();
+        }
+        if (pendingShapes == null) {
+          pendingShapes = new ArrayList<>();
+          pendingArgs = new ArrayList<>();
+        }
+        pendingShapes.add(shape);
+        pendingArgs.add(args);
+      }
+      if (pendingShapes != null) {
+        for (int i = pendingShapes.size() - 1; i >= 0; i--) {
+          final Object[] args = pendingArgs.get(i);
+          args[args.length - 1] = term;
+          term = new Struct<>(this.shapeNames[pendingShapes.get(i)], args);
+        }
+      }
+      return term;
+    }
+
+    private Object atomic(byte theTag) {
+      return switch (theTag) {
+        case TAG_ATOM -> this.atoms[this.bytes.getInt()];
+        case TAG_INTEGER -> Integer.valueOf(this.bytes.getInt());
+        case TAG_LONG -> Long.valueOf(this.bytes.getLong());
+        case TAG_DOUBLE -> Double.valueOf(this.bytes.getDouble());
+        case TAG_FLOAT -> Float.valueOf(this.bytes.getFloat());
+        case TAG_ANONYMOUS_VAR -> Var.anon();
+        case TAG_VAR -> {
+          final int number = this.bytes.getInt();
+          if (number == this.vars.size()) {
+            this.vars.add(strVar(this.atoms[this.bytes.getInt()]));
+          }
+          yield this.vars.get(number);
+        }
+        default -> throw new IllegalStateException("Unknown tag " + theTag);
+      };
+    }
+  }
+}
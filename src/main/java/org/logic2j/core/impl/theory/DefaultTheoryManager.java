@@ -19,24 +19,40 @@ package org.logic2j.core.impl.theory;
 import static org.logic2j.engine.model.TermApiLocator.termApiExt;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.logic2j.core.api.ClauseProvider;
 import org.logic2j.core.api.DataFactProvider;
 import org.logic2j.core.api.model.Clause;
 import org.logic2j.core.impl.PrologImplementation;
 import org.logic2j.core.impl.Solver;
 import org.logic2j.core.impl.io.tuprolog.parse.Parser;
+import org.logic2j.core.impl.io.tuprolog.parse.SentenceSplitter;
 import org.logic2j.engine.exception.InvalidTermException;
 import org.logic2j.engine.exception.PrologNonSpecificException;
 import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
 import org.logic2j.engine.solver.listener.CountingSolutionListener;
 import org.logic2j.engine.unify.UnifyContext;
 import org.logic2j.engine.util.TypeUtils;
@@ -52,10 +68,22 @@ public class DefaultTheoryManager implements TheoryManager {
 
   public static final String INITIALIZATION_PREDICATE = "initialization";
 
+  /**
+   * Texts larger than this number of chars are split into chunks parsed concurrently, see {@link #loadInParallel(List)}.
+   */
+  private static final int CHUNK_SIZE = 256 * 1024;
+
   private final PrologImplementation prolog;
 
   private final TheoryContent wholeContent = new TheoryContent();
 
+  private final DynamicDatabase dynamicDatabase = new DynamicDatabase();
+
+  /**
+   * The content added last from each source, see {@link TheoryContent#getSource()}.
+   */
+  private final Map<String, TheoryContent> contentBySource = new HashMap<>();
+
   private List<ClauseProvider> clauseProviders = new ArrayList<>();
 
   private List<DataFactProvider> dataFactProviders = new ArrayList<>();
@@ -63,6 +91,7 @@ public class DefaultTheoryManager implements TheoryManager {
   public DefaultTheoryManager(PrologImplementation theProlog) {
     this.prolog = theProlog;
     this.clauseProviders.add(this);
+    this.clauseProviders.add(this.dynamicDatabase);
   }
 
   public TheoryContent load(CharSequence theTheoryText) {
@@ -77,15 +106,214 @@ public class DefaultTheoryManager implements TheoryManager {
 
   @Override
   public TheoryContent load(File theFile) throws IOException {
-    try (final FileReader reader = new FileReader(theFile)) {
-      return load(reader);
+    final TheoryContent compiled = loadCompiled(theFile);
+    if (compiled != null) {
+      return compiled;
+    }
+    return parse(theFile);
+  }
+
+  @Override
+  public TheoryContent compile(File theFile) throws IOException {
+    final TheoryContent compiled = loadCompiled(theFile);
+    if (compiled != null) {
+      return compiled;
+    }
+    // Identify the source before parsing it, a change in between must not go unnoticed
+    final CompiledTheory.Source source = CompiledTheory.Source.of(theFile);
+    final TheoryContent content = parse(theFile);
+    final File compiledFile = CompiledTheory.compiledFileOf(theFile);
+    final Path temporary = Files.createTempFile(theFile.getAbsoluteFile().getParentFile().toPath(), theFile.getName(), ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(temporary)) {
+        CompiledTheory.write(content, source, out);
+      }
+      // Readers see either the previous compiled file or the new one, entirely
+      Files.move(temporary, compiledFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      logger.debug("Compiled {} into {}", theFile, compiledFile);
+    } catch (final InvalidTermException e) {
+      logger.warn("Theory file \"{}\" cannot be compiled, it will be parsed at every load: {}", theFile, e.getMessage());
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+    return content;
+  }
+
+  private TheoryContent parse(File theFile) throws IOException {
+    return parse(theFile, null);
+  }
+
+  /**
+   * @param theDeferredDirectives When not null, directives are collected there instead of being executed
+   */
+  private TheoryContent parse(File theFile, List<Object> theDeferredDirectives) throws IOException {
+    final CharBuffer text = TheoryFileDecoder.decode(theFile);
+    try {
+      final TheoryContent content = loadAllClauses(new Parser(this.prolog.getOperatorManager(), this.prolog.getTermAdapter(), text, 1),
+              theDeferredDirectives);
+      content.setSource(sourceOf(theFile));
+      return content;
     } catch (final InvalidTermException e) {
       throw new PrologNonSpecificException("Theory could not be loaded from file \"" + theFile + "\" into " + this.prolog + ": " + e, e);
+    } finally {
+      TheoryFileDecoder.release(text);
+    }
+  }
+
+  /**
+   * @return The content of the compiled form of theFile, or null when there is none up to date
+   */
+  private TheoryContent loadCompiled(File theFile) {
+    final CompiledTheory.Terms terms = readCompiled(theFile);
+    if (terms == null) {
+      return null;
     }
+    final TheoryContent content = toContent(terms, theFile.toString());
+    content.setSource(sourceOf(theFile));
+    return content;
+  }
+
+  /**
+   * @return The terms of the compiled form of theFile, or null when there is none, or when it is older than theFile
+   * or was compiled from another version of it
+   */
+  private CompiledTheory.Terms readCompiled(File theFile) {
+    final File compiledFile = CompiledTheory.compiledFileOf(theFile);
+    if (!compiledFile.isFile() || compiledFile.lastModified() < theFile.lastModified()) {
+      return null;
+    }
+    try {
+      final CompiledTheory.Terms terms = CompiledTheory.read(compiledFile, CompiledTheory.Source.of(theFile));
+      if (terms == null) {
+        logger.info("Ignoring {}, compiled from another version of {} or by another version of logic2j", compiledFile, theFile);
+      }
+      return terms;
+    } catch (final IOException e) {
+      logger.warn("Ignoring compiled theory {}: {}", compiledFile, e.toString());
+      return null;
+    }
+  }
+
+  /**
+   * @return The compiled form of theTheory, when packaged next to it and compiled from the same text, otherwise null
+   */
+  private TheoryContent loadCompiled(URL theTheory, String theSource) {
+    final byte[] compiled;
+    try (InputStream in = new URL(CompiledTheory.compiledNameOf(theTheory.toString())).openStream()) {
+      compiled = in.readAllBytes();
+    } catch (final IOException e) {
+      // No compiled form, the general case
+      return null;
+    }
+    try (InputStream in = theTheory.openStream()) {
+      final CompiledTheory.Terms terms = CompiledTheory.read(ByteBuffer.wrap(compiled), CompiledTheory.Source.of(ByteBuffer.wrap(in.readAllBytes())));
+      if (terms == null) {
+        logger.info("Ignoring compiled form of {}, compiled from another version of it or by another version of logic2j", theTheory);
+        return null;
+      }
+      final TheoryContent content = toContent(terms, theSource);
+      content.setSource(theSource);
+      return content;
+    } catch (final IOException e) {
+      logger.warn("Ignoring compiled form of {}: {}", theTheory, e.toString());
+      return null;
+    }
+  }
+
+  /**
+   * Run the directives of a compiled theory, then normalize its clauses: directives may load libraries
+   * whose primitives the clauses refer to.
+   */
+  private TheoryContent toContent(CompiledTheory.Terms theTerms, String theSource) {
+    final TheoryContent content = new TheoryContent();
+    for (Object directive : theTerms.directives()) {
+      content.addDirective(directive);
+      executeDirective(directive);
+    }
+    content.setInitializationGoal(theTerms.initializationGoal());
+    try {
+      final List<Object> clauses = theTerms.clauses();
+      for (int i = 0; i < clauses.size(); i++) {
+        final Object clauseTerm = clauses.get(i);
+        content.add(theTerms.groundFacts().get(i) ? Clause.groundFact(this.prolog, (Struct<?>) clauseTerm) : new Clause(this.prolog, clauseTerm));
+      }
+    } catch (final InvalidTermException e) {
+      throw new PrologNonSpecificException("Compiled theory of \"" + theSource + "\" could not be loaded into " + this.prolog + ": " + e, e);
+    }
+    return content;
+  }
+
+  @Override
+  public List<TheoryContent> loadInParallel(List<File> theFiles) throws IOException {
+    // All files are read and their chunks submitted before waiting for any
+    final List<List<CompletableFuture<TheoryContent>>> parsing = new ArrayList<>(theFiles.size());
+    final List<CharBuffer> texts = new ArrayList<>(theFiles.size());
+    final List<CompiledTheory.Terms> compiled = new ArrayList<>(theFiles.size());
+    try {
+      for (File file : theFiles) {
+        final CompiledTheory.Terms terms = readCompiled(file);
+        compiled.add(terms);
+        if (terms != null) {
+          // Nothing to parse
+          parsing.add(null);
+          texts.add(null);
+          continue;
+        }
+        final CharBuffer text = TheoryFileDecoder.decode(file);
+        texts.add(text);
+        // Texts with directives are not split, they are parsed sequentially when merging
+        final List<SentenceSplitter.Chunk> chunks = SentenceSplitter.split(text, CHUNK_SIZE);
+        parsing.add(chunks == null ? null : chunks.stream().map(chunk -> CompletableFuture.supplyAsync(() -> parseChunk(chunk))).toList());
+      }
+      // Wait until all parsing is over before running any directive: directives may change operators
+      CompletableFuture.allOf(parsing.stream().filter(Objects::nonNull).flatMap(List::stream).toArray(CompletableFuture[]::new))
+              .exceptionally(e -> null).join();
+      // Merge in order, running directives
+      final List<TheoryContent> contents = new ArrayList<>(theFiles.size());
+      for (int i = 0; i < theFiles.size(); i++) {
+        final File file = theFiles.get(i);
+        final TheoryContent content;
+        try {
+          if (compiled.get(i) != null) {
+            content = toContent(compiled.get(i), file.toString());
+          } else if (parsing.get(i) == null) {
+            content = loadAllClauses(new Parser(this.prolog.getOperatorManager(), this.prolog.getTermAdapter(), texts.get(i), 1));
+          } else {
+            content = new TheoryContent();
+            for (CompletableFuture<TheoryContent> chunk : parsing.get(i)) {
+              content.addAll(chunk.join());
+            }
+          }
+        } catch (final CompletionException e) {
+          throw new PrologNonSpecificException("Theory could not be loaded from file \"" + file + "\" into " + this.prolog + ": " + e.getCause(), e.getCause());
+        } catch (final InvalidTermException e) {
+          throw new PrologNonSpecificException("Theory could not be loaded from file \"" + file + "\" into " + this.prolog + ": " + e, e);
+        }
+        content.setSource(sourceOf(file));
+        contents.add(content);
+      }
+      return contents;
+    } finally {
+      // Parsing is over, nothing refers to the chars decoded
+      texts.stream().filter(Objects::nonNull).forEach(TheoryFileDecoder::release);
+    }
+  }
+
+  /**
+   * @param theChunk Free of directives, see {@link SentenceSplitter#split(CharBuffer, int)}: none would be executed
+   * concurrently
+   */
+  private TheoryContent parseChunk(SentenceSplitter.Chunk theChunk) {
+    final Parser parser = new Parser(this.prolog.getOperatorManager(), this.prolog.getTermAdapter(), theChunk.text(), theChunk.firstLine());
+    return loadAllClauses(parser);
   }
 
   @Override
   public TheoryContent load(URL theTheory) {
+    final TheoryContent compiled = loadCompiled(theTheory, theTheory.toString());
+    if (compiled != null) {
+      return compiled;
+    }
     Object text;
     try {
       text = theTheory.getContent();
@@ -93,9 +321,10 @@ public class DefaultTheoryManager implements TheoryManager {
       throw new InvalidTermException("Could not load theory from resource " + theTheory + ": " + e);
     }
     if (text instanceof InputStream) {
-      // FIXME there will be encoding issues when using InputStream instead of Reader
-      final Reader reader = new InputStreamReader((InputStream) text);
-      return load(reader);
+      final Reader reader = new InputStreamReader((InputStream) text, StandardCharsets.UTF_8);
+      final TheoryContent content = load(reader);
+      content.setSource(theTheory.toString());
+      return content;
     }
     throw new InvalidTermException("Could not load theory from resource " + theTheory + ": could not getContent()");
   }
@@ -118,10 +347,15 @@ public class DefaultTheoryManager implements TheoryManager {
       if (url == null) {
         throw new PrologNonSpecificException("No content at resource path: " + theClassloadableResource);
       }
+      final TheoryContent compiled = loadCompiled(url, theClassloadableResource);
+      if (compiled != null) {
+        return compiled;
+      }
       try (InputStream in = TypeUtils.safeCastNotNull("obtaining rules content from URL", url.getContent(), InputStream.class)) {
-        // FIXME there will be encoding issues when using InputStream instead of Reader
-        final Reader reader = new InputStreamReader(in);
-        return load(reader);
+        final Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        final TheoryContent content = load(reader);
+        content.setSource(theClassloadableResource);
+        return content;
       }
     } catch (final IOException e) {
       throw new InvalidTermException("Could not load theory from resource " + theClassloadableResource + ": " + e);
@@ -165,8 +399,172 @@ public class DefaultTheoryManager implements TheoryManager {
    * @param theContent to add
    */
   @Override
-  public void addTheory(TheoryContent theContent) {
+  public synchronized void addTheory(TheoryContent theContent) {
     this.wholeContent.addAll(theContent);
+    if (theContent.getSource() != null) {
+      this.contentBySource.put(theContent.getSource(), theContent);
+    }
+    executeInitializationGoal();
+  }
+
+  /**
+   * Directives are not executed again when they are the same as when theFile was previously loaded: the file is
+   * parsed with its directives deferred, and only if they changed is it loaded again, executing them all.
+   */
+  @Override
+  public Set<String> reload(File theFile) throws IOException {
+    final TheoryContent previous = previousContent(sourceOf(theFile));
+    if (previous != null) {
+      final List<Object> directives = new ArrayList<>();
+      final TheoryContent content = parse(theFile, directives);
+      if (directives.equals(previous.getDirectives())) {
+        directives.forEach(content::addDirective);
+        return replaceTheory(content);
+      }
+      logger.info("Directives of {} changed, they are executed again", theFile);
+    }
+    return replaceTheory(load(theFile));
+  }
+
+  private synchronized TheoryContent previousContent(String theSource) {
+    return this.contentBySource.get(theSource);
+  }
+
+  /**
+   * @return The source of the content loaded from theFile, the same however theFile is spelled
+   */
+  private static String sourceOf(File theFile) {
+    return theFile.toPath().toAbsolutePath().normalize().toString();
+  }
+
+  /**
+   * Add theContent, or replace the content previously added from the same source.
+   * Only predicates whose clauses from that source changed are replaced, all at once, in the whole content.
+   * Clauses of these predicates coming from other sources are kept, in place. Unchanged predicates keep
+   * their Clause instances, hence the indexes and caches derived from them.
+   * The initialization goal of theContent is executed again only if it, or the directives, changed; those of other
+   * sources are left alone.
+   *
+   * @param theContent With its {@link TheoryContent#getSource()}
+   * @return Keys of the predicates that changed
+   */
+  public synchronized Set<String> replaceTheory(TheoryContent theContent) {
+    final TheoryContent previous = theContent.getSource() != null ? this.contentBySource.get(theContent.getSource()) : null;
+    if (previous == null) {
+      addTheory(theContent);
+      return theContent.predicateKeys();
+    }
+    final Set<String> predicateKeys = new HashSet<>(previous.predicateKeys());
+    predicateKeys.addAll(theContent.predicateKeys());
+    final Map<String, List<Clause>> changed = new HashMap<>();
+    final Map<String, List<Clause>> unchanged = new HashMap<>();
+    for (final String key : predicateKeys) {
+      final List<Clause> oldFamily = Objects.requireNonNullElse(previous.family(key), Collections.emptyList());
+      final List<Clause> newFamily = Objects.requireNonNullElse(theContent.family(key), Collections.emptyList());
+      if (sameClauses(oldFamily, newFamily)) {
+        unchanged.put(key, oldFamily);
+      } else {
+        changed.put(key, splice(this.wholeContent.family(key), oldFamily, newFamily));
+      }
+    }
+    this.wholeContent.replaceFamilies(changed);
+    // The content now registered for the source must hold the instances that are in the whole content
+    theContent.replaceFamilies(unchanged);
+    this.contentBySource.put(theContent.getSource(), theContent);
+    if (!Objects.equals(previous.getInitializationGoal(), theContent.getInitializationGoal())
+            || !previous.getDirectives().equals(theContent.getDirectives())) {
+      if (theContent.getInitializationGoal() != null) {
+        executeDirective(theContent.getInitializationGoal());
+      }
+    }
+    logger.info("Reloaded {}: {} predicate(s) changed", theContent.getSource(), changed.size());
+    return changed.keySet();
+  }
+
+  /**
+   * Write all clauses, those of theories and those asserted, for {@link org.logic2j.core.impl.PrologSnapshot}.
+   *
+   * @param theStream Not closed
+   * @throws IOException
+   */
+  public synchronized void writeSnapshot(OutputStream theStream) throws IOException {
+    CompiledTheory.write(this.wholeContent, CompiledTheory.Source.NONE, theStream);
+    final TheoryContent asserted = new TheoryContent();
+    for (DynamicClause clause : this.dynamicDatabase.candidates(Var.anon(), null)) {
+      asserted.add(clause.getClause());
+    }
+    CompiledTheory.write(asserted, CompiledTheory.Source.NONE, theStream);
+  }
+
+  /**
+   * Replace all clauses, those of theories and those asserted, by the ones written by {@link #writeSnapshot(OutputStream)}.
+   * Clauses restored are no longer associated to their source, see {@link #replaceTheory(TheoryContent)}.
+   *
+   * @param theBytes Positioned where the snapshot was written, left after it
+   * @throws IOException If theBytes are not a snapshot of this version
+   */
+  public synchronized void restoreSnapshot(ByteBuffer theBytes) throws IOException {
+    final CompiledTheory.Terms loaded = CompiledTheory.read(theBytes, CompiledTheory.Source.NONE);
+    final CompiledTheory.Terms asserted = loaded != null ? CompiledTheory.read(theBytes, CompiledTheory.Source.NONE) : null;
+    if (asserted == null) {
+      throw new IOException("Snapshot written by another version of logic2j");
+    }
+    final TheoryContent content = toContent(loaded, "snapshot");
+    final Map<String, List<Clause>> families = new HashMap<>();
+    for (String key : this.wholeContent.predicateKeys()) {
+      families.put(key, Collections.emptyList());
+    }
+    for (String key : content.predicateKeys()) {
+      families.put(key, content.family(key));
+    }
+    this.wholeContent.replaceFamilies(families);
+    this.contentBySource.clear();
+    for (DynamicClause clause : this.dynamicDatabase.candidates(Var.anon(), null)) {
+      this.dynamicDatabase.retract(clause);
+    }
+    final TheoryContent dynamicContent = toContent(asserted, "snapshot");
+    for (String key : dynamicContent.predicateKeys()) {
+      dynamicContent.family(key).forEach(this.dynamicDatabase::assertz);
+    }
+  }
+
+  private static boolean sameClauses(List<Clause> theFamily1, List<Clause> theFamily2) {
+    if (theFamily1.size() != theFamily2.size()) {
+      return false;
+    }
+    for (int i = 0; i < theFamily1.size(); i++) {
+      if (!theFamily1.get(i).hasSameContent(theFamily2.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return theWholeFamily where clauses of theOldFamily are replaced by theNewFamily, at the position of the first old one
+   */
+  private static List<Clause> splice(List<Clause> theWholeFamily, List<Clause> theOldFamily, List<Clause> theNewFamily) {
+    final Set<Clause> old = Collections.newSetFromMap(new IdentityHashMap<>());
+    old.addAll(theOldFamily);
+    final List<Clause> result = new ArrayList<>();
+    boolean inserted = false;
+    if (theWholeFamily != null) {
+      for (final Clause clause : theWholeFamily) {
+        if (!old.contains(clause)) {
+          result.add(clause);
+        } else if (!inserted) {
+          result.addAll(theNewFamily);
+          inserted = true;
+        }
+      }
+    }
+    if (!inserted) {
+      result.addAll(theNewFamily);
+    }
+    return result;
+  }
+
+  private void executeInitializationGoal() {
     final Object initializationGoal = this.wholeContent.getInitializationGoal();
     if (initializationGoal != null) {
       executeDirective(initializationGoal);
@@ -174,14 +572,43 @@ public class DefaultTheoryManager implements TheoryManager {
     }
   }
 
+  /**
+   * @return All clauses loaded so far
+   */
+  public TheoryContent getWholeContent() {
+    return this.wholeContent;
+  }
+
+  @Override
+  public DynamicDatabase getDynamicDatabase() {
+    return this.dynamicDatabase;
+  }
+
   public void setDataFactProviders(List<DataFactProvider> theDataFactProviders) {
     this.dataFactProviders = theDataFactProviders;
   }
 
   private TheoryContent loadAllClauses(Parser theParser) {
+    return loadAllClauses(theParser, null);
+  }
+
+  /**
+   * @param theDeferredDirectives When not null, directives are collected there instead of being executed
+   */
+  private TheoryContent loadAllClauses(Parser theParser, List<Object> theDeferredDirectives) {
     final TheoryContent content = new TheoryContent();
     // Need to split parsing into terms and loading Clauses into Content separately, because of import/1
-    for (Object clauseTerm = theParser.nextTerm(true); clauseTerm != null; clauseTerm = theParser.nextTerm(true)) {
+    while (true) {
+      // Fast path for the bulk of fact files
+      final Struct<?> fact = theParser.nextGroundFact();
+      if (fact != null) {
+        content.add(Clause.groundFact(this.prolog, fact));
+        continue;
+      }
+      Object clauseTerm = theParser.nextTerm(true);
+      if (clauseTerm == null) {
+        break;
+      }
       logger.debug("Loading clause: {}", clauseTerm);
       if (clauseTerm instanceof CharSequence) {
         // Very rare case of facts being just a string (see "cut4" in our tests)
@@ -197,7 +624,10 @@ public class DefaultTheoryManager implements TheoryManager {
                 && ((Struct<?>) directiveGoal).getArity() == 1) {
           final Object goal = ((Struct<?>) directiveGoal).getArg(0);
           content.setInitializationGoal(goal);
+        } else if (theDeferredDirectives != null) {
+          theDeferredDirectives.add(directiveGoal);
         } else {
+          content.addDirective(directiveGoal);
           executeDirective(directiveGoal);
         }
       } else {
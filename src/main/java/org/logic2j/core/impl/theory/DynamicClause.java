@@ -0,0 +1,108 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl.theory;
+
+import org.logic2j.core.api.model.Clause;
+
+/**
+ * A {@link Clause} of the {@link DynamicDatabase}, stamped with the generation at which it was asserted,
+ * and the one at which it was retracted, and by which threads. It is visible to readers of generations in between.
+ */
+public final class DynamicClause {
+
+  /**
+   * Value of {@link #getDied()} while the clause is not retracted.
+   */
+  public static final long ALIVE = Long.MAX_VALUE;
+
+  private final Clause clause;
+
+  /**
+   * First-argument key, see {@link FirstArgumentIndex}, null if not indexable.
+   */
+  final Object key;
+
+  /**
+   * Position within its predicate: increasing for assertz, decreasing for asserta.
+   */
+  final long order;
+
+  private final long born;
+
+  private final long bornBy;
+
+  private long diedBy;
+
+  private volatile long died = ALIVE;
+
+  DynamicClause(Clause theClause, Object theKey, long theOrder, long theBorn, long theBornBy) {
+    this.clause = theClause;
+    this.key = theKey;
+    this.order = theOrder;
+    this.born = theBorn;
+    this.bornBy = theBornBy;
+  }
+
+  /**
+   * @param theGeneration
+   * @return true if this clause was asserted at or before theGeneration, and not yet retracted at theGeneration
+   */
+  public boolean isVisibleAt(long theGeneration) {
+    return this.born <= theGeneration && theGeneration < this.died;
+  }
+
+  /**
+   * Visibility to a solve that pinned a generation, and that must see its own modifications made since.
+   *
+   * @param thePinned  The generation pinned by the reader
+   * @param theCurrent The generation when the reader started iterating, not lower than thePinned
+   * @param theReader  Thread id of the reader
+   * @return true if visible at thePinned generation, with modifications made by theReader up to theCurrent applied
+   */
+  public boolean isVisibleTo(long thePinned, long theCurrent, long theReader) {
+    if (!(this.born <= thePinned || (this.born <= theCurrent && this.bornBy == theReader))) {
+      return false;
+    }
+    final long retracted = this.died; // Volatile read, publishes diedBy
+    return !(retracted <= thePinned || (retracted <= theCurrent && this.diedBy == theReader));
+  }
+
+  public Clause getClause() {
+    return this.clause;
+  }
+
+  public long getBorn() {
+    return this.born;
+  }
+
+  public long getDied() {
+    return this.died;
+  }
+
+  /**
+   * Must be called under the write lock of the {@link DynamicDatabase}.
+   */
+  void setDied(long theGeneration, long theDiedBy) {
+    this.diedBy = theDiedBy;
+    this.died = theGeneration;
+  }
+
+  @Override
+  public String toString() {
+    return this.clause + "[" + this.born + ".." + (this.died == ALIVE ? "" : this.died) + "]";
+  }
+}
@@ -0,0 +1,412 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl.theory;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+import org.logic2j.core.api.ClauseProvider;
+import org.logic2j.core.api.model.Clause;
+import org.logic2j.engine.exception.PrologNonSpecificException;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * The clauses added and removed while solving, by assert/1, asserta/1, assertz/1, retract/1 and retractall/1.
+ * Clauses are grouped per predicate and indexed on their first argument (see {@link FirstArgumentIndex}).
+ * <p/>
+ * This is a multi-version store: every assertion or retraction commits a new generation, and clauses are stamped
+ * with the generations at which they were asserted and retracted (see {@link DynamicClause}).
+ * <ul>
+ * <li>A solve pins the generation committed when it starts ({@link #pin()}, done by the {@link org.logic2j.core.impl.Solver}):
+ * it sees the database as of that generation, plus its own modifications, whatever other threads commit meanwhile.</li>
+ * <li>Each call of {@link #listMatchingClauses(Object, UnifyContext)} further ignores modifications made after it,
+ * so that a goal iterating over a predicate is not affected by its own assertions or retractions (the ISO
+ * "logical update view").</li>
+ * <li>Readers never lock and never copy. Writers are serialized among themselves only.</li>
+ * <li>Retracted clauses are purged in the background once numerous enough, but only those retracted at or before
+ * the oldest generation still pinned.</li>
+ * <li>While a solve hands a solution over to its caller, its pin is parked ({@link #park()}). A pin parked for longer
+ * than {@link #setParkedPinTimeoutMillis(long)} is released, so that a caller that never asks for more solutions cannot
+ * hold back compaction forever; should that solve resume, it fails. Callers iterating over solutions should use a
+ * {@link org.logic2j.core.impl.SolutionIterator}, which ends its solve when closed.</li>
+ * </ul>
+ */
+public class DynamicDatabase implements ClauseProvider {
+  public static final long DEFAULT_PARKED_PIN_TIMEOUT_MILLIS = 60_000;
+
+  /**
+   * Compaction of all databases is done on a single daemon thread, it's cheap and infrequent.
+   */
+  private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+    final Thread thread = new Thread(runnable, "logic2j-dynamic-compactor");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * The last committed generation: all clauses stamped with it or before are published.
+   */
+  private final AtomicLong committed = new AtomicLong();
+
+  private final Map<String, DynamicFamily> families = new ConcurrentHashMap<>();
+
+  /**
+   * Serializes writers, and compaction.
+   */
+  private final Object writeLock = new Object();
+
+  /**
+   * Number of solves that pinned each generation. Guarded by itself.
+   */
+  private final TreeMap<Long, Integer> pinned = new TreeMap<>();
+
+  /**
+   * The pin of each thread solving, as counted in {@link #pinned}. Not a ThreadLocal: pins parked for too long are
+   * removed by the thread that compacts. Modified under the lock of {@link #pinned}.
+   */
+  private final Map<Thread, Pin> pinOfThread = new ConcurrentHashMap<>();
+
+  private volatile long parkedPinTimeoutMillis = DEFAULT_PARKED_PIN_TIMEOUT_MILLIS;
+
+  private static final class Pin {
+    static final long NOT_PARKED = Long.MIN_VALUE;
+
+    final long generation;
+    int depth = 1;
+
+    // Guarded by the pin itself, written by the owning thread only
+    long parkedSince = NOT_PARKED;
+    boolean released = false;
+
+    Pin(long theGeneration) {
+      this.generation = theGeneration;
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Writers
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Add a clause after all clauses of its predicate.
+   *
+   * @param theClause
+   * @return The clause as stored
+   */
+  public DynamicClause assertz(Clause theClause) {
+    return add(theClause, true);
+  }
+
+  /**
+   * Add a clause before all clauses of its predicate.
+   *
+   * @param theClause
+   * @return The clause as stored
+   */
+  public DynamicClause asserta(Clause theClause) {
+    return add(theClause, false);
+  }
+
+  private DynamicClause add(Clause theClause, boolean atEnd) {
+    final DynamicFamily family = family(theClause.getPredicateKey());
+    synchronized (this.writeLock) {
+      final long generation = this.committed.get() + 1;
+      final DynamicClause added = family.add(theClause, atEnd, generation, Thread.currentThread().threadId());
+      // Published: now readers may pin the new generation
+      this.committed.set(generation);
+      return added;
+    }
+  }
+
+  /**
+   * @param theClause As returned by {@link #candidates(Object, UnifyContext)}
+   * @return true if retracted, false if it was already retracted
+   */
+  public boolean retract(DynamicClause theClause) {
+    final DynamicFamily family = family(theClause.getClause().getPredicateKey());
+    synchronized (this.writeLock) {
+      final long generation = this.committed.get() + 1;
+      if (!family.retract(theClause, generation, Thread.currentThread().threadId())) {
+        return false;
+      }
+      this.committed.set(generation);
+      if (family.needsCompaction()) {
+        COMPACTOR.execute(() -> compact(family));
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Purge now rather than in the background the retracted clauses that no solve can see anymore.
+   */
+  public void compact() {
+    for (DynamicFamily family : this.families.values()) {
+      compact(family);
+    }
+  }
+
+  private void compact(DynamicFamily theFamily) {
+    synchronized (this.writeLock) {
+      theFamily.compact(oldestVisibleGeneration());
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Pinning generations
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Make the current thread see the database as of the last committed generation, until the matching {@link #unpin()}.
+   * Pins are reentrant: nested solves keep the generation of the outermost one.
+   *
+   * @return true for the outermost pin of the current thread
+   */
+  public boolean pin() {
+    final Thread thread = Thread.currentThread();
+    final Pin existing = this.pinOfThread.get(thread);
+    if (existing != null) {
+      if (existing.parkedSince != Pin.NOT_PARKED) {
+        // Solving again while handling a solution: the generation is needed again
+        resume(existing);
+      }
+      existing.depth++;
+      return false;
+    }
+    synchronized (this.pinned) {
+      // Reading the generation and registering it atomically, so that compaction cannot purge what we may see
+      final long generation = this.committed.get();
+      this.pinned.merge(generation, 1, Integer::sum);
+      this.pinOfThread.put(thread, new Pin(generation));
+    }
+    return true;
+  }
+
+  /**
+   * Release the pin of the current thread. When it was the oldest pinned generation, clauses only it could still see
+   * get purged in the background.
+   */
+  public void unpin() {
+    final Thread thread = Thread.currentThread();
+    final Pin pin = this.pinOfThread.get(thread);
+    if (pin == null || --pin.depth > 0) {
+      return;
+    }
+    final boolean wasOldest;
+    synchronized (this.pinned) {
+      if (!this.pinOfThread.remove(thread, pin)) {
+        // Released while parked
+        return;
+      }
+      wasOldest = this.pinned.firstKey() == pin.generation;
+      release(pin);
+    }
+    if (wasOldest) {
+      for (DynamicFamily family : this.families.values()) {
+        if (family.hasRetainedTombstones()) {
+          COMPACTOR.execute(() -> compact(family));
+        }
+      }
+    }
+  }
+
+  /**
+   * Mark the pin of the current thread as idle, until {@link #unpark()}: the solve is not reading the database, it is
+   * waiting for its caller to take a solution. When parked for too long, the pin is released.
+   */
+  public void park() {
+    final Pin pin = this.pinOfThread.get(Thread.currentThread());
+    if (pin != null) {
+      synchronized (pin) {
+        pin.parkedSince = System.nanoTime();
+      }
+    }
+  }
+
+  /**
+   * The solve of the current thread reads the database again.
+   *
+   * @throws PrologNonSpecificException If its pin was released while parked: the generation it was solving against
+   *                                    may have been purged
+   */
+  public void unpark() {
+    final Pin pin = this.pinOfThread.get(Thread.currentThread());
+    if (pin == null) {
+      throw releasedWhileParked();
+    }
+    resume(pin);
+  }
+
+  private void resume(Pin pin) {
+    synchronized (pin) {
+      pin.parkedSince = Pin.NOT_PARKED;
+      if (pin.released) {
+        throw releasedWhileParked();
+      }
+    }
+  }
+
+  private PrologNonSpecificException releasedWhileParked() {
+    return new PrologNonSpecificException("Solve resumed after waiting more than " + this.parkedPinTimeoutMillis
+            + " ms for its caller: the dynamic database it was solving against was released");
+  }
+
+  /**
+   * @param theTimeoutMillis How long a parked pin holds back compaction, see {@link #park()}
+   */
+  public void setParkedPinTimeoutMillis(long theTimeoutMillis) {
+    this.parkedPinTimeoutMillis = theTimeoutMillis;
+  }
+
+  /**
+   * Release the pins parked for longer than the timeout. Under the lock of {@link #pinned}.
+   */
+  private void releaseParkedPins() {
+    final long timeout = TimeUnit.MILLISECONDS.toNanos(this.parkedPinTimeoutMillis);
+    final long now = System.nanoTime();
+    for (final Iterator<Pin> iter = this.pinOfThread.values().iterator(); iter.hasNext(); ) {
+      final Pin pin = iter.next();
+      synchronized (pin) {
+        if (pin.parkedSince == Pin.NOT_PARKED || now - pin.parkedSince < timeout) {
+          continue;
+        }
+        pin.released = true;
+      }
+      iter.remove();
+      release(pin);
+    }
+  }
+
+  /**
+   * Under the lock of {@link #pinned}.
+   */
+  private void release(Pin pin) {
+    this.pinned.merge(pin.generation, -1, (count, minusOne) -> count + minusOne == 0 ? null : count + minusOne);
+  }
+
+  /**
+   * @return The number of threads solving with a pin
+   */
+  int pinCount() {
+    return this.pinOfThread.size();
+  }
+
+  /**
+   * @return The oldest generation a reader may use: the oldest pinned one, or the last committed one
+   */
+  private long oldestVisibleGeneration() {
+    synchronized (this.pinned) {
+      releaseParkedPins();
+      return this.pinned.isEmpty() ? this.committed.get() : this.pinned.firstKey();
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Readers
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Like {@link #listMatchingClauses(Object, UnifyContext)} but returns the stored clauses, to retract them.
+   *
+   * @param theGoal     A goal or a clause head, or a free var to obtain all clauses
+   * @param currentVars
+   * @return Clauses that may match theGoal, visible to the current thread now, in order
+   */
+  public Iterable<DynamicClause> candidates(Object theGoal, UnifyContext currentVars) {
+    final long current = this.committed.get();
+    final Pin pin = this.pinOfThread.get(Thread.currentThread());
+    final long pinnedGeneration = pin != null ? pin.generation : current;
+    final long reader = Thread.currentThread().threadId();
+    if (theGoal instanceof Var<?>) {
+      final List<Iterable<DynamicClause>> all = new ArrayList<>();
+      for (DynamicFamily family : this.families.values()) {
+        all.add(family.candidates(theGoal, currentVars, pinnedGeneration, current, reader));
+      }
+      return () -> all.stream().flatMap(iterable -> StreamSupport.stream(iterable.spliterator(), false)).iterator();
+    }
+    if (!(theGoal instanceof Struct<?> || theGoal instanceof String)) {
+      return Collections.emptyList();
+    }
+    final DynamicFamily family = this.families.get(termApi().predicateSignature(theGoal));
+    return family != null ? family.candidates(theGoal, currentVars, pinnedGeneration, current, reader) : Collections.emptyList();
+  }
+
+  /**
+   * @return The number of clauses not retracted
+   */
+  public int size() {
+    synchronized (this.writeLock) {
+      int size = 0;
+      for (DynamicFamily family : this.families.values()) {
+        size += family.size();
+      }
+      return size;
+    }
+  }
+
+  /**
+   * @return The last committed generation, incremented by every assertion or retraction
+   */
+  public long getGeneration() {
+    return this.committed.get();
+  }
+
+  private DynamicFamily family(String thePredicateKey) {
+    return this.families.computeIfAbsent(thePredicateKey, key -> new DynamicFamily());
+  }
+
+  // ---------------------------------------------------------------------------
+  // Implementation of ClauseProvider
+  // ---------------------------------------------------------------------------
+
+  @Override
+  public Iterable<Clause> listMatchingClauses(Object theGoal, UnifyContext currentVars) {
+    final Iterable<DynamicClause> candidates = candidates(theGoal, currentVars);
+    return () -> {
+      final Iterator<DynamicClause> iter = candidates.iterator();
+      return new Iterator<>() {
+        @Override
+        public boolean hasNext() {
+          return iter.hasNext();
+        }
+
+        @Override
+        public Clause next() {
+          return iter.next().getClause();
+        }
+      };
+    };
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "(generation=" + this.committed.get() + ", size=" + size() + ")";
+  }
+}
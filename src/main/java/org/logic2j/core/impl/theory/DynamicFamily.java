@@ -0,0 +1,278 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl.theory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.logic2j.core.api.model.Clause;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * The clauses of one dynamic predicate, see {@link DynamicDatabase}.
+ * Writers are serialized by the database. Readers never lock and never copy: they take the current {@link Index}
+ * and only see the clauses visible to their generation; clauses asserted later land in the same buffers but are
+ * filtered out, clauses retracted later are still visible to them.
+ * Retracted clauses stay in the buffers as tombstones until {@link #compact(long)} builds a new index without
+ * those no reader can see anymore; readers of the former index keep it.
+ */
+final class DynamicFamily {
+
+  /**
+   * Below this number of tombstones, compaction is not worth it.
+   */
+  private static final int COMPACTION_MIN_TOMBSTONES = 32;
+
+  private volatile Index index = new Index();
+
+  // Guarded by the write lock of the database
+  private long nextLast = 0;
+  private long nextFirst = -1;
+  private int total = 0;
+  private int tombstones = 0;
+
+  /**
+   * Tombstones that the last compaction had to keep, because still visible to a pinned generation.
+   */
+  private int retainedTombstones = 0;
+
+  // ---------------------------------------------------------------------------
+  // Writers, under the write lock of the database
+  // ---------------------------------------------------------------------------
+
+  DynamicClause add(Clause theClause, boolean atEnd, long theGeneration, long theWriter) {
+    final Object head = theClause.getHead();
+    final Object key = head instanceof Struct<?> struct && struct.getArity() > 0 ? FirstArgumentIndex.keyOf(struct.getArg(0)) : null;
+    final DynamicClause added = new DynamicClause(theClause, key, atEnd ? this.nextLast++ : this.nextFirst--, theGeneration, theWriter);
+    this.index.add(added, atEnd);
+    this.total++;
+    return added;
+  }
+
+  /**
+   * @return false if theClause was already retracted
+   */
+  boolean retract(DynamicClause theClause, long theGeneration, long theWriter) {
+    if (theClause.getDied() != DynamicClause.ALIVE) {
+      return false;
+    }
+    theClause.setDied(theGeneration, theWriter);
+    this.tombstones++;
+    return true;
+  }
+
+  /**
+   * @return true if enough tombstones accumulated since the last compaction
+   */
+  boolean needsCompaction() {
+    final int reclaimable = this.tombstones - this.retainedTombstones;
+    return reclaimable >= COMPACTION_MIN_TOMBSTONES && reclaimable * 2 >= this.total;
+  }
+
+  boolean hasRetainedTombstones() {
+    return this.retainedTombstones > 0;
+  }
+
+  /**
+   * Rebuild the index without tombstones.
+   *
+   * @param theOldestVisible The oldest generation any reader may still use: clauses retracted
+   *                         at or before it are dropped, later ones are kept.
+   */
+  void compact(long theOldestVisible) {
+    final Index compacted = new Index();
+    int kept = 0;
+    int retained = 0;
+    final Slice all = this.index.all.slice;
+    for (int i = all.from; i < all.to; i++) {
+      final DynamicClause clause = all.clauses[i];
+      final long died = clause.getDied();
+      if (died > theOldestVisible) {
+        compacted.add(clause, true);
+        kept++;
+        if (died != DynamicClause.ALIVE) {
+          retained++;
+        }
+      }
+    }
+    this.total = kept;
+    this.tombstones = retained;
+    this.retainedTombstones = retained;
+    this.index = compacted;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Readers
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @param theGoal     A goal of this predicate
+   * @param currentVars To dereference the first argument of theGoal
+   * @param thePinned   See {@link DynamicClause#isVisibleTo(long, long, long)}
+   * @param theCurrent  See {@link DynamicClause#isVisibleTo(long, long, long)}
+   * @param theReader   See {@link DynamicClause#isVisibleTo(long, long, long)}
+   * @return The clauses possibly matching theGoal, visible to the reader, in order
+   */
+  Iterable<DynamicClause> candidates(Object theGoal, UnifyContext currentVars, long thePinned, long theCurrent, long theReader) {
+    final Index current = this.index;
+    final Visibility visibility = new Visibility(thePinned, theCurrent, theReader);
+    Object key = null;
+    if (theGoal instanceof Struct<?> struct && struct.getArity() > 0) {
+      Object first = struct.getArg(0);
+      if (first instanceof Var<?> && currentVars != null) {
+        first = currentVars.reify(first);
+      }
+      key = FirstArgumentIndex.keyOf(first);
+    }
+    if (key == null) {
+      final Slice all = current.all.slice;
+      return () -> new VisibleClauses(all, null, visibility);
+    }
+    final Buffer byKey = current.byKey.get(key);
+    final Slice unindexed = current.unindexed.slice;
+    if (byKey == null) {
+      return () -> new VisibleClauses(unindexed, null, visibility);
+    }
+    final Slice indexed = byKey.slice;
+    return () -> new VisibleClauses(indexed, unindexed, visibility);
+  }
+
+  /**
+   * @return The number of clauses not retracted
+   */
+  int size() {
+    return this.total - this.tombstones;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Internals
+  // ---------------------------------------------------------------------------
+
+  private record Visibility(long pinned, long current, long reader) {
+  }
+
+  /**
+   * All clauses of the family, and the same split by first-argument key. Only ever grows.
+   */
+  private static final class Index {
+    final Buffer all = new Buffer();
+    final Map<Object, Buffer> byKey = new ConcurrentHashMap<>();
+    final Buffer unindexed = new Buffer();
+
+    void add(DynamicClause theClause, boolean atEnd) {
+      this.all.add(theClause, atEnd);
+      if (theClause.key == null) {
+        this.unindexed.add(theClause, atEnd);
+      } else {
+        this.byKey.computeIfAbsent(theClause.key, k -> new Buffer()).add(theClause, atEnd);
+      }
+    }
+  }
+
+  /**
+   * Clauses in increasing order, growing at both ends. Every change is published as a new {@link Slice}:
+   * the array slots a Slice covers are never written again.
+   */
+  private static final class Buffer {
+    private DynamicClause[] clauses = new DynamicClause[8];
+    private int from = 4;
+    private int to = 4;
+    volatile Slice slice = new Slice(this.clauses, 4, 4);
+
+    void add(DynamicClause theClause, boolean atEnd) {
+      if (atEnd ? this.to == this.clauses.length : this.from == 0) {
+        // Reallocate with room at both ends
+        final int size = this.to - this.from;
+        final DynamicClause[] larger = new DynamicClause[size * 2 + 8];
+        final int newFrom = size / 2 + 4;
+        System.arraycopy(this.clauses, this.from, larger, newFrom, size);
+        this.clauses = larger;
+        this.from = newFrom;
+        this.to = newFrom + size;
+      }
+      if (atEnd) {
+        this.clauses[this.to++] = theClause;
+      } else {
+        this.clauses[--this.from] = theClause;
+      }
+      this.slice = new Slice(this.clauses, this.from, this.to);
+    }
+  }
+
+  private record Slice(DynamicClause[] clauses, int from, int to) {
+  }
+
+  /**
+   * Merges two slices in order, or iterates over one if the second is null, skipping invisible clauses.
+   */
+  private static final class VisibleClauses implements Iterator<DynamicClause> {
+    private final Slice first;
+    private final Slice second;
+    private final Visibility visibility;
+    private int i;
+    private int j;
+    private DynamicClause next;
+
+    VisibleClauses(Slice theFirst, Slice theSecond, Visibility theVisibility) {
+      this.first = theFirst;
+      this.second = theSecond;
+      this.visibility = theVisibility;
+      this.i = theFirst.from;
+      this.j = theSecond != null ? theSecond.from : 0;
+      advance();
+    }
+
+    private void advance() {
+      this.next = null;
+      while (this.next == null) {
+        final DynamicClause a = this.i < this.first.to ? this.first.clauses[this.i] : null;
+        final DynamicClause b = this.second != null && this.j < this.second.to ? this.second.clauses[this.j] : null;
+        final DynamicClause candidate;
+        if (a != null && (b == null || a.order < b.order)) {
+          candidate = a;
+          this.i++;
+        } else if (b != null) {
+          candidate = b;
+          this.j++;
+        } else {
+          return;
+        }
+        if (candidate.isVisibleTo(this.visibility.pinned(), this.visibility.current(), this.visibility.reader())) {
+          this.next = candidate;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.next != null;
+    }
+
+    @Override
+    public DynamicClause next() {
+      if (this.next == null) {
+        throw new NoSuchElementException();
+      }
+      final DynamicClause result = this.next;
+      advance();
+      return result;
+    }
+  }
+}
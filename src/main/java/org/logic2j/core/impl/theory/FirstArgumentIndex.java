@@ -0,0 +1,153 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.impl.theory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.logic2j.core.api.model.Clause;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * Selects the clauses of one predicate that can match a goal by the principal functor of their first argument,
+ * like the WAM's switch_on_term: a goal whose first argument is bound to an atom, a number or a compound
+ * is only tried against clauses with the same constant or functor there, and clauses with a variable
+ * (or any other object) as first argument. Clause order is preserved.
+ * An index is an immutable snapshot of the clauses it was built from.
+ */
+public final class FirstArgumentIndex {
+
+  private final List<Clause> all;
+
+  /**
+   * For each first-argument key: candidate clauses in order, including those not indexable.
+   */
+  private final Map<Object, List<Clause>> byKey;
+
+  /**
+   * Clauses whose first argument is not indexable (a var or anything else): candidates for keys not in byKey.
+   */
+  private final List<Clause> unindexed;
+
+  private FirstArgumentIndex(List<Clause> theAll, Map<Object, List<Clause>> theByKey, List<Clause> theUnindexed) {
+    this.all = theAll;
+    this.byKey = theByKey;
+    this.unindexed = theUnindexed;
+  }
+
+  /**
+   * @param theFamily Clauses of a single predicate, in order; may be null (no clause)
+   * @return The index
+   */
+  public static FirstArgumentIndex of(List<Clause> theFamily) {
+    if (theFamily == null || theFamily.isEmpty()) {
+      return new FirstArgumentIndex(Collections.emptyList(), Collections.emptyMap(), Collections.emptyList());
+    }
+    final List<Clause> all = List.copyOf(theFamily);
+    final Object[] keys = new Object[all.size()];
+    final Set<Object> distinctKeys = new LinkedHashSet<>();
+    final List<Clause> unindexed = new ArrayList<>();
+    for (int i = 0; i < keys.length; i++) {
+      final Object head = all.get(i).getHead();
+      keys[i] = head instanceof Struct<?> struct && struct.getArity() > 0 ? keyOf(struct.getArg(0)) : null;
+      if (keys[i] == null) {
+        unindexed.add(all.get(i));
+      } else {
+        distinctKeys.add(keys[i]);
+      }
+    }
+    final Map<Object, List<Clause>> byKey = new HashMap<>(distinctKeys.size() * 2);
+    for (Object key : distinctKeys) {
+      final List<Clause> candidates = new ArrayList<>();
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] == null || keys[i].equals(key)) {
+          candidates.add(all.get(i));
+        }
+      }
+      byKey.put(key, Arrays.asList(candidates.toArray(new Clause[0])));
+    }
+    return new FirstArgumentIndex(all, byKey, List.copyOf(unindexed));
+  }
+
+  /**
+   * @param theGoal     A goal of the indexed predicate
+   * @param currentVars To dereference the goal's first argument
+   * @return Clauses that may match theGoal, in order
+   */
+  public List<Clause> candidates(Struct<?> theGoal, UnifyContext currentVars) {
+    if (this.byKey.isEmpty() || theGoal.getArity() == 0) {
+      return this.all;
+    }
+    Object first = theGoal.getArg(0);
+    if (first instanceof Var<?>) {
+      first = currentVars.reify(first);
+    }
+    final Object key = keyOf(first);
+    if (key == null) {
+      return this.all;
+    }
+    final List<Clause> candidates = this.byKey.get(key);
+    return candidates != null ? candidates : this.unindexed;
+  }
+
+  /**
+   * @return The key of a first argument, or null if not indexable (free var, or another Java object).
+   * Atoms and Structs of arity 0 share the same key (their name), numbers are keyed by value: a key never separates
+   * terms that could unify.
+   */
+  static Object keyOf(Object theArgument) {
+    if (theArgument instanceof String) {
+      return theArgument;
+    }
+    if (theArgument instanceof Number number) {
+      // By value, whatever the Java type: a superset of what could unify
+      return number.doubleValue();
+    }
+    if (theArgument instanceof Struct<?> struct) {
+      return struct.getArity() == 0 ? struct.getName() : new FunctorKey(struct.getName(), struct.getArity());
+    }
+    return null;
+  }
+
+  private static final class FunctorKey {
+    private final String name;
+    private final int arity;
+
+    FunctorKey(String theName, int theArity) {
+      this.name = theName;
+      this.arity = theArity;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof FunctorKey that && this.arity == that.arity && this.name.equals(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.name.hashCode() * 31 + this.arity;
+    }
+  }
+
+}
@@ -27,6 +27,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Storage of the clauses of a theory: an ordered collection of {@link Clause}s, with some indexing and structuring added for performance.
+ * Content being solved against is only changed by {@link #addAll(TheoryContent)} and {@link #replaceFamilies(Map)}, which
+ * publish a new map of families and new lists for the families they change: readers see either all or none of a change,
+ * and never a list being modified.
  */
 public class TheoryContent {
   private static final Logger logger = LoggerFactory.getLogger(TheoryContent.class);
@@ -37,12 +40,22 @@ public class TheoryContent {
    * head makes a family, see {@link Clause#getPredicateKey()}.
    * Value: ordered list of very very very immutable {@link Clause}s.
    */
-  private final HashMap<String, List<Clause>> clauses = new HashMap<>();
+  private volatile HashMap<String, List<Clause>> clauses = new HashMap<>();
 
   private Object initializationGoal = null;
 
   /**
-   * Add one {@link Clause}.
+   * Directives of the theory, in order, as they were run when loading it.
+   */
+  private final List<Object> directives = new ArrayList<>();
+
+  /**
+   * Where the clauses were loaded from (file path, URL or resource), null if unknown.
+   */
+  private String source = null;
+
+  /**
+   * Add one {@link Clause}, in place: meant to build a content, not to change one that is being solved against.
    *
    * @param theClause
    */
@@ -60,12 +73,18 @@ public class TheoryContent {
    * @param theContentToAddToThis
    */
   public synchronized void addAll(TheoryContent theContentToAddToThis) {
+    final HashMap<String, List<Clause>> newClauses = new HashMap<>(this.clauses);
     for (final Map.Entry<String, List<Clause>> extraEntry : theContentToAddToThis.clauses.entrySet()) {
       final String clauseFamilyKey = extraEntry.getKey();
-      final List<Clause> family = this.clauses.computeIfAbsent(clauseFamilyKey, key -> new ArrayList<>());
-      final List<Clause> clausesToAdd = extraEntry.getValue();
-      family.addAll(clausesToAdd);
+      final List<Clause> existing = newClauses.get(clauseFamilyKey);
+      final List<Clause> family = new ArrayList<>(existing != null ? existing.size() + extraEntry.getValue().size() : extraEntry.getValue().size());
+      if (existing != null) {
+        family.addAll(existing);
+      }
+      family.addAll(extraEntry.getValue());
+      newClauses.put(clauseFamilyKey, family);
     }
+    this.clauses = newClauses;
     if (theContentToAddToThis.getInitializationGoal() != null) {
       if (this.getInitializationGoal() != null) {
         logger
@@ -75,6 +94,27 @@ public class TheoryContent {
     }
   }
 
+  /**
+   * Replace whole families of clauses at once.
+   *
+   * @param theFamilies New clauses by predicate key; an empty list removes the predicate. Lists are not copied,
+   *                    they must not be modified afterwards.
+   */
+  public synchronized void replaceFamilies(Map<String, List<Clause>> theFamilies) {
+    if (theFamilies.isEmpty()) {
+      return;
+    }
+    final HashMap<String, List<Clause>> newClauses = new HashMap<>(this.clauses);
+    for (final Map.Entry<String, List<Clause>> entry : theFamilies.entrySet()) {
+      if (entry.getValue().isEmpty()) {
+        newClauses.remove(entry.getKey());
+      } else {
+        newClauses.put(entry.getKey(), entry.getValue());
+      }
+    }
+    this.clauses = newClauses;
+  }
+
   /**
    * Retrieve clauses matching theGoalTerm (by predicate's head name and arity).
    *
@@ -82,20 +122,37 @@ public class TheoryContent {
    * @return An Iterable for a foreach() loop, never null.
    */
   public Iterable<Clause> find(Object theGoalTerm) {
+    final HashMap<String, List<Clause>> current = this.clauses;
     if (theGoalTerm instanceof Var<?>) {
       final ArrayList<Clause> result = new ArrayList<>();
-      for (List<Clause> cl : this.clauses.values()) {
+      for (List<Clause> cl : current.values()) {
         result.addAll(cl);
       }
       return result;
     }
 
     final String clauseFamilyKey = termApi().predicateSignature(theGoalTerm);
-    final List<Clause> family = this.clauses.get(clauseFamilyKey);
+    final List<Clause> family = current.get(clauseFamilyKey);
       // Predicate not registered in this theory clauses, return empty, it's not a failure condition
       return Objects.requireNonNullElse(family, Collections.emptyList());
   }
 
+  /**
+   * @param thePredicateKey See {@link Clause#getPredicateKey()}
+   * @return The clauses of one predicate, in order, or null if none. Not to be modified. A family changed by
+   * {@link #addAll(TheoryContent)} or {@link #replaceFamilies(Map)} is a new List instance.
+   */
+  public List<Clause> family(String thePredicateKey) {
+    return this.clauses.get(thePredicateKey);
+  }
+
+  /**
+   * @return Keys of all predicates having clauses
+   */
+  public Set<String> predicateKeys() {
+    return Collections.unmodifiableSet(this.clauses.keySet());
+  }
+
   public Object getInitializationGoal() {
     return initializationGoal;
   }
@@ -104,6 +161,28 @@ public class TheoryContent {
     this.initializationGoal = initializationGoal;
   }
 
+  /**
+   * @param theDirective The goal of a directive of this theory, in order
+   */
+  public synchronized void addDirective(Object theDirective) {
+    this.directives.add(theDirective);
+  }
+
+  /**
+   * @return Goals of the directives of this theory, in order, not including the initialization goal
+   */
+  public List<Object> getDirectives() {
+    return Collections.unmodifiableList(this.directives);
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public void setSource(String source) {
+    this.source = source;
+  }
+
   @Override
   public String toString() {
     return this.getClass().getSimpleName() + '(' + this.clauses + ')';
@@ -0,0 +1,97 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.core.impl.theory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read theory files as UTF-8, whatever the platform's default charset: the file is memory-mapped and decoded
+ * in bulk into a char buffer that the parser scans in place, without any Reader in between.
+ * Each thread keeps its last released buffer for the next file, see {@link #release(CharBuffer)}.
+ */
+final class TheoryFileDecoder {
+
+  private static final int UTF8_BOM_LENGTH = 3;
+
+  private static final ThreadLocal<SoftReference<CharBuffer>> RELEASED = new ThreadLocal<>();
+
+  private TheoryFileDecoder() {
+    // Static only
+  }
+
+  /**
+   * @param theFile UTF-8 encoded, an initial byte order mark is skipped
+   * @return The chars of theFile, in this thread's released buffer when large enough
+   * @throws IOException If theFile cannot be read, or is not valid UTF-8
+   */
+  static CharBuffer decode(File theFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(theFile.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Theory file " + theFile + " is too large: " + size + " bytes");
+      }
+      final MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (size >= UTF8_BOM_LENGTH && bytes.get(0) == (byte) 0xEF && bytes.get(1) == (byte) 0xBB && bytes.get(2) == (byte) 0xBF) {
+        bytes.position(UTF8_BOM_LENGTH);
+      }
+      // UTF-8 never decodes to more chars than bytes
+      final CharBuffer chars = reusableBuffer(bytes.remaining());
+      final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+              .onMalformedInput(CodingErrorAction.REPORT)
+              .onUnmappableCharacter(CodingErrorAction.REPORT);
+      CoderResult result = decoder.decode(bytes, chars, true);
+      if (!result.isError()) {
+        result = decoder.flush(chars);
+      }
+      if (result.isError()) {
+        throw new IOException("Theory file " + theFile + " is not valid UTF-8 at byte " + bytes.position());
+      }
+      return chars.flip();
+    }
+  }
+
+  /**
+   * Make theBuffer available to the next {@link #decode(File)} of this thread.
+   *
+   * @param theBuffer As returned by {@link #decode(File)}, no longer used: nothing parsed refers to its chars
+   */
+  static void release(CharBuffer theBuffer) {
+    RELEASED.set(new SoftReference<>(theBuffer));
+  }
+
+  private static CharBuffer reusableBuffer(int theCapacity) {
+    final SoftReference<CharBuffer> released = RELEASED.get();
+    // Taken out, so that a file loaded while parsing another one gets its own buffer
+    RELEASED.remove();
+    final CharBuffer buffer = released != null ? released.get() : null;
+    if (buffer != null && buffer.capacity() >= theCapacity) {
+      return buffer.clear();
+    }
+    return CharBuffer.allocate(theCapacity);
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.core.impl.theory;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches theory files, and directories of theory files, and reloads them into a {@link TheoryManager}
+ * on a background thread when they change on disk.
+ * A changed file is entirely parsed before anything is published, see {@link TheoryManager#reload(File)}: when it does
+ * not parse, the error is logged and the previous clauses stay in place. Only the predicates whose clauses changed are
+ * swapped, atomically per file, so solutions already in progress complete on the clauses they started with.
+ * A removed file leaves its clauses in place, and so does a file found empty or unreadable: editors often truncate a
+ * file before writing it again, such a transient state is not published.
+ */
+public class TheoryFileWatcher implements Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(TheoryFileWatcher.class);
+
+  /**
+   * Extension of the files considered theories when a whole directory is watched.
+   */
+  public static final String THEORY_FILE_EXTENSION = ".pro";
+
+  /**
+   * Editors often save in several writes; events are coalesced until none arrived for that long.
+   */
+  private static final long QUIET_PERIOD_MILLIS = 100;
+
+  private final TheoryManager theoryManager;
+
+  private final WatchService watchService;
+
+  /**
+   * Files watched individually.
+   */
+  private final Set<Path> files = new HashSet<>();
+
+  /**
+   * Directories whose theory files are all watched.
+   */
+  private final Set<Path> directories = new HashSet<>();
+
+  private final Thread thread;
+
+  private final AtomicLong reloadCount = new AtomicLong();
+
+  private final AtomicLong reloadAttempts = new AtomicLong();
+
+  private volatile boolean closed = false;
+
+  /**
+   * Start watching.
+   *
+   * @param theTheoryManager  Where changed theories are reloaded
+   * @param theFilesOrDirectories Theory files, or directories of theory files
+   * @throws IOException If the files cannot be watched
+   */
+  public TheoryFileWatcher(TheoryManager theTheoryManager, Collection<File> theFilesOrDirectories) throws IOException {
+    this.theoryManager = theTheoryManager;
+    this.watchService = FileSystems.getDefault().newWatchService();
+    final Set<Path> registered = new HashSet<>();
+    for (File fileOrDirectory : theFilesOrDirectories) {
+      final Path path = fileOrDirectory.toPath().toAbsolutePath().normalize();
+      final Path directory;
+      if (Files.isDirectory(path)) {
+        this.directories.add(path);
+        directory = path;
+      } else {
+        this.files.add(path);
+        directory = path.getParent();
+      }
+      if (registered.add(directory)) {
+        directory.register(this.watchService, ENTRY_CREATE, ENTRY_MODIFY);
+      }
+    }
+    this.thread = new Thread(this::watch, "logic2j-theory-watcher");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * @param theDirectory A directory
+   * @return The theory files directly in theDirectory, ordered by name
+   * @throws IOException If theDirectory cannot be listed
+   */
+  public static List<File> theoryFilesIn(File theDirectory) throws IOException {
+    final File[] found = theDirectory.listFiles((dir, name) -> name.endsWith(THEORY_FILE_EXTENSION));
+    if (found == null) {
+      throw new IOException("Cannot list theory files of " + theDirectory);
+    }
+    Arrays.sort(found);
+    return Arrays.asList(found);
+  }
+
+  private void watch() {
+    try {
+      while (!this.closed) {
+        final Set<Path> changed = new LinkedHashSet<>();
+        collect(this.watchService.take(), changed);
+        for (WatchKey more = poll(); more != null; more = poll()) {
+          collect(more, changed);
+        }
+        changed.forEach(this::reload);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException e) {
+      // Normal termination
+    }
+  }
+
+  private WatchKey poll() throws InterruptedException {
+    return this.watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private void collect(WatchKey key, Set<Path> changed) {
+    final Path directory = (Path) key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        // Events were lost: reload everything watched in that directory
+        this.files.stream().filter(file -> directory.equals(file.getParent())).forEach(changed::add);
+        if (this.directories.contains(directory)) {
+          try {
+            theoryFilesIn(directory.toFile()).forEach(file -> changed.add(file.toPath()));
+          } catch (IOException e) {
+            logger.error("Could not list {}: {}", directory, e.toString());
+          }
+        }
+        continue;
+      }
+      final Path path = directory.resolve((Path) event.context());
+      if (isWatched(path)) {
+        changed.add(path);
+      }
+    }
+    key.reset();
+  }
+
+  private boolean isWatched(Path path) {
+    return this.files.contains(path) || (this.directories.contains(path.getParent()) && path.getFileName().toString().endsWith(THEORY_FILE_EXTENSION));
+  }
+
+  private void reload(Path path) {
+    if (!Files.isRegularFile(path)) {
+      logger.warn("Theory {} was removed, its clauses are kept", path);
+      return;
+    }
+    try {
+      if (!Files.isReadable(path) || Files.size(path) == 0) {
+        logger.info("Theory {} is empty or unreadable, probably being written: its clauses are kept", path);
+        return;
+      }
+    } catch (IOException e) {
+      logger.info("Theory {} cannot be read, probably being written: its clauses are kept", path);
+      return;
+    }
+    try {
+      final Set<String> predicates = this.theoryManager.reload(path.toFile());
+      this.reloadCount.incrementAndGet();
+      logger.info("Reloaded theory {}, changed predicates: {}", path, predicates);
+    } catch (IOException | RuntimeException e) {
+      logger.error("Could not reload theory {}, keeping its previous clauses: {}", path, e.toString());
+    } finally {
+      this.reloadAttempts.incrementAndGet();
+    }
+  }
+
+  /**
+   * @return Number of files successfully reloaded so far
+   */
+  public long getReloadCount() {
+    return this.reloadCount.get();
+  }
+
+  /**
+   * @return Number of reloads attempted so far, including those that failed
+   */
+  public long getReloadAttempts() {
+    return this.reloadAttempts.get();
+  }
+
+  /**
+   * Stop watching; theories already loaded stay in place.
+   */
+  @Override
+  public void close() throws IOException {
+    this.closed = true;
+    this.watchService.close();
+  }
+
+}
@@ -19,6 +19,8 @@ package org.logic2j.core.impl.theory;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
+import java.util.Set;
 import org.logic2j.core.api.ClauseProvider;
 import org.logic2j.core.api.DataFactProvider;
 import org.logic2j.core.api.model.Clause;
@@ -32,7 +34,7 @@ import org.logic2j.core.impl.Solver;
  * Provides methods for:
  * <ul>
  * <li>Loading theory files, classloadable resources or URLs</li>
- * <li>(future)Asserting and retracting {@link Clause}s</li>
+ * <li>Asserting and retracting {@link Clause}s, see {@link #getDynamicDatabase()}</li>
  * </ul>
  */
 public interface TheoryManager extends ClauseProvider {
@@ -46,12 +48,25 @@ public interface TheoryManager extends ClauseProvider {
    * this only loads and return the content, use {@link #addTheory(TheoryContent)} to make it
    * available to the {@link org.logic2j.core.impl.PrologImplementation}.
    *
+   * When theFile has an up to date compiled form next to it, see {@link #compile(File)}, that one is read instead of parsing theFile.
+   *
    * @param theFile
    * @return The content of the theory
    * @throws java.io.IOException
    */
   TheoryContent load(File theFile) throws IOException;
 
+  /**
+   * Same as {@link #load(File)}, and write the compiled form of theFile next to it, with extension ".l2jc",
+   * when it is missing or out of date. Later loads of theFile read its compiled form instead of parsing it,
+   * as long as theFile does not change. Compiled forms packaged next to classloadable theories are used the same way.
+   *
+   * @param theFile
+   * @return The content of the theory
+   * @throws IOException
+   */
+  TheoryContent compile(File theFile) throws IOException;
+
   /**
    * Load from a URL.
    *
@@ -68,6 +83,18 @@ public interface TheoryManager extends ClauseProvider {
    */
   TheoryContent load(String theClassloadableResourceOrUrl);
 
+  /**
+   * Load several theory files concurrently: files are parsed in parallel, and large files are split at sentence
+   * boundaries into chunks parsed in parallel too. A file containing directives is parsed on its own, after the
+   * others, since its directives may define operators for its following sentences.
+   * Directives run in order once all parsing is over.
+   *
+   * @param theFiles
+   * @return The content of each file, in the order of theFiles, each with its clauses in their order in the file
+   * @throws IOException
+   */
+  List<TheoryContent> loadInParallel(List<File> theFiles) throws IOException;
+
   /**
    * @return All clause providers, in same order as when registered.
    * TODO The actual ordering of ClauseProviders may not always be required: it is only
@@ -99,4 +126,19 @@ public interface TheoryManager extends ClauseProvider {
    */
   void addTheory(TheoryContent theContent);
 
+  /**
+   * Load theFile again and replace, in a single step, the predicates whose clauses from that file changed since
+   * it was added or last reloaded. If theFile was never added, this is equivalent to load then addTheory.
+   *
+   * @param theFile
+   * @return Keys of the predicates that changed, see {@link Clause#getPredicateKey()}
+   * @throws IOException
+   */
+  Set<String> reload(File theFile) throws IOException;
+
+  /**
+   * @return The store of clauses asserted and retracted while solving, also one of the {@link #getClauseProviders()}.
+   */
+  DynamicDatabase getDynamicDatabase();
+
 }
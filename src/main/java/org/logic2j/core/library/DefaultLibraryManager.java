@@ -20,7 +20,9 @@ import static org.logic2j.engine.model.TermApiLocator.termApiExt;
 
 import java.lang.reflect.Method;
 import java.net.URL;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.logic2j.core.api.LibraryManager;
 import org.logic2j.core.api.Prolog;
@@ -30,6 +32,8 @@ import org.logic2j.core.api.library.PrimitiveInfo;
 import org.logic2j.core.api.library.PrimitiveInfo.PrimitiveType;
 import org.logic2j.core.api.library.annotation.Functor;
 import org.logic2j.core.api.library.annotation.Predicate;
+import org.logic2j.core.impl.DefaultTermUnmarshaller;
+import org.logic2j.core.impl.PrologImplementation;
 import org.logic2j.core.impl.theory.TheoryContent;
 import org.logic2j.core.impl.theory.TheoryManager;
 import org.logic2j.engine.exception.PrologNonSpecificException;
@@ -52,7 +56,7 @@ public class DefaultLibraryManager implements LibraryManager {
 
   private final LibraryContent wholeContent = new LibraryContent();
 
-  private final Map<Class<? extends PLibrary>, PLibrary> libraries = new HashMap<>();
+  private final Map<Class<? extends PLibrary>, PLibrary> libraries = new LinkedHashMap<>();
 
   /**
    * @param theProlog
@@ -75,6 +79,10 @@ public class DefaultLibraryManager implements LibraryManager {
     }
     final LibraryContent extraContent = loadLibraryInternal(theLibrary);
     mergeExtraContent(extraContent);
+    if (this.prolog instanceof PrologImplementation implementation && implementation.getTermUnmarshaller() instanceof DefaultTermUnmarshaller unmarshaller) {
+      // Goals cached were normalized without the primitives of this library
+      unmarshaller.clearCache();
+    }
 
     // Load the theory text associated to the library, if any exists
     final URL associatedTheory = locationOfAssociatedTheory(theLibrary);
@@ -206,4 +214,9 @@ public class DefaultLibraryManager implements LibraryManager {
     return this.wholeContent;
   }
 
+  @Override
+  public Collection<PLibrary> getLibraries() {
+    return Collections.unmodifiableCollection(this.libraries.values());
+  }
+
 }
@@ -0,0 +1,74 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.library.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.logic2j.engine.solver.Continuation;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * A SolutionListener that folds every solution into an {@link Aggregator}, optionally one per distinct value
+ * of a grouping key. Solutions are not relayed further.
+ */
+final class AggregatingSolutionListener implements SolutionListener {
+
+  private final Aggregator aggregator;
+
+  private final Object groupKey;
+
+  /**
+   * Aggregators by reified group key, in the order keys were first seen.
+   */
+  private final Map<Object, Aggregator> groups;
+
+  /**
+   * @param theAggregator Will fold all solutions, or serve as prototype for each group when theGroupKey is not null
+   * @param theGroupKey   A term whose reified value identifies the group of a solution, or null for no grouping
+   */
+  AggregatingSolutionListener(Aggregator theAggregator, Object theGroupKey) {
+    this.aggregator = theAggregator;
+    this.groupKey = theGroupKey;
+    this.groups = theGroupKey != null ? new LinkedHashMap<>() : null;
+  }
+
+  @Override
+  public int onSolution(UnifyContext currentVars) {
+    if (this.groupKey == null) {
+      this.aggregator.add(currentVars);
+    } else {
+      final Object key = currentVars.reify(this.groupKey);
+      this.groups.computeIfAbsent(key, k -> this.aggregator.newEmpty()).add(currentVars);
+    }
+    return Continuation.CONTINUE;
+  }
+
+  /**
+   * @return The aggregated value when not grouping, see {@link Aggregator#result()}
+   */
+  Object result() {
+    return this.aggregator.result();
+  }
+
+  /**
+   * @return Aggregators by group key, when grouping
+   */
+  Map<Object, Aggregator> groups() {
+    return this.groups;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.library.impl;
+
+import static org.logic2j.engine.model.TermApiLocator.termApiExt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.TreeSet;
+import org.logic2j.core.api.model.Numbers;
+import org.logic2j.core.api.model.StandardOrderComparator;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.PrologLists;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * Folds the solutions of a goal into one aggregated value, as specified to aggregate_all/3 and aggregate_all/4:
+ * count, count(Template), sum(Expr), max(Expr), min(Expr), bag(Template) or set(Template).
+ * Only bag and set hold the values; all others use constant memory whatever the number of solutions.
+ */
+final class Aggregator {
+
+  enum Kind {
+    COUNT, SUM, MAX, MIN, BAG, SET
+  }
+
+  private final Kind kind;
+
+  private final Object template;
+
+  private int count = 0;
+
+  private final NumericAccumulator numbers;
+
+  private final Collection<Object> elements;
+
+  private Aggregator(Kind theKind, Object theTemplate) {
+    this.kind = theKind;
+    this.template = theTemplate;
+    this.numbers = (theKind == Kind.SUM || theKind == Kind.MAX || theKind == Kind.MIN) ? new NumericAccumulator("aggregate_all") : null;
+    if (theKind == Kind.BAG) {
+      this.elements = new ArrayList<>();
+    } else if (theKind == Kind.SET) {
+      this.elements = new TreeSet<>(StandardOrderComparator.INSTANCE);
+    } else {
+      this.elements = null;
+    }
+  }
+
+  /**
+   * @param theSpec The reified aggregation specification, such as "count" or sum(X)
+   * @return A new Aggregator for theSpec
+   * @throws InvalidTermException If theSpec is not a known specification
+   */
+  static Aggregator fromSpec(Object theSpec) {
+    if (termApiExt().isAtom(theSpec) && "count".equals(theSpec.toString())) {
+      return new Aggregator(Kind.COUNT, null);
+    }
+    if (theSpec instanceof Struct<?> spec && spec.getArity() == 1) {
+      final Object template = spec.getArg(0);
+      return switch (spec.getName()) {
+        case "count" -> new Aggregator(Kind.COUNT, template);
+        case "sum" -> new Aggregator(Kind.SUM, template);
+        case "max" -> new Aggregator(Kind.MAX, template);
+        case "min" -> new Aggregator(Kind.MIN, template);
+        case "bag" -> new Aggregator(Kind.BAG, template);
+        case "set" -> new Aggregator(Kind.SET, template);
+        default -> throw new InvalidTermException("Unknown aggregation specification: " + theSpec);
+      };
+    }
+    throw new InvalidTermException("Unknown aggregation specification: " + theSpec);
+  }
+
+  /**
+   * @return A fresh Aggregator with the same specification, nothing aggregated yet.
+   */
+  Aggregator newEmpty() {
+    return new Aggregator(this.kind, this.template);
+  }
+
+  /**
+   * Fold one solution.
+   *
+   * @param currentVars The bindings of the solution
+   */
+  void add(UnifyContext currentVars) {
+    switch (this.kind) {
+      case COUNT -> this.count++;
+      case SUM, MAX, MIN -> this.numbers.add(termApiExt().evaluate(this.template, currentVars));
+      case BAG, SET -> this.elements.add(currentVars.reify(this.template));
+    }
+  }
+
+  /**
+   * @return The aggregated value, or null when there is none (max or min of no solution).
+   */
+  Object result() {
+    return switch (this.kind) {
+      case COUNT -> Numbers.valueOf(this.count);
+      case SUM -> this.numbers.sum();
+      case MAX -> this.numbers.max();
+      case MIN -> this.numbers.min();
+      case BAG, SET -> PrologLists.createPList(this.elements);
+    };
+  }
+
+}
@@ -19,19 +19,33 @@ package org.logic2j.core.library.impl;
 import static org.logic2j.engine.model.TermApiLocator.termApi;
 import static org.logic2j.engine.model.TermApiLocator.termApiExt;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
 import org.logic2j.core.api.ClauseProvider;
+import org.logic2j.core.api.TermAdapter;
+import org.logic2j.core.api.library.PrimitiveInfo;
 import org.logic2j.core.api.library.annotation.Functor;
 import org.logic2j.core.api.library.annotation.Predicate;
 import org.logic2j.core.api.model.Clause;
+import org.logic2j.core.api.model.Numbers;
+import org.logic2j.core.api.model.StandardOrderComparator;
 import org.logic2j.core.impl.NotListener;
 import org.logic2j.core.impl.PrologImplementation;
 import org.logic2j.core.impl.Solver;
+import org.logic2j.core.impl.theory.DynamicClause;
+import org.logic2j.core.impl.theory.DynamicDatabase;
 import org.logic2j.engine.exception.InvalidTermException;
 import org.logic2j.engine.model.PrologLists;
 import org.logic2j.engine.model.Struct;
@@ -50,6 +64,23 @@ import org.logic2j.engine.unify.UnifyContext;
 @SuppressWarnings("StringEquality")
 public class CoreLibrary extends LibraryBase {
 
+  private static final String ORDER_LESS = "<";
+  private static final String ORDER_EQUAL = "=";
+  private static final String ORDER_GREATER = ">";
+  private static final String FUNCTOR_PAIR = "-";
+
+  /**
+   * System property holding the default of {@link #setDistinctMemoryLimit(int, File)}.
+   */
+  public static final String PROPERTY_DISTINCT_MEMORY_LIMIT = "logic2j.distinct.memoryLimit";
+
+  /**
+   * See {@link #setDistinctMemoryLimit(int, File)}.
+   */
+  private volatile int distinctInMemoryLimit = Integer.getInteger(PROPERTY_DISTINCT_MEMORY_LIMIT, Integer.MAX_VALUE);
+
+  private volatile File distinctSpillDirectory = new File(System.getProperty("java.io.tmpdir"));
+
   public CoreLibrary(PrologImplementation theProlog) {
     super(theProlog);
   }
@@ -58,7 +89,7 @@ public class CoreLibrary extends LibraryBase {
 
     @Override
     public boolean apply(Number val1, Number val2) {
-      return val1.doubleValue() == val2.doubleValue();
+      return Numbers.numericEquals(val1, val2);
     }
 
     @Override
@@ -71,7 +102,7 @@ public class CoreLibrary extends LibraryBase {
 
     @Override
     public boolean apply(Number val1, Number val2) {
-      return val1.doubleValue() != val2.doubleValue();
+      return !Numbers.numericEquals(val1, val2);
     }
 
     @Override
@@ -80,32 +111,82 @@ public class CoreLibrary extends LibraryBase {
     }
   };
 
-  private static final AggregationFunction AGGREGATION_PLUS = (val1, val2) -> {
-    if (val1 instanceof Integer && val2 instanceof Integer) {
-      return val1.intValue() + val2.intValue();
+  private static final AggregationFunction AGGREGATION_PLUS = new AggregationFunction() {
+
+    @Override
+    public long apply(long val1, long val2) {
+      return val1 + val2;
+    }
+
+    @Override
+    public double apply(double val1, double val2) {
+      return val1 + val2;
     }
-    return (double) (val1.intValue() + val2.intValue());
   };
 
-  private static final AggregationFunction AGGREGATION_MINUS = (val1, val2) -> {
-    if (val1 instanceof Integer && val2 instanceof Integer) {
-      return val1.intValue() - val2.intValue();
+  private static final AggregationFunction AGGREGATION_MINUS = new AggregationFunction() {
+
+    @Override
+    public long apply(long val1, long val2) {
+      return val1 - val2;
+    }
+
+    @Override
+    public double apply(double val1, double val2) {
+      return val1 - val2;
     }
-    return (double) (val1.intValue() - val2.intValue());
   };
 
-  private static final AggregationFunction AGGREGRATION_TIMES = (val1, val2) -> {
-    if (val1 instanceof Integer && val2 instanceof Integer) {
-      return val1.intValue() * val2.intValue();
+  private static final AggregationFunction AGGREGRATION_TIMES = new AggregationFunction() {
+
+    @Override
+    public long apply(long val1, long val2) {
+      return val1 * val2;
+    }
+
+    @Override
+    public double apply(double val1, double val2) {
+      return val1 * val2;
     }
-    return (double) (val1.intValue() * val2.intValue());
   };
 
-  private static final AggregationFunction AGGREGATION_NEGATE = (val1, val2) -> {
-    if (val1 instanceof Integer && val2 instanceof Integer) {
-      return -val1.intValue();
+  private static final AggregationFunction AGGREGATION_NEGATE = new AggregationFunction() {
+
+    @Override
+    public long apply(long val1, long val2) {
+      return -val1;
+    }
+
+    @Override
+    public double apply(double val1, double val2) {
+      return -val1;
+    }
+  };
+
+  private static final AggregationFunction AGGREGATION_ABS = new AggregationFunction() {
+
+    @Override
+    public long apply(long val1, long val2) {
+      return Math.abs(val1);
+    }
+
+    @Override
+    public double apply(double val1, double val2) {
+      return Math.abs(val1);
+    }
+  };
+
+  private static final AggregationFunction AGGREGATION_SIGN = new AggregationFunction() {
+
+    @Override
+    public long apply(long val1, long val2) {
+      return Long.signum(val1);
+    }
+
+    @Override
+    public double apply(double val1, double val2) {
+      return Math.signum(val1);
     }
-    return (double) -val1.intValue();
   };
 
 
@@ -132,6 +213,16 @@ public class CoreLibrary extends LibraryBase {
             case "var" -> var(currentVars, arg0);
             case "exists" -> exists(currentVars, arg0);
             case "optional" -> optional(currentVars, arg0);
+            case "minus" -> minus(currentVars, arg0);
+            case "abs" -> abs(currentVars, arg0);
+            case "sign" -> sign(currentVars, arg0);
+            case "bitNot" -> bitNot(currentVars, arg0);
+            case "assert" -> assert_(currentVars, arg0);
+            case "assertz" -> assertz(currentVars, arg0);
+            case "asserta" -> asserta(currentVars, arg0);
+            case "retract" -> retract(currentVars, arg0);
+            case "retractall" -> retractall(currentVars, arg0);
+            case "distinct_memory_limit" -> distinct_memory_limit(currentVars, arg0);
             case null, default -> NO_DIRECT_INVOCATION_USE_REFLECTION;
         };
     } else if (arity == 2) {
@@ -144,13 +235,37 @@ public class CoreLibrary extends LibraryBase {
             case "plus" -> plus(currentVars, arg0, arg1);
             case "minus" -> minus(currentVars, arg0, arg1);
             case "multiply" -> multiply(currentVars, arg0, arg1);
+            case "divide" -> divide(currentVars, arg0, arg1);
+            case "intDivide" -> intDivide(currentVars, arg0, arg1);
+            case "mod" -> mod(currentVars, arg0, arg1);
+            case "rem" -> rem(currentVars, arg0, arg1);
+            case "min" -> min(currentVars, arg0, arg1);
+            case "max" -> max(currentVars, arg0, arg1);
+            case "shiftLeft" -> shiftLeft(currentVars, arg0, arg1);
+            case "shiftRight" -> shiftRight(currentVars, arg0, arg1);
+            case "bitAnd" -> bitAnd(currentVars, arg0, arg1);
+            case "bitOr" -> bitOr(currentVars, arg0, arg1);
+            case "xor" -> xor(currentVars, arg0, arg1);
             case "notUnify" -> notUnify(currentVars, arg0, arg1);
             case "clause" -> clause(currentVars, arg0, arg1);
             case "predicate2PList" -> predicate2PList(currentVars, arg0, arg1);
             case "atom_length" -> atom_length(currentVars, arg0, arg1);
             case "length" -> length(currentVars, arg0, arg1);
+            case "member" -> member(currentVars, arg0, arg1);
+            case "reverse" -> reverse(currentVars, arg0, arg1);
+            case "sort" -> sort(currentVars, arg0, arg1);
+            case "msort" -> msort(currentVars, arg0, arg1);
+            case "keysort" -> keysort(currentVars, arg0, arg1);
+            case "nb_setval" -> nb_setval(currentVars, arg0, arg1);
+            case "b_setval" -> b_setval(currentVars, arg0, arg1);
+            case "nb_getval" -> nb_getval(currentVars, arg0, arg1);
             case "count" -> count(currentVars, arg0, arg1);
             case "distinct" -> distinct(currentVars, arg0, arg1);
+            case "sum_list" -> sum_list(currentVars, arg0, arg1);
+            case "max_list" -> max_list(currentVars, arg0, arg1);
+            case "min_list" -> min_list(currentVars, arg0, arg1);
+            case "max_member" -> max_member(currentVars, arg0, arg1);
+            case "min_member" -> min_member(currentVars, arg0, arg1);
             case null, default -> NO_DIRECT_INVOCATION_USE_REFLECTION;
         };
     } else if (arity == 3) {
@@ -161,6 +276,28 @@ public class CoreLibrary extends LibraryBase {
         result = findall(currentVars, arg0, arg1, arg2);
       } else if (theMethodName == "distinct") {
         result = distinct(currentVars, arg0, arg1, arg2);
+      } else if (theMethodName == "aggregate_all") {
+        result = aggregate_all(currentVars, arg0, arg1, arg2);
+      } else if (theMethodName == "append") {
+        result = append(currentVars, arg0, arg1, arg2);
+      } else if (theMethodName == "takeout") {
+        result = takeout(currentVars, arg0, arg1, arg2);
+      } else if (theMethodName == "deletelist") {
+        result = deletelist(currentVars, arg0, arg1, arg2);
+      } else if (theMethodName == "subtract") {
+        result = subtract(currentVars, arg0, arg1, arg2);
+      } else if (theMethodName == "compare") {
+        result = compare(currentVars, arg0, arg1, arg2);
+      } else if (theMethodName == "predsort") {
+        result = predsort(currentVars, arg0, arg1, arg2);
+      } else {
+        result = NO_DIRECT_INVOCATION_USE_REFLECTION;
+      }
+    } else if (arity == 4) {
+      if (theMethodName == "aggregate_all") {
+        result = aggregate_all(currentVars, goalStructArgs[0], goalStructArgs[1], goalStructArgs[2], goalStructArgs[3]);
+      } else if (theMethodName == "sort") {
+        result = sort(currentVars, goalStructArgs[0], goalStructArgs[1], goalStructArgs[2], goalStructArgs[3]);
       } else {
         result = NO_DIRECT_INVOCATION_USE_REFLECTION;
       }
@@ -272,7 +409,7 @@ public class CoreLibrary extends LibraryBase {
     final Object value = currentVars.reify(theAtom);
     ensureBindingIsNotAFreeVar(value, "atom_length/2", 0);
     final String atomText = value.toString();
-    final Long atomLength = (long) atomText.length();
+    final Integer atomLength = Numbers.valueOf(atomText.length());
     return unify(currentVars, atomLength, theLength);
   }
 
@@ -360,7 +497,7 @@ public class CoreLibrary extends LibraryBase {
     getProlog().getSolver().solveGoal(effectiveGoal, currentVars.withListener(listenerForSubGoal));
 
     // And unify with result of counting (as Integer)
-    final Integer counted = listenerForSubGoal.count();
+    final Integer counted = Numbers.valueOf(listenerForSubGoal.count());
     return unify(currentVars, theNumber, counted);
   }
 
@@ -392,8 +529,18 @@ public class CoreLibrary extends LibraryBase {
   @Predicate
   public int distinct(UnifyContext currentVars, final Object theTemplate, final Object theGoal,
                       final Object theResult) {
-    final LinkedHashSet<Object> distinctReifiedResults = new LinkedHashSet<>(100); // A set to avoid duplicates, but keep order
-    collectReifiedResults(currentVars, theTemplate, theGoal, distinctReifiedResults);
+    final ArrayList<Object> distinctReifiedResults = new ArrayList<>(100); // Keep order of first occurrence
+    try (final DistinctSet seen = newDistinctSet()) {
+      final SolutionListener listenerForSubGoal = vars -> {
+        final Object templateReified = vars.reify(theTemplate);
+        if (seen.add(templateReified)) {
+          distinctReifiedResults.add(templateReified);
+        }
+        return Continuation.CONTINUE;
+      };
+      final Object effectiveGoal = currentVars.reify(theGoal);
+      getProlog().getSolver().solveGoal(effectiveGoal, currentVars.withListener(listenerForSubGoal));
+    }
 
     // Convert all results into a prolog list structure
     // Note on var indexes: all variables present in the projection term will be
@@ -408,18 +555,127 @@ public class CoreLibrary extends LibraryBase {
 
   /**
    * distinct/2
+   * Solutions are emitted as soon as found, only those whose template value was not seen before; the goal is not
+   * solved entirely beforehand.
    * @param currentVars
    * @param theTemplate What to project (the values we want to "distinct"). Usually a single var, but could be a struct.
    * @param theGoal What to solve
-   * @return For all solutions of theGoal, collect values from theTemplate and emit solutions for the distinct ones.
+   * @return For all solutions of theGoal, emit solutions for the ones with a distinct value of theTemplate.
    */
   @Predicate
   public int distinct(UnifyContext currentVars, final Object theTemplate, final Object theGoal) {
-    final LinkedHashSet<Object> distinctReifiedResults = new LinkedHashSet<>(100); // A set to avoid duplicates, but keep order
-    collectReifiedResults(currentVars, theTemplate, theGoal, distinctReifiedResults);
+    final SolutionListener downstream = currentVars.getSolutionListener();
+    try (final DistinctSet seen = newDistinctSet()) {
+      final SolutionListener listenerForSubGoal = vars -> {
+        if (seen.add(vars.reify(theTemplate))) {
+          return downstream.onSolution(vars);
+        }
+        return Continuation.CONTINUE;
+      };
+      final Object effectiveGoal = currentVars.reify(theGoal);
+      return getProlog().getSolver().solveGoal(effectiveGoal, currentVars.withListener(listenerForSubGoal));
+    }
+  }
+
+  private DistinctSet newDistinctSet() {
+    return new DistinctSet(this.distinctInMemoryLimit, this.distinctSpillDirectory);
+  }
+
+  /**
+   * Bound the memory used by distinct/2 and distinct/3: above theLimit distinct values, further values are remembered
+   * by fingerprint in a temporary file of theSpillDirectory rather than on the heap.
+   * The limit may also be set with the system property {@link #PROPERTY_DISTINCT_MEMORY_LIMIT}, with
+   * {@link org.logic2j.contrib.helper.FluentPrologBuilder#withDistinctMemoryLimit(int)}, or from Prolog
+   * with distinct_memory_limit/1.
+   * The setting is global to this engine: it applies to all solves, on all threads, from the next distinct/2 or
+   * distinct/3 started.
+   * @param theLimit Number of values held in memory, Integer.MAX_VALUE (the default) to never spill to disk
+   * @param theSpillDirectory Where to create temporary files
+   */
+  public void setDistinctMemoryLimit(int theLimit, File theSpillDirectory) {
+    this.distinctInMemoryLimit = theLimit;
+    this.distinctSpillDirectory = theSpillDirectory;
+  }
 
-    for (Object element: distinctReifiedResults) {
-      final int result = unifyAndNotify(currentVars, theTemplate, element);
+  /**
+   * distinct_memory_limit/1: read or set the number of values distinct/2 and distinct/3 hold in memory,
+   * for the whole engine, see {@link #setDistinctMemoryLimit(int, File)}.
+   * @param currentVars
+   * @param theLimit A positive integer to set the limit, or a free var to obtain it
+   * @return Succeeds once
+   */
+  @Predicate
+  public int distinct_memory_limit(UnifyContext currentVars, Object theLimit) {
+    final Object limit = currentVars.reify(theLimit);
+    if (limit instanceof Var<?>) {
+      return unify(currentVars, limit, Numbers.valueOf(this.distinctInMemoryLimit));
+    }
+    if (!(limit instanceof Number number) || !Numbers.isIntegral(number) || number.longValue() < 1) {
+      throw new InvalidTermException("distinct_memory_limit/1 requires a positive integer, got: " + limit);
+    }
+    this.distinctInMemoryLimit = (int) Math.min(number.longValue(), Integer.MAX_VALUE);
+    return notifySolution(currentVars);
+  }
+
+  /**
+   * aggregate_all/3: aggregate_all(count, Goal, Count), aggregate_all(sum(Expr), Goal, Sum),
+   * aggregate_all(max(Expr), Goal, Max), aggregate_all(min(Expr), Goal, Min),
+   * aggregate_all(bag(Template), Goal, List) or aggregate_all(set(Template), Goal, SortedList).
+   * Solutions of theGoal are folded as they are found, only bag and set build a list.
+   * @param currentVars
+   * @param theSpec The aggregation specification
+   * @param theGoal What to solve
+   * @param theResult The aggregated value
+   * @return Succeeds once; max and min fail when theGoal has no solution.
+   */
+  @Predicate
+  public int aggregate_all(UnifyContext currentVars, final Object theSpec, final Object theGoal, final Object theResult) {
+    final Object spec = currentVars.reify(theSpec);
+    ensureBindingIsNotAFreeVar(spec, "aggregate_all/3", 0);
+    final AggregatingSolutionListener listenerForSubGoal = new AggregatingSolutionListener(Aggregator.fromSpec(spec), null);
+    // Now solve the target sub goal
+    final Object effectiveGoal = currentVars.reify(theGoal);
+    getProlog().getSolver().solveGoal(effectiveGoal, currentVars.withListener(listenerForSubGoal));
+
+    final Object aggregated = listenerForSubGoal.result();
+    if (aggregated == null) {
+      // Nothing to aggregate
+      return Continuation.CONTINUE;
+    }
+    return unify(currentVars, theResult, aggregated);
+  }
+
+  /**
+   * aggregate_all/4: like aggregate_all/3 but grouping solutions by the value of theGroup, as SQL's GROUP BY.
+   * For instance aggregate_all(sum(Amount), Customer, order(Customer, Amount), Total).
+   * Memory is proportional to the number of groups, not to the number of solutions.
+   * @param currentVars
+   * @param theSpec The aggregation specification, see aggregate_all/3
+   * @param theGroup The grouping key, usually a var or a struct of vars bound by theGoal
+   * @param theGoal What to solve
+   * @param theResult The aggregated value for each group
+   * @return One solution per distinct group, in the order groups were first found, binding theGroup and theResult.
+   */
+  @Predicate
+  public int aggregate_all(UnifyContext currentVars, final Object theSpec, final Object theGroup, final Object theGoal,
+                           final Object theResult) {
+    final Object spec = currentVars.reify(theSpec);
+    ensureBindingIsNotAFreeVar(spec, "aggregate_all/4", 0);
+    final AggregatingSolutionListener listenerForSubGoal = new AggregatingSolutionListener(Aggregator.fromSpec(spec), theGroup);
+    // Now solve the target sub goal
+    final Object effectiveGoal = currentVars.reify(theGoal);
+    getProlog().getSolver().solveGoal(effectiveGoal, currentVars.withListener(listenerForSubGoal));
+
+    for (final Map.Entry<Object, Aggregator> group : listenerForSubGoal.groups().entrySet()) {
+      final Object aggregated = group.getValue().result();
+      if (aggregated == null) {
+        continue;
+      }
+      final UnifyContext afterGroup = currentVars.unify(theGroup, group.getKey());
+      if (afterGroup == null) {
+        continue;
+      }
+      final int result = unifyAndNotify(afterGroup, theResult, aggregated);
       if (result != Continuation.CONTINUE) {
         return result;
       }
@@ -427,6 +683,239 @@ public class CoreLibrary extends LibraryBase {
     return Continuation.CONTINUE;
   }
 
+  /**
+   * member/2
+   * Proper lists are walked natively; when the list is partial (ends with a free var), the Prolog definition
+   * takes over at its tail and enumerates ever longer lists.
+   * @param currentVars
+   * @param theElement
+   * @param theList
+   * @return One solution per element of theList unifying with theElement
+   */
+  @Predicate
+  public int member(UnifyContext currentVars, Object theElement, Object theList) {
+    Object running = currentVars.reify(theList);
+    while (running instanceof Struct<?> node && PrologLists.isListNode(node)) {
+      final int result = unifyAndNotify(currentVars, theElement, node.getLHS());
+      if (result != Continuation.CONTINUE) {
+        return result;
+      }
+      running = node.getRHS();
+    }
+    if (running instanceof Var<?>) {
+      return solveWithClauses(currentVars, "member", theElement, running);
+    }
+    return Continuation.CONTINUE;
+  }
+
+  /**
+   * append/3
+   * Deterministic when the first list is proper; enumerates all splits of the result (shortest prefix first) when
+   * the result is a proper list; otherwise uses the Prolog definition.
+   * @param currentVars
+   * @param theFirst
+   * @param theSecond
+   * @param theResult
+   * @return Solutions where theResult is the concatenation of theFirst and theSecond
+   */
+  @Predicate
+  public int append(UnifyContext currentVars, Object theFirst, Object theSecond, Object theResult) {
+    final Object first = currentVars.reify(theFirst);
+    final List<Struct<?>> firstNodes = properListNodes(first);
+    if (firstNodes != null) {
+      Object appended = currentVars.reify(theSecond);
+      for (int i = firstNodes.size() - 1; i >= 0; i--) {
+        appended = PrologLists.createPList(firstNodes.get(i).getLHS(), appended);
+      }
+      return unify(currentVars, theResult, appended);
+    }
+    final List<Struct<?>> resultNodes = properListNodes(currentVars.reify(theResult));
+    if (resultNodes == null) {
+      return solveWithClauses(currentVars, "append", theFirst, theSecond, theResult);
+    }
+    final int size = resultNodes.size();
+    for (int i = 0; i <= size; i++) {
+      final Object suffix = i < size ? resultNodes.get(i) : PrologLists.EMPTY_LIST;
+      final UnifyContext afterFirst = currentVars.unify(first, prefixOf(resultNodes, i, PrologLists.EMPTY_LIST));
+      if (afterFirst != null) {
+        final int result = unifyAndNotify(afterFirst, theSecond, suffix);
+        if (result != Continuation.CONTINUE) {
+          return result;
+        }
+      }
+    }
+    return Continuation.CONTINUE;
+  }
+
+  /**
+   * reverse/2
+   * @param currentVars
+   * @param theList
+   * @param theReversed
+   * @return theList in reverse order, or the reverse of theReversed when only that one is a proper list
+   * (the Prolog definition would not terminate); other partial lists are handled by the Prolog definition
+   */
+  @Predicate
+  public int reverse(UnifyContext currentVars, Object theList, Object theReversed) {
+    final List<Struct<?>> nodes = properListNodes(currentVars.reify(theList));
+    if (nodes != null) {
+      return unify(currentVars, theReversed, reversedOf(nodes));
+    }
+    final List<Struct<?>> reversedNodes = properListNodes(currentVars.reify(theReversed));
+    if (reversedNodes != null) {
+      return unify(currentVars, theList, reversedOf(reversedNodes));
+    }
+    return solveWithClauses(currentVars, "reverse", theList, theReversed);
+  }
+
+  private static Object reversedOf(List<Struct<?>> theNodes) {
+    Object reversed = PrologLists.EMPTY_LIST;
+    for (Struct<?> node : theNodes) {
+      reversed = PrologLists.createPList(node.getLHS(), reversed);
+    }
+    return reversed;
+  }
+
+  /**
+   * takeout/3
+   * @param currentVars
+   * @param theElement
+   * @param theList
+   * @param theRest
+   * @return One solution per element of theList unifying with theElement, theRest being theList without it.
+   * When theList is not a proper list (e.g. to insert into theRest), the Prolog definition is used.
+   */
+  @Predicate
+  public int takeout(UnifyContext currentVars, Object theElement, Object theList, Object theRest) {
+    final List<Struct<?>> nodes = properListNodes(currentVars.reify(theList));
+    if (nodes == null) {
+      return solveWithClauses(currentVars, "takeout", theElement, theList, theRest);
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      final Struct<?> node = nodes.get(i);
+      final UnifyContext afterElement = currentVars.unify(theElement, node.getLHS());
+      if (afterElement != null) {
+        final int result = unifyAndNotify(afterElement, theRest, prefixOf(nodes, i, node.getRHS()));
+        if (result != Continuation.CONTINUE) {
+          return result;
+        }
+      }
+    }
+    return Continuation.CONTINUE;
+  }
+
+  /**
+   * deletelist/3, also known as subtract/3
+   * When both lists are ground, unification is equality and elements to remove are looked up in a hash set
+   * (O(n+m) instead of O(n*m)); otherwise every element is tried for unification against the ones to remove,
+   * without binding anything. Partial lists are handled by the Prolog definition.
+   * @param currentVars
+   * @param theElements
+   * @param theToRemove
+   * @param theRemaining
+   * @return theElements without those unifying with any of theToRemove, in their original order
+   */
+  @Predicate
+  public int deletelist(UnifyContext currentVars, Object theElements, Object theToRemove, Object theRemaining) {
+    final Object elements = currentVars.reify(theElements);
+    final Object toRemove = currentVars.reify(theToRemove);
+    final List<Struct<?>> elementNodes = properListNodes(elements);
+    final List<Struct<?>> toRemoveNodes = properListNodes(toRemove);
+    if (elementNodes == null || toRemoveNodes == null) {
+      return solveWithClauses(currentVars, "deletelist", theElements, theToRemove, theRemaining);
+    }
+    final ArrayList<Object> remaining = new ArrayList<>(elementNodes.size());
+    if (isGround(elements) && isGround(toRemove)) {
+      final HashSet<TermKey> removed = new HashSet<>(toRemoveNodes.size() * 2);
+      for (Struct<?> node : toRemoveNodes) {
+        removed.add(new TermKey(node.getLHS()));
+      }
+      for (Struct<?> node : elementNodes) {
+        if (!removed.contains(new TermKey(node.getLHS()))) {
+          remaining.add(node.getLHS());
+        }
+      }
+    } else {
+      for (Struct<?> node : elementNodes) {
+        boolean unifiesWithOne = false;
+        for (Struct<?> removedNode : toRemoveNodes) {
+          if (currentVars.unify(node.getLHS(), removedNode.getLHS()) != null) {
+            unifiesWithOne = true;
+            break;
+          }
+        }
+        if (!unifiesWithOne) {
+          remaining.add(node.getLHS());
+        }
+      }
+    }
+    return unify(currentVars, theRemaining, PrologLists.createPList(remaining));
+  }
+
+  /**
+   * subtract/3, see {@link #deletelist(UnifyContext, Object, Object, Object)}
+   */
+  @Predicate
+  public int subtract(UnifyContext currentVars, Object theElements, Object theToRemove, Object theRemaining) {
+    return deletelist(currentVars, theElements, theToRemove, theRemaining);
+  }
+
+  /**
+   * @param theList A reified term
+   * @return The '.'/2 nodes of theList, or null if it is not a proper list (not a list, or a partial list)
+   */
+  private static List<Struct<?>> properListNodes(Object theList) {
+    final ArrayList<Struct<?>> nodes = new ArrayList<>();
+    Object running = theList;
+    while (running instanceof Struct<?> node && PrologLists.isListNode(node)) {
+      nodes.add(node);
+      running = node.getRHS();
+    }
+    if (running instanceof Struct<?> last && PrologLists.isEmptyList(last)) {
+      return nodes;
+    }
+    return null;
+  }
+
+  /**
+   * @return A new list with the heads of the first theLength nodes, ending with theTail.
+   */
+  private static Object prefixOf(List<Struct<?>> theNodes, int theLength, Object theTail) {
+    Object result = theTail;
+    for (int i = theLength - 1; i >= 0; i--) {
+      result = PrologLists.createPList(theNodes.get(i).getLHS(), result);
+    }
+    return result;
+  }
+
+  /**
+   * @param theTerm A reified term
+   * @return true if theTerm contains no free var
+   */
+  static boolean isGround(Object theTerm) {
+    Object running = theTerm;
+    while (running instanceof Struct<?> struct && struct.getArity() > 0) {
+      final int last = struct.getArity() - 1;
+      for (int i = 0; i < last; i++) {
+        if (!isGround(struct.getArg(i))) {
+          return false;
+        }
+      }
+      running = struct.getArg(last);
+    }
+    return !(running instanceof Var<?>);
+  }
+
+  /**
+   * Solve a goal against the Prolog clauses only: a Struct created here is not normalized, so it has no
+   * primitive attached and the Prolog definition of the same predicate in CoreLibrary.pro applies.
+   * This is how native list predicates delegate the modes they do not handle, such as partial lists.
+   */
+  private int solveWithClauses(UnifyContext currentVars, String thePredicateName, Object... theArguments) {
+    final Struct<?> goal = new Struct<>(thePredicateName, theArguments);
+    return getProlog().getSolver().solveGoal(goal, currentVars);
+  }
+
   /**
    * @param currentVars
    * @param theList
@@ -440,11 +929,526 @@ public class CoreLibrary extends LibraryBase {
     if (!PrologLists.isList(value)) {
       throw new InvalidTermException("A Prolog list is required for length/2,  was " + value);
     }
-    final ArrayList<Object> javalist = PrologLists.javaListFromPList(((Struct<?>) value), new ArrayList<>(), Object.class);
-    final Integer listLength = javalist.size();
+    // Walk the list nodes, no need to collect the elements just for counting
+    final Integer listLength = Numbers.valueOf(PrologLists.listSize((Struct<?>) value));
     return unify(currentVars, listLength, theLength);
   }
 
+  /**
+   * sum_list/2
+   * @param currentVars
+   * @param theList A Prolog list, or a Java array or collection, of numbers
+   * @param theSum
+   * @return Sum of all elements, 0 for an empty list
+   */
+  @Predicate
+  public int sum_list(UnifyContext currentVars, Object theList, Object theSum) {
+    final NumericAccumulator accumulator = accumulateNumbers(currentVars, theList, "sum_list/2");
+    return unify(currentVars, theSum, accumulator.sum());
+  }
+
+  /**
+   * max_list/2
+   * @return Greatest number of the list, fails on an empty list
+   */
+  @Predicate
+  public int max_list(UnifyContext currentVars, Object theList, Object theMax) {
+    final NumericAccumulator accumulator = accumulateNumbers(currentVars, theList, "max_list/2");
+    if (accumulator.count() == 0) {
+      return Continuation.CONTINUE;
+    }
+    return unify(currentVars, theMax, accumulator.max());
+  }
+
+  /**
+   * min_list/2
+   * @return Lowest number of the list, fails on an empty list
+   */
+  @Predicate
+  public int min_list(UnifyContext currentVars, Object theList, Object theMin) {
+    final NumericAccumulator accumulator = accumulateNumbers(currentVars, theList, "min_list/2");
+    if (accumulator.count() == 0) {
+      return Continuation.CONTINUE;
+    }
+    return unify(currentVars, theMin, accumulator.min());
+  }
+
+  /**
+   * nb_setval/2
+   * @param currentVars
+   * @param theKey An atom, prefixed with "thread." for a variable local to the current thread, otherwise global to the engine
+   * @param theValue Stored reified; the assignment survives backtracking
+   * @return One solution
+   */
+  @Predicate
+  public int nb_setval(UnifyContext currentVars, Object theKey, Object theValue) {
+    final String key = globalVariableName(currentVars, theKey, "nb_setval/2");
+    getProlog().getTermAdapter().setVariable(key, currentVars.reify(theValue));
+    return notifySolution(currentVars);
+  }
+
+  /**
+   * b_setval/2
+   * Same as nb_setval/2 but the previous value is restored when backtracking over this goal.
+   * @param currentVars
+   * @param theKey
+   * @param theValue
+   * @return One solution
+   */
+  @Predicate
+  public int b_setval(UnifyContext currentVars, Object theKey, Object theValue) {
+    final String key = globalVariableName(currentVars, theKey, "b_setval/2");
+    final TermAdapter termAdapter = getProlog().getTermAdapter();
+    final Object previous = termAdapter.getVariable(key);
+    termAdapter.setVariable(key, currentVars.reify(theValue));
+    try {
+      return notifySolution(currentVars);
+    } finally {
+      // Solutions have all been delivered: we are backtracking
+      termAdapter.setVariable(key, previous);
+    }
+  }
+
+  /**
+   * nb_getval/2
+   * @param currentVars
+   * @param theKey
+   * @param theValue
+   * @return theValue unified with the variable's value; fails when the variable is not defined
+   */
+  @Predicate
+  public int nb_getval(UnifyContext currentVars, Object theKey, Object theValue) {
+    final String key = globalVariableName(currentVars, theKey, "nb_getval/2");
+    final Object value = getProlog().getTermAdapter().getVariable(key);
+    if (value == null) {
+      return Continuation.CONTINUE;
+    }
+    return unifyAndNotify(currentVars, theValue, value);
+  }
+
+  private String globalVariableName(UnifyContext currentVars, Object theKey, String nameOfPrimitive) {
+    final Object key = currentVars.reify(theKey);
+    ensureBindingIsNotAFreeVar(key, nameOfPrimitive, 0);
+    if (!termApiExt().isAtom(key)) {
+      throw new InvalidTermException("Primitive \"" + nameOfPrimitive + "\" requires an atom as key, got: " + key);
+    }
+    return key.toString();
+  }
+
+  /**
+   * compare/3
+   * @param currentVars
+   * @param theOrder Unified with the atom <, = or >
+   * @param t1
+   * @param t2
+   * @return One solution with theOrder of t1 relative to t2 in the standard order of terms
+   */
+  @Predicate
+  public int compare(UnifyContext currentVars, Object theOrder, Object t1, Object t2) {
+    final int comparison = StandardOrderComparator.INSTANCE.compare(currentVars.reify(t1), currentVars.reify(t2));
+    return unify(currentVars, theOrder, comparison < 0 ? ORDER_LESS : (comparison > 0 ? ORDER_GREATER : ORDER_EQUAL));
+  }
+
+  /**
+   * sort/2
+   * @return theList sorted in the standard order of terms, duplicates removed
+   */
+  @Predicate
+  public int sort(UnifyContext currentVars, Object theList, Object theSorted) {
+    final Object[] elements = elementsOfProperList(currentVars, theList, "sort/2");
+    Arrays.sort(elements, StandardOrderComparator.INSTANCE);
+    return unify(currentVars, theSorted, PrologLists.createPList(withoutDuplicates(elements, StandardOrderComparator.INSTANCE)));
+  }
+
+  /**
+   * msort/2
+   * @return theList sorted in the standard order of terms, duplicates kept
+   */
+  @Predicate
+  public int msort(UnifyContext currentVars, Object theList, Object theSorted) {
+    final Object[] elements = elementsOfProperList(currentVars, theList, "msort/2");
+    Arrays.sort(elements, StandardOrderComparator.INSTANCE);
+    return unify(currentVars, theSorted, PrologLists.createPList(elements));
+  }
+
+  /**
+   * sort/4
+   * @param currentVars
+   * @param theKey 0 to sort on whole elements, N to sort on their Nth argument
+   * @param theOrder One of @&lt; or @&gt; (remove elements with duplicate keys), @=&lt; or @&gt;= (keep them)
+   * @param theList
+   * @param theSorted
+   * @return theList sorted, stable
+   */
+  @Predicate
+  public int sort(UnifyContext currentVars, Object theKey, Object theOrder, Object theList, Object theSorted) {
+    final Object key = currentVars.reify(theKey);
+    if (!(key instanceof Integer keyIndex) || keyIndex < 0) {
+      throw new InvalidTermException("Key of sort/4 must be a non-negative integer, was " + key);
+    }
+    final String order = String.valueOf(currentVars.reify(theOrder));
+    final boolean descending;
+    final boolean removeDuplicates;
+    switch (order) {
+      case "@<" -> { descending = false; removeDuplicates = true; }
+      case "@=<" -> { descending = false; removeDuplicates = false; }
+      case "@>" -> { descending = true; removeDuplicates = true; }
+      case "@>=" -> { descending = true; removeDuplicates = false; }
+      default -> throw new InvalidTermException("Order of sort/4 must be one of @<, @=<, @> or @>=, was " + order);
+    }
+    final Object[] elements = elementsOfProperList(currentVars, theList, "sort/4");
+    final Comparator<Object> byKey = (e1, e2) -> StandardOrderComparator.INSTANCE.compare(sortKey(e1, keyIndex), sortKey(e2, keyIndex));
+    final Comparator<Object> comparator = descending ? byKey.reversed() : byKey;
+    Arrays.sort(elements, comparator);
+    final Object[] sorted = removeDuplicates ? withoutDuplicates(elements, comparator) : elements;
+    return unify(currentVars, theSorted, PrologLists.createPList(sorted));
+  }
+
+  /**
+   * keysort/2
+   * @return theList of Key-Value pairs sorted by Key in the standard order of terms, stable, duplicates kept
+   */
+  @Predicate
+  public int keysort(UnifyContext currentVars, Object theList, Object theSorted) {
+    final Object[] elements = elementsOfProperList(currentVars, theList, "keysort/2");
+    for (Object element : elements) {
+      if (!(element instanceof Struct<?> pair && pair.getArity() == 2 && pair.getName() == FUNCTOR_PAIR)) {
+        throw new InvalidTermException("Elements of keysort/2 must be Key-Value pairs, got " + element);
+      }
+    }
+    Arrays.sort(elements, (e1, e2) -> StandardOrderComparator.INSTANCE.compare(((Struct<?>) e1).getLHS(), ((Struct<?>) e2).getLHS()));
+    return unify(currentVars, theSorted, PrologLists.createPList(elements));
+  }
+
+  /**
+   * predsort/3
+   * @param currentVars
+   * @param thePredicate Called as thePredicate(Order, E1, E2), must bind Order to <, > or =
+   * @param theList
+   * @param theSorted
+   * @return theList sorted by thePredicate, elements found = to their predecessor being removed; fails if thePredicate fails
+   */
+  @Predicate
+  public int predsort(UnifyContext currentVars, Object thePredicate, Object theList, Object theSorted) {
+    final Object[] elements = elementsOfProperList(currentVars, theList, "predsort/3");
+    final Object predicate = currentVars.reify(thePredicate);
+    // A single Var is enough to receive the Order of all comparisons, since each one is solved from currentVars
+    final Var<?> order = Var.strVar("Order");
+    order.setIndex(currentVars.topVarIndex(0));
+    currentVars.topVarIndex(1);
+    final Comparator<Object> comparator = (e1, e2) -> callOrderPredicate(currentVars, predicate, order, e1, e2);
+    final Object[] sorted;
+    try {
+      Arrays.sort(elements, comparator);
+      sorted = withoutDuplicates(elements, comparator);
+    } catch (OrderPredicateFailed e) {
+      return Continuation.CONTINUE;
+    } catch (IllegalArgumentException e) {
+      throw new InvalidTermException("Predicate of predsort/3 is not a consistent order: " + predicate + ": " + e);
+    }
+    return unify(currentVars, theSorted, PrologLists.createPList(sorted));
+  }
+
+  /**
+   * Raised when the ordering predicate of predsort/3 fails, to abort sorting.
+   */
+  private static final class OrderPredicateFailed extends RuntimeException {
+    OrderPredicateFailed() {
+      super(null, null, false, false);
+    }
+  }
+
+  private int callOrderPredicate(UnifyContext currentVars, Object thePredicate, Var<?> theOrder, Object e1, Object e2) {
+    final Struct<PrimitiveInfo> goal;
+    if (thePredicate instanceof Struct<?> closure) {
+      final Object[] args = Arrays.copyOf(closure.getArgs(), closure.getArity() + 3);
+      args[closure.getArity()] = theOrder;
+      args[closure.getArity() + 1] = e1;
+      args[closure.getArity() + 2] = e2;
+      goal = new Struct<>(closure.getName(), args);
+    } else if (thePredicate instanceof String name) {
+      goal = new Struct<>(name, theOrder, e1, e2);
+    } else {
+      throw new InvalidTermException("Predicate of predsort/3 must be an atom or a compound, was " + thePredicate);
+    }
+    // The goal is built here, not parsed: attach the primitive if the predicate is one (such as compare/3)
+    termApiExt().assignPrimitiveInfo(goal, getProlog().getLibraryManager().wholeContent());
+    final Object[] result = new Object[1];
+    final SolutionListener firstSolution = vars -> {
+      result[0] = vars.reify(theOrder);
+      return Continuation.USER_ABORT;
+    };
+    getProlog().getSolver().solveGoal(goal, currentVars.withListener(firstSolution));
+    if (result[0] == null) {
+      throw new OrderPredicateFailed();
+    }
+    return switch (String.valueOf(result[0])) {
+      case ORDER_LESS -> -1;
+      case ORDER_GREATER -> 1;
+      case ORDER_EQUAL -> 0;
+      default -> throw new InvalidTermException("Predicate of predsort/3 must bind Order to <, > or =, got " + result[0]);
+    };
+  }
+
+  /**
+   * @return The elements of a proper list, as a new array
+   * @throws InvalidTermException if theList is not a proper list
+   */
+  private Object[] elementsOfProperList(UnifyContext currentVars, Object theList, String nameOfPrimitive) {
+    final Object list = currentVars.reify(theList);
+    final List<Struct<?>> nodes = properListNodes(list);
+    if (nodes == null) {
+      throw new InvalidTermException("A proper Prolog list is required for " + nameOfPrimitive + ", was " + list);
+    }
+    final Object[] elements = new Object[nodes.size()];
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = nodes.get(i).getLHS();
+    }
+    return elements;
+  }
+
+  /**
+   * @param theSorted Sorted array
+   * @return theSorted without elements comparing equal to their predecessor
+   */
+  private static Object[] withoutDuplicates(Object[] theSorted, Comparator<Object> theComparator) {
+    if (theSorted.length < 2) {
+      return theSorted;
+    }
+    int kept = 1;
+    for (int i = 1; i < theSorted.length; i++) {
+      if (theComparator.compare(theSorted[kept - 1], theSorted[i]) != 0) {
+        theSorted[kept++] = theSorted[i];
+      }
+    }
+    return kept == theSorted.length ? theSorted : Arrays.copyOf(theSorted, kept);
+  }
+
+  private static Object sortKey(Object theElement, int theKeyIndex) {
+    if (theKeyIndex == 0) {
+      return theElement;
+    }
+    if (theElement instanceof Struct<?> struct && struct.getArity() >= theKeyIndex) {
+      return struct.getArg(theKeyIndex - 1);
+    }
+    throw new InvalidTermException("Cannot sort on argument " + theKeyIndex + " of " + theElement);
+  }
+
+  /**
+   * max_member/2
+   * @return Greatest element of the list in the standard order of terms, fails on an empty list
+   */
+  @Predicate
+  public int max_member(UnifyContext currentVars, Object theMax, Object theList) {
+    return extremeMember(currentVars, theMax, theList, "max_member/2", 1);
+  }
+
+  /**
+   * min_member/2
+   * @return Lowest element of the list in the standard order of terms, fails on an empty list
+   */
+  @Predicate
+  public int min_member(UnifyContext currentVars, Object theMin, Object theList) {
+    return extremeMember(currentVars, theMin, theList, "min_member/2", -1);
+  }
+
+  private NumericAccumulator accumulateNumbers(UnifyContext currentVars, Object theList, String nameOfPrimitive) {
+    final Object value = currentVars.reify(theList);
+    ensureBindingIsNotAFreeVar(value, nameOfPrimitive, 0);
+    final NumericAccumulator accumulator = new NumericAccumulator(nameOfPrimitive);
+    forEachElement(value, nameOfPrimitive, accumulator::add);
+    return accumulator;
+  }
+
+  /**
+   * @param theSign 1 to find the greatest, -1 to find the lowest element
+   */
+  private int extremeMember(UnifyContext currentVars, Object theExtreme, Object theList, String nameOfPrimitive, int theSign) {
+    final Object value = currentVars.reify(theList);
+    ensureBindingIsNotAFreeVar(value, nameOfPrimitive, 1);
+    final Object[] extreme = new Object[1];
+    forEachElement(value, nameOfPrimitive, element -> {
+      if (extreme[0] == null || theSign * StandardOrderComparator.INSTANCE.compare(element, extreme[0]) > 0) {
+        extreme[0] = element;
+      }
+    });
+    if (extreme[0] == null) {
+      return Continuation.CONTINUE;
+    }
+    return unify(currentVars, theExtreme, extreme[0]);
+  }
+
+  /**
+   * Apply theAction to every element of a Prolog list, a Java {@link Iterable} or a Java array, without copying them
+   * into an intermediate collection.
+   *
+   * @param theList Must be reified
+   * @param nameOfPrimitive Non-functional - only to report the name of the primitive in case an Exception is thrown
+   * @param theAction
+   */
+  private void forEachElement(Object theList, String nameOfPrimitive, Consumer<Object> theAction) {
+    if (PrologLists.isList(theList)) {
+      Struct<?> running = (Struct<?>) theList;
+      while (!PrologLists.isEmptyList(running)) {
+        theAction.accept(running.getLHS());
+        final Object tail = running.getRHS();
+        if (!PrologLists.isList(tail)) {
+          throw new InvalidTermException("A proper Prolog list is required for " + nameOfPrimitive + ", was " + theList);
+        }
+        running = (Struct<?>) tail;
+      }
+    } else if (theList instanceof Iterable<?> iterable) {
+      for (final Object element : iterable) {
+        theAction.accept(element);
+      }
+    } else if (theList instanceof Object[] array) {
+      for (final Object element : array) {
+        theAction.accept(element);
+      }
+    } else if (theList instanceof int[] array) {
+      for (final int element : array) {
+        theAction.accept(Numbers.valueOf(element));
+      }
+    } else if (theList instanceof long[] array) {
+      for (final long element : array) {
+        theAction.accept(Numbers.valueOf(element));
+      }
+    } else if (theList instanceof double[] array) {
+      for (final double element : array) {
+        theAction.accept(Numbers.valueOf(element));
+      }
+    } else {
+      throw new InvalidTermException("A Prolog list, or a Java array or collection, is required for " + nameOfPrimitive + ", was " + theList);
+    }
+  }
+
+  /**
+   * assert/1, same as assertz/1.
+   */
+  @Predicate(name = "assert")
+  public int assert_(UnifyContext currentVars, Object theClause) {
+    return assertz(currentVars, theClause);
+  }
+
+  /**
+   * assertz/1
+   * @param currentVars
+   * @param theClause A fact or a rule, added after all clauses of its predicate in the {@link DynamicDatabase}
+   * @return One solution
+   */
+  @Predicate
+  public int assertz(UnifyContext currentVars, Object theClause) {
+    getProlog().getTheoryManager().getDynamicDatabase().assertz(dynamicClause(currentVars, theClause, "assertz/1"));
+    return notifySolution(currentVars);
+  }
+
+  /**
+   * asserta/1
+   * @param currentVars
+   * @param theClause A fact or a rule, added before all clauses of its predicate in the {@link DynamicDatabase}
+   * @return One solution
+   */
+  @Predicate
+  public int asserta(UnifyContext currentVars, Object theClause) {
+    getProlog().getTheoryManager().getDynamicDatabase().asserta(dynamicClause(currentVars, theClause, "asserta/1"));
+    return notifySolution(currentVars);
+  }
+
+  /**
+   * retract/1
+   * Clauses of the {@link DynamicDatabase} are considered as they were when retract/1 was called
+   * (logical update view).
+   * @param currentVars
+   * @param theClause A fact, or a rule (Head :- Body)
+   * @return One solution per matching clause, each being retracted before its solution is notified
+   */
+  @Predicate
+  public int retract(UnifyContext currentVars, Object theClause) {
+    final Object clauseValue = currentVars.reify(theClause);
+    final Object head;
+    final Object body;
+    if (clauseValue instanceof Struct<?> struct && struct.getName() == Struct.FUNCTOR_CLAUSE && struct.getArity() == 2) {
+      head = struct.getLHS();
+      body = struct.getRHS();
+    } else {
+      head = clauseValue;
+      body = Struct.ATOM_TRUE;
+    }
+    ensureBindingIsNotAFreeVar(head, "retract/1", 0);
+    final DynamicDatabase database = getProlog().getTheoryManager().getDynamicDatabase();
+    final Object[] clauseHeadAndBody = new Object[2];
+    for (final DynamicClause candidate : database.candidates(head, currentVars)) {
+      candidate.getClause().headAndBodyForSubgoal(currentVars, clauseHeadAndBody);
+      final UnifyContext varsAfterHeadUnified = currentVars.unify(head, clauseHeadAndBody[0]);
+      if (varsAfterHeadUnified == null) {
+        continue;
+      }
+      final Object clauseBody = clauseHeadAndBody[1] != null ? clauseHeadAndBody[1] : Struct.ATOM_TRUE;
+      final UnifyContext varsAfterBodyUnified = varsAfterHeadUnified.unify(body, clauseBody);
+      // Another thread may have retracted it meanwhile
+      if (varsAfterBodyUnified != null && database.retract(candidate)) {
+        final int continuation = notifySolution(varsAfterBodyUnified);
+        if (continuation != Continuation.CONTINUE) {
+          return continuation;
+        }
+      }
+    }
+    return Continuation.CONTINUE;
+  }
+
+  /**
+   * retractall/1
+   * @param currentVars
+   * @param theHead
+   * @return One solution, after all clauses of the {@link DynamicDatabase} whose head unifies with theHead were retracted
+   */
+  @Predicate
+  public int retractall(UnifyContext currentVars, Object theHead) {
+    final Object head = currentVars.reify(theHead);
+    ensureBindingIsNotAFreeVar(head, "retractall/1", 0);
+    final DynamicDatabase database = getProlog().getTheoryManager().getDynamicDatabase();
+    final Object[] clauseHeadAndBody = new Object[2];
+    for (final DynamicClause candidate : database.candidates(head, currentVars)) {
+      candidate.getClause().headAndBodyForSubgoal(currentVars, clauseHeadAndBody);
+      if (currentVars.unify(head, clauseHeadAndBody[0]) != null) {
+        database.retract(candidate);
+      }
+    }
+    return notifySolution(currentVars);
+  }
+
+  /**
+   * @return A new Clause from the current value of theClause, with fresh variables since the Clause numbers its own
+   */
+  private Clause dynamicClause(UnifyContext currentVars, Object theClause, String nameOfPrimitive) {
+    final Object clauseValue = currentVars.reify(theClause);
+    ensureBindingIsNotAFreeVar(clauseValue, nameOfPrimitive, 0);
+    final Object head = clauseValue instanceof Struct<?> struct && struct.getName() == Struct.FUNCTOR_CLAUSE && struct.getArity() == 2
+            ? struct.getLHS() : clauseValue;
+    if (!(head instanceof Struct<?> || head instanceof String)) {
+      throw new InvalidTermException("Primitive \"" + nameOfPrimitive + "\" requires a callable head, got: " + head);
+    }
+    return new Clause(getProlog(), withFreshVars(clauseValue, new HashMap<>()));
+  }
+
+  private static Object withFreshVars(Object theTerm, Map<Integer, Var<?>> theFreshVars) {
+    if (theTerm instanceof Var<?> var) {
+      if (var == Var.anon()) {
+        return var;
+      }
+      return theFreshVars.computeIfAbsent(var.getIndex(), index -> Var.strVar("V" + theFreshVars.size()));
+    }
+    if (theTerm instanceof Struct<?> struct && struct.getArity() > 0) {
+      final Object[] args = struct.getArgs();
+      final Object[] freshArgs = new Object[args.length];
+      for (int i = 0; i < args.length; i++) {
+        freshArgs[i] = withFreshVars(args[i], theFreshVars);
+      }
+      return struct.cloneWithNewArguments(freshArgs);
+    }
+    return theTerm;
+  }
+
   @Predicate
   public int clause(UnifyContext currentVars, Object theHead, Object theBody) {
     final Object headValue = currentVars.reify(theHead);
@@ -590,19 +1594,25 @@ public class CoreLibrary extends LibraryBase {
   // ---------------------------------------------------------------------------
 
 
+  /**
+   * Arithmetic on unboxed values: integral operands are computed as long, any floating operand as double.
+   */
   private interface AggregationFunction {
-    Number apply(Number val1, Number val2);
+    long apply(long val1, long val2);
+
+    double apply(double val1, double val2);
   }
 
   private Object binaryFunctor(UnifyContext currentVars, Object theTerm1, Object theTerm2,
                                AggregationFunction theEvaluationFunction) {
     final Object t1 = termApiExt().evaluate(theTerm1, currentVars);
     final Object t2 = termApiExt().evaluate(theTerm2, currentVars);
-    if (t1 instanceof Number && t2 instanceof Number) {
-      if (t1 instanceof Integer && t2 instanceof Integer) {
-        return theEvaluationFunction.apply((Number) t1, (Number) t2).intValue();
+    if (t1 instanceof Number n1 && t2 instanceof Number n2) {
+      if (Numbers.isIntegral(n1) && Numbers.isIntegral(n2)) {
+        // Integer whenever the result fits, so that it unifies with the same value parsed
+        return Numbers.integral(theEvaluationFunction.apply(n1.longValue(), n2.longValue()));
       }
-      return theEvaluationFunction.apply((Number) t1, (Number) t2).doubleValue();
+      return Numbers.valueOf(theEvaluationFunction.apply(n1.doubleValue(), n2.doubleValue()));
     }
     throw new InvalidTermException("Could not apply binaryFunctor because 2 terms are not Numbers: " + t1 + " and " + t2);
   }
@@ -640,6 +1650,138 @@ public class CoreLibrary extends LibraryBase {
    */
   @Functor(name = "-")
   public Object minus(UnifyContext currentVars, Object t1) {
-    return binaryFunctor(currentVars, t1, 0L, AGGREGATION_NEGATE);
+    return binaryFunctor(currentVars, t1, Numbers.valueOf(0), AGGREGATION_NEGATE);
+  }
+
+  /**
+   * @param currentVars
+   * @param t1
+   * @param t2
+   * @return Division; integral when both operands are integral and the division is exact, otherwise floating
+   */
+  @Functor(name = "/")
+  public Object divide(UnifyContext currentVars, Object t1, Object t2) {
+    final Object v1 = termApiExt().evaluate(t1, currentVars);
+    final Object v2 = termApiExt().evaluate(t2, currentVars);
+    if (!(v1 instanceof Number n1 && v2 instanceof Number n2)) {
+      throw new InvalidTermException("Could not apply / because 2 terms are not Numbers: " + v1 + " and " + v2);
+    }
+    if (Numbers.isIntegral(n1) && Numbers.isIntegral(n2)) {
+      final long dividend = n1.longValue();
+      final long divisor = n2.longValue();
+      if (divisor == 0) {
+        throw new InvalidTermException("Division by zero: " + n1 + " / " + n2);
+      }
+      if (dividend % divisor == 0) {
+        return Numbers.integral(dividend / divisor);
+      }
+      return Numbers.valueOf((double) dividend / divisor);
+    }
+    return Numbers.valueOf(n1.doubleValue() / n2.doubleValue());
+  }
+
+  /**
+   * @return Integer division, truncating toward zero
+   */
+  @Functor(name = "//")
+  public Object intDivide(UnifyContext currentVars, Object t1, Object t2) {
+    return integralFunctor(currentVars, t1, t2, "//", (val1, val2) -> val1 / val2);
+  }
+
+  /**
+   * @return Modulo, result has the sign of the divisor
+   */
+  @Functor
+  public Object mod(UnifyContext currentVars, Object t1, Object t2) {
+    return integralFunctor(currentVars, t1, t2, "mod", Math::floorMod);
+  }
+
+  /**
+   * @return Remainder of the integer division, result has the sign of the dividend
+   */
+  @Functor
+  public Object rem(UnifyContext currentVars, Object t1, Object t2) {
+    return integralFunctor(currentVars, t1, t2, "rem", (val1, val2) -> val1 % val2);
+  }
+
+  @Functor
+  public Object min(UnifyContext currentVars, Object t1, Object t2) {
+    return extremeFunctor(currentVars, t1, t2, "min", -1);
+  }
+
+  @Functor
+  public Object max(UnifyContext currentVars, Object t1, Object t2) {
+    return extremeFunctor(currentVars, t1, t2, "max", 1);
+  }
+
+  @Functor(name = "<<")
+  public Object shiftLeft(UnifyContext currentVars, Object t1, Object t2) {
+    return integralFunctor(currentVars, t1, t2, "<<", (val1, val2) -> val1 << val2);
+  }
+
+  @Functor(name = ">>")
+  public Object shiftRight(UnifyContext currentVars, Object t1, Object t2) {
+    return integralFunctor(currentVars, t1, t2, ">>", (val1, val2) -> val1 >> val2);
+  }
+
+  @Functor(name = "/\\")
+  public Object bitAnd(UnifyContext currentVars, Object t1, Object t2) {
+    return integralFunctor(currentVars, t1, t2, "/\\", (val1, val2) -> val1 & val2);
+  }
+
+  @Functor(name = "\\/")
+  public Object bitOr(UnifyContext currentVars, Object t1, Object t2) {
+    return integralFunctor(currentVars, t1, t2, "\\/", (val1, val2) -> val1 | val2);
+  }
+
+  @Functor
+  public Object xor(UnifyContext currentVars, Object t1, Object t2) {
+    return integralFunctor(currentVars, t1, t2, "xor", (val1, val2) -> val1 ^ val2);
+  }
+
+  @Functor(name = "\\")
+  public Object bitNot(UnifyContext currentVars, Object t1) {
+    return integralFunctor(currentVars, t1, Numbers.valueOf(0), "\\", (val1, val2) -> ~val1);
+  }
+
+  @Functor
+  public Object abs(UnifyContext currentVars, Object t1) {
+    return binaryFunctor(currentVars, t1, Numbers.valueOf(0), AGGREGATION_ABS);
+  }
+
+  @Functor
+  public Object sign(UnifyContext currentVars, Object t1) {
+    return binaryFunctor(currentVars, t1, Numbers.valueOf(0), AGGREGATION_SIGN);
+  }
+
+  /**
+   * For functors only defined on integral numbers.
+   */
+  private Object integralFunctor(UnifyContext currentVars, Object theTerm1, Object theTerm2, String theName,
+                                 LongBinaryOperator theOperation) {
+    final Object t1 = termApiExt().evaluate(theTerm1, currentVars);
+    final Object t2 = termApiExt().evaluate(theTerm2, currentVars);
+    if (!Numbers.isIntegral(t1) || !Numbers.isIntegral(t2)) {
+      throw new InvalidTermException("Could not apply " + theName + " because 2 terms are not integers: " + t1 + " and " + t2);
+    }
+    final long result;
+    try {
+      result = theOperation.applyAsLong(((Number) t1).longValue(), ((Number) t2).longValue());
+    } catch (ArithmeticException e) {
+      throw new InvalidTermException("Could not apply " + theName + " to " + t1 + " and " + t2 + ": " + e.getMessage());
+    }
+    return Numbers.integral(result);
+  }
+
+  /**
+   * @param theSign 1 for the max, -1 for the min
+   */
+  private Object extremeFunctor(UnifyContext currentVars, Object theTerm1, Object theTerm2, String theName, int theSign) {
+    final Object t1 = termApiExt().evaluate(theTerm1, currentVars);
+    final Object t2 = termApiExt().evaluate(theTerm2, currentVars);
+    if (t1 instanceof Number n1 && t2 instanceof Number n2) {
+      return theSign * Numbers.compare(n1, n2) >= 0 ? n1 : n2;
+    }
+    throw new InvalidTermException("Could not apply " + theName + " because 2 terms are not Numbers: " + t1 + " and " + t2);
   }
 }
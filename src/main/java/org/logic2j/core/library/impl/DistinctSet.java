@@ -0,0 +1,78 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.library.impl;
+
+import java.io.File;
+import java.util.HashSet;
+import org.logic2j.core.api.model.TermHash;
+
+/**
+ * Remembers the reified terms already seen by distinct/2 and distinct/3.
+ * Up to a configurable number of terms are held in memory as {@link TermKey}s (exact comparison).
+ * Beyond that limit, new terms are only remembered by a 128-bit structural fingerprint in a disk-backed
+ * {@link FingerprintStore}, so that memory stays bounded whatever the number of solutions. In that mode two different
+ * terms could in theory be taken for one another, with a probability in the order of n^2 / 2^129.
+ */
+final class DistinctSet implements AutoCloseable {
+
+  /**
+   * Seed of the second half of the fingerprint, the first half being the {@link TermKey}'s hash.
+   */
+  private static final long SECOND_SEED = 0xC2B2AE3D27D4EB4FL;
+
+  private final HashSet<TermKey> inMemory = new HashSet<>();
+
+  private final int inMemoryLimit;
+
+  private final File spillDirectory;
+
+  private FingerprintStore spilled = null;
+
+  /**
+   * @param theInMemoryLimit  Number of terms to hold in memory before spilling to disk, Integer.MAX_VALUE for never
+   * @param theSpillDirectory Where to create the fingerprint file if needed
+   */
+  DistinctSet(int theInMemoryLimit, File theSpillDirectory) {
+    this.inMemoryLimit = theInMemoryLimit;
+    this.spillDirectory = theSpillDirectory;
+  }
+
+  /**
+   * @param theReifiedTerm
+   * @return true if theReifiedTerm was not seen before (and is now remembered).
+   */
+  boolean add(Object theReifiedTerm) {
+    final TermKey key = new TermKey(theReifiedTerm);
+    if (this.spilled == null && this.inMemory.size() < this.inMemoryLimit) {
+      return this.inMemory.add(key);
+    }
+    if (this.inMemory.contains(key)) {
+      return false;
+    }
+    if (this.spilled == null) {
+      this.spilled = new FingerprintStore(this.spillDirectory, this.inMemoryLimit * 2L);
+    }
+    return this.spilled.add(key.hash64(), TermHash.hash64(theReifiedTerm, SECOND_SEED));
+  }
+
+  @Override
+  public void close() {
+    if (this.spilled != null) {
+      this.spilled.close();
+    }
+  }
+}
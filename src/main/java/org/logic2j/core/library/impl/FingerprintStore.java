@@ -0,0 +1,165 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.library.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.logic2j.engine.exception.PrologNonSpecificException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A set of 128-bit fingerprints held in a memory-mapped temporary file, not on the Java heap: an open-addressing
+ * hash table with linear probing, doubled (and rehashed into a new file) when half full.
+ * The operating system pages the file in and out, so the heap footprint is constant whatever the number of entries.
+ * The all-zero fingerprint marks free slots and is therefore never stored as such.
+ */
+final class FingerprintStore implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(FingerprintStore.class);
+
+  private static final int SLOT_BYTES = 16;
+
+  /**
+   * Slots per mapped segment (a single mapping is limited to 2 GiB): 2^26 slots, 1 GiB.
+   */
+  private static final int SEGMENT_BITS = 26;
+
+  private static final long SEGMENT_SLOTS = 1L << SEGMENT_BITS;
+
+  private final File directory;
+
+  private Path file;
+
+  private FileChannel channel;
+
+  private MappedByteBuffer[] segments;
+
+  private long capacity;
+
+  private long size = 0;
+
+  /**
+   * @param theDirectory     Where to create the temporary file
+   * @param initialCapacity  Number of slots to start with, rounded up to a power of 2
+   */
+  FingerprintStore(File theDirectory, long initialCapacity) {
+    this.directory = theDirectory;
+    final long capacity = Long.highestOneBit(Math.max(initialCapacity, 1024) - 1) << 1;
+    map(capacity);
+  }
+
+  /**
+   * @return true if the fingerprint was added, false if it was already present.
+   */
+  boolean add(long hi, long lo) {
+    final long effectiveLo = (hi == 0 && lo == 0) ? 1 : lo;
+    if ((this.size + 1) * 2 > this.capacity) {
+      grow();
+    }
+    final long mask = this.capacity - 1;
+    long slot = hi & mask;
+    while (true) {
+      final MappedByteBuffer segment = this.segments[(int) (slot >>> SEGMENT_BITS)];
+      final int offset = (int) (slot & (SEGMENT_SLOTS - 1)) * SLOT_BYTES;
+      final long storedHi = segment.getLong(offset);
+      final long storedLo = segment.getLong(offset + 8);
+      if (storedHi == 0 && storedLo == 0) {
+        segment.putLong(offset, hi);
+        segment.putLong(offset + 8, effectiveLo);
+        this.size++;
+        return true;
+      }
+      if (storedHi == hi && storedLo == effectiveLo) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  long size() {
+    return this.size;
+  }
+
+  private void grow() {
+    // The previous mapping stays referenced until everything was copied out of it
+    final MappedByteBuffer[] previousSegments = this.segments;
+    final long previousCapacity = this.capacity;
+    final FileChannel previousChannel = this.channel;
+    final Path previousFile = this.file;
+    map(previousCapacity * 2);
+    this.size = 0;
+    for (long slot = 0; slot < previousCapacity; slot++) {
+      final MappedByteBuffer segment = previousSegments[(int) (slot >>> SEGMENT_BITS)];
+      final int offset = (int) (slot & (SEGMENT_SLOTS - 1)) * SLOT_BYTES;
+      final long hi = segment.getLong(offset);
+      final long lo = segment.getLong(offset + 8);
+      if (hi != 0 || lo != 0) {
+        add(hi, lo);
+      }
+    }
+    release(previousChannel, previousFile);
+  }
+
+  private void map(long theCapacity) {
+    try {
+      this.file = Files.createTempFile(this.directory.toPath(), "logic2j-distinct-", ".bin");
+      this.channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      final int nbSegments = (int) ((theCapacity + SEGMENT_SLOTS - 1) >>> SEGMENT_BITS);
+      this.segments = new MappedByteBuffer[nbSegments];
+      for (int i = 0; i < nbSegments; i++) {
+        final long firstSlot = i * SEGMENT_SLOTS;
+        final long slots = Math.min(SEGMENT_SLOTS, theCapacity - firstSlot);
+        // Mapping beyond the end of file extends it (sparse, zero-filled)
+        this.segments[i] = this.channel.map(FileChannel.MapMode.READ_WRITE, firstSlot * SLOT_BYTES, slots * SLOT_BYTES);
+      }
+      this.capacity = theCapacity;
+    } catch (IOException e) {
+      throw new PrologNonSpecificException("Could not create fingerprint store in " + this.directory + ": " + e);
+    }
+  }
+
+  /**
+   * Close and delete a file no longer used. A mapping is only released when its buffers are garbage collected, and
+   * some platforms (Windows) refuse to delete a file still mapped: the file is then left behind, and logged.
+   */
+  private static void release(FileChannel theChannel, Path theFile) {
+    try {
+      theChannel.close();
+    } catch (IOException e) {
+      // Only a temporary file: nothing sensible to do
+    }
+    try {
+      Files.deleteIfExists(theFile);
+    } catch (IOException e) {
+      logger.warn("Could not delete temporary file {}: {}", theFile, e.toString());
+    }
+  }
+
+  @Override
+  public void close() {
+    if (this.channel != null) {
+      this.segments = null;
+      release(this.channel, this.file);
+      this.channel = null;
+    }
+  }
+}
@@ -17,6 +17,7 @@
 package org.logic2j.core.library.impl;
 
 import java.io.PrintStream;
+import org.logic2j.core.api.TermMarshaller;
 import org.logic2j.core.api.library.annotation.Predicate;
 import org.logic2j.core.impl.PrologImplementation;
 import org.logic2j.engine.model.Struct;
@@ -30,7 +31,7 @@ public class IOLibrary extends LibraryBase {
   private static final String LOGIC2J_PROLOG_LOGGER = "org.logic2j.logger";
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(LOGIC2J_PROLOG_LOGGER);
 
-  private static final String QUOTE = "'";
+  private static final char QUOTE = '\'';
 
   final PrintStream writer = System.out;
 
@@ -58,11 +59,19 @@ public class IOLibrary extends LibraryBase {
 
   @Predicate
   public int write(UnifyContext currentVars, Object... terms) {
+    final TermMarshaller marshaller = getProlog().getTermMarshaller();
+    final StringBuilder formatted = new StringBuilder();
     for (final Object term : terms) {
       final Object value = currentVars.reify(term);
-      final String formatted = getProlog().getTermMarshaller().marshall(value).toString();
-      final String unquoted = IOLibrary.unquote(formatted);
-      this.writer.print(unquoted);
+      formatted.setLength(0);
+      marshaller.marshall(value, formatted);
+      // Unquoted: drop the surrounding quotes of an atom
+      final int length = formatted.length();
+      if (length >= 2 && formatted.charAt(0) == QUOTE && formatted.charAt(length - 1) == QUOTE) {
+        this.writer.append(formatted, 1, length - 1);
+      } else {
+        this.writer.append(formatted);
+      }
     }
     return notifySolution(currentVars);
   }
@@ -113,8 +122,7 @@ public class IOLibrary extends LibraryBase {
     final StringBuilder sb = new StringBuilder("P ");
     for (final Object term : terms) {
       Object value = currentVars.reify(term);
-      final String format = getProlog().getTermMarshaller().marshall(value).toString();
-      sb.append(format);
+      getProlog().getTermMarshaller().marshall(value, sb);
       sb.append(' ');
     }
     final String substring = sb.substring(0, sb.length() - 1);
@@ -134,11 +142,4 @@ public class IOLibrary extends LibraryBase {
     return notifySolution(currentVars);
   }
 
-  private static String unquote(String st) {
-    if (st.startsWith(QUOTE) && st.endsWith(QUOTE)) {
-      return st.substring(1, st.length() - 1);
-    }
-    return st;
-  }
-
 }
@@ -0,0 +1,180 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.library.impl;
+
+import org.logic2j.core.api.library.annotation.Predicate;
+import org.logic2j.core.api.model.TermMap;
+import org.logic2j.core.impl.PrologImplementation;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.PrologLists;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.solver.Continuation;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * Associations from ground keys to values, as opaque {@link TermMap} terms with O(log n) access,
+ * instead of lists of Key-Value pairs scanned with member/2.
+ * Maps are immutable: map_put/4 and map_remove/3 produce a new map, so they behave correctly under backtracking.
+ */
+public class MapLibrary extends LibraryBase {
+  private static final String FUNCTOR_PAIR = "-";
+
+  public MapLibrary(PrologImplementation theProlog) {
+    super(theProlog);
+  }
+
+  @Override
+  public Object dispatch(String theMethodName, Struct<?> theGoalStruct, UnifyContext currentVars) {
+    final Object result;
+    final Object[] args = theGoalStruct.getArgs();
+    // Argument methodName is {@link String#intern()}alized so OK to check by reference
+    if (args.length == 2) {
+      result = switch (theMethodName) {
+        case "map_keys" -> map_keys(currentVars, args[0], args[1]);
+        case "list_to_map" -> list_to_map(currentVars, args[0], args[1]);
+        case null, default -> NO_DIRECT_INVOCATION_USE_REFLECTION;
+      };
+    } else if (args.length == 3) {
+      result = switch (theMethodName) {
+        case "map_get" -> map_get(currentVars, args[0], args[1], args[2]);
+        case "map_remove" -> map_remove(currentVars, args[0], args[1], args[2]);
+        case null, default -> NO_DIRECT_INVOCATION_USE_REFLECTION;
+      };
+    } else if (args.length == 4 && theMethodName == "map_put") {
+      result = map_put(currentVars, args[0], args[1], args[2], args[3]);
+    } else {
+      result = NO_DIRECT_INVOCATION_USE_REFLECTION;
+    }
+    return result;
+  }
+
+  /**
+   * map_put/4
+   * @param currentVars
+   * @param theMap
+   * @param theKey Must be ground
+   * @param theValue
+   * @param theNewMap Unified with theMap where theKey is associated to theValue
+   * @return One solution
+   */
+  @Predicate
+  public int map_put(UnifyContext currentVars, Object theMap, Object theKey, Object theValue, Object theNewMap) {
+    final TermMap map = mapArgument(currentVars, theMap, "map_put/4");
+    final TermMap newMap = map.put(keyArgument(currentVars, theKey, "map_put/4"), currentVars.reify(theValue));
+    return unifyAndNotify(currentVars, theNewMap, newMap);
+  }
+
+  /**
+   * map_get/3
+   * @param currentVars
+   * @param theMap
+   * @param theKey When ground, lookup in O(log n); otherwise enumerate matching entries in standard order of keys
+   * @param theValue
+   * @return One solution per matching entry
+   */
+  @Predicate
+  public int map_get(UnifyContext currentVars, Object theMap, Object theKey, Object theValue) {
+    final TermMap map = mapArgument(currentVars, theMap, "map_get/3");
+    final Object key = currentVars.reify(theKey);
+    if (CoreLibrary.isGround(key)) {
+      final Object value = map.get(key);
+      return value == null ? Continuation.CONTINUE : unifyAndNotify(currentVars, theValue, value);
+    }
+    for (TermMap.Entry entry : map) {
+      final UnifyContext afterKey = currentVars.unify(key, entry.key());
+      if (afterKey != null) {
+        final int result = unifyAndNotify(afterKey, theValue, entry.value());
+        if (result != Continuation.CONTINUE) {
+          return result;
+        }
+      }
+    }
+    return Continuation.CONTINUE;
+  }
+
+  /**
+   * map_remove/3
+   * @param currentVars
+   * @param theMap
+   * @param theKey Must be ground
+   * @param theNewMap Unified with theMap without theKey; same as theMap if theKey was absent
+   * @return One solution
+   */
+  @Predicate
+  public int map_remove(UnifyContext currentVars, Object theMap, Object theKey, Object theNewMap) {
+    final TermMap map = mapArgument(currentVars, theMap, "map_remove/3");
+    return unifyAndNotify(currentVars, theNewMap, map.remove(keyArgument(currentVars, theKey, "map_remove/3")));
+  }
+
+  /**
+   * map_keys/2
+   * @param currentVars
+   * @param theMap
+   * @param theKeys Unified with the list of keys in standard order
+   * @return One solution
+   */
+  @Predicate
+  public int map_keys(UnifyContext currentVars, Object theMap, Object theKeys) {
+    final TermMap map = mapArgument(currentVars, theMap, "map_keys/2");
+    return unifyAndNotify(currentVars, theKeys, PrologLists.createPList(map.keys()));
+  }
+
+  /**
+   * list_to_map/2
+   * @param currentVars
+   * @param theList A proper list of Key-Value pairs, later pairs replace earlier ones with the same key
+   * @param theMap
+   * @return One solution
+   */
+  @Predicate
+  public int list_to_map(UnifyContext currentVars, Object theList, Object theMap) {
+    final Object list = currentVars.reify(theList);
+    TermMap map = TermMap.EMPTY;
+    Object running = list;
+    while (running instanceof Struct<?> node && PrologLists.isListNode(node)) {
+      if (!(node.getLHS() instanceof Struct<?> pair && pair.getArity() == 2 && pair.getName() == FUNCTOR_PAIR)) {
+        throw new InvalidTermException("Elements of list_to_map/2 must be Key-Value pairs, got " + node.getLHS());
+      }
+      if (!CoreLibrary.isGround(pair.getLHS())) {
+        throw new InvalidTermException("Keys of list_to_map/2 must be ground, got " + pair.getLHS());
+      }
+      map = map.put(pair.getLHS(), pair.getRHS());
+      running = node.getRHS();
+    }
+    if (!(running instanceof Struct<?> tail && PrologLists.isEmptyList(tail))) {
+      throw new InvalidTermException("A proper Prolog list is required for list_to_map/2, was " + list);
+    }
+    return unifyAndNotify(currentVars, theMap, map);
+  }
+
+  private TermMap mapArgument(UnifyContext currentVars, Object theMap, String nameOfPrimitive) {
+    final Object map = currentVars.reify(theMap);
+    ensureBindingIsNotAFreeVar(map, nameOfPrimitive, 0);
+    if (!(map instanceof TermMap termMap)) {
+      throw new InvalidTermException("Primitive \"" + nameOfPrimitive + "\" requires a map, got: " + map);
+    }
+    return termMap;
+  }
+
+  private Object keyArgument(UnifyContext currentVars, Object theKey, String nameOfPrimitive) {
+    final Object key = currentVars.reify(theKey);
+    if (!CoreLibrary.isGround(key)) {
+      throw new InvalidTermException("Primitive \"" + nameOfPrimitive + "\" requires a ground key, got: " + key);
+    }
+    return key;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.library.impl;
+
+import org.logic2j.core.api.model.Numbers;
+import org.logic2j.engine.exception.InvalidTermException;
+
+/**
+ * Fold numbers one by one into a count, a sum, a minimum and a maximum, in constant memory.
+ * Integral values are summed as long, as soon as one floating value is met the sum becomes a double.
+ */
+final class NumericAccumulator {
+  private final String nameOfPrimitive;
+
+  private int count = 0;
+  private long longSum = 0;
+  private double doubleSum = 0;
+  private boolean floating = false;
+  private Number min = null;
+  private Number max = null;
+
+  /**
+   * @param theNameOfPrimitive Non-functional - only to report the name of the primitive in case an Exception is thrown
+   */
+  NumericAccumulator(String theNameOfPrimitive) {
+    this.nameOfPrimitive = theNameOfPrimitive;
+  }
+
+  void add(Object theValue) {
+    if (!(theValue instanceof Number number)) {
+      throw new InvalidTermException("Primitive \"" + this.nameOfPrimitive + "\" requires numbers, got: " + theValue);
+    }
+    this.count++;
+    if (Numbers.isIntegral(number)) {
+      this.longSum += number.longValue();
+    } else {
+      this.doubleSum += number.doubleValue();
+      this.floating = true;
+    }
+    if (this.min == null || Numbers.compare(number, this.min) < 0) {
+      this.min = number;
+    }
+    if (this.max == null || Numbers.compare(number, this.max) > 0) {
+      this.max = number;
+    }
+  }
+
+  int count() {
+    return this.count;
+  }
+
+  /**
+   * @return The sum, zero when nothing was added.
+   */
+  Number sum() {
+    if (this.floating) {
+      return Numbers.valueOf(this.doubleSum + this.longSum);
+    }
+    return Numbers.integral(this.longSum);
+  }
+
+  /**
+   * @return null when nothing was added.
+   */
+  Number min() {
+    return this.min;
+  }
+
+  /**
+   * @return null when nothing was added.
+   */
+  Number max() {
+    return this.max;
+  }
+}
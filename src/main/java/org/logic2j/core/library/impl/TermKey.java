@@ -0,0 +1,65 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.library.impl;
+
+import org.logic2j.core.api.model.TermHash;
+
+/**
+ * Wraps a reified term to be used as key in hashed collections, with its structural hash computed once
+ * (see {@link TermHash}) rather than walking the term tree at every hashCode().
+ * Equality is the term's own structural equality, only evaluated when hashes match.
+ */
+final class TermKey {
+
+  private final Object term;
+
+  private final long hash64;
+
+  TermKey(Object theReifiedTerm) {
+    this.term = theReifiedTerm;
+    this.hash64 = TermHash.hash64(theReifiedTerm);
+  }
+
+  Object term() {
+    return this.term;
+  }
+
+  long hash64() {
+    return this.hash64;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (this.hash64 ^ (this.hash64 >>> 32));
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof TermKey that)) {
+      return false;
+    }
+    return this.hash64 == that.hash64 && this.term.equals(that.term);
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(this.term);
+  }
+}
@@ -20,12 +20,13 @@
   * This is the Prolog part of the CoreLibrary. It defines commonly-used predicates.
   */
 
-once(Predicate) :- call((Predicate, !)).
-
 % Non-efficient implementation - could be done in Java we have the method in TermApi
 list([]).
 list([_|L]) :- list(L).
 
+% member/2, append/3, takeout/3, deletelist/3 and reverse/2 are implemented as Java Primitives in the CoreLibrary.
+% Goals calling them are solved natively; the definitions below are only reached from those primitives
+% for the modes they delegate, such as partial lists.
 member(E,[E|_]).
 member(E,[_|L]):- member(E,L).
 
@@ -50,30 +51,7 @@ perm(List, [H|Perm]) :- takeout(H, List, Rest), perm(Rest, Perm).
 perm([], []).
 
 
-% Implication (see note below regarding the implementation of OR (;))
-% if-then-else   -   Watch out: due to precedence the rule head is actually ((C->T) ; B), and it clearly conflicts with the definition of A ; B
-Cond -> Then ; Else  :- ! /* The CUT will prevent backtracking to hit the rules for (A ; B) */ ,  ( (call(Cond), !, call(Then)) ; call(Else) ).
-
-% if-then
-Cond -> Then   :- call(Cond), !, call(Then).
-
-
-
-
-
-/*
-  This is a working version of OR implemented in prolog.
-  WATCH OUT: Define the OR predicate AFTER other more complex clauses that may pattern match on it,
-  such as the definition of '->' see above. Also a "!" is needed in the above definition to not backtrack
-  to this definition. Mhh, not so good.
-
-  Generally I would prefer the more efficient and more general N-arity implementation of OR in Java, in DefaultSolver,
-  however there is ONE case in which this can't work: the definition of the implication predicate '->' is such that
-  the head is (C->T);B and if we don't rely on head matching but rather implement ";" directly in the Solver, this rule
-  won't be picked-up and '->' will not work.
-*/
-A ; B :- call(A).
-A ; B :- call(B).
+% Control constructs (;)/2, (->)/2, if-then-else and once/1 are solved natively by the Solver.
 
 
 % not/1 is now implemented as a Java Primitive in the CoreLibrary
@@ -16,11 +16,17 @@
  */
 package org.logic2j.core;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.List;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.logic2j.core.impl.IndexingSolver;
+import org.logic2j.core.impl.PrologReferenceImplementation;
+import org.logic2j.core.impl.theory.DefaultTheoryManager;
 import org.logic2j.engine.solver.holder.GoalHolder;
 import org.logic2j.engine.util.ProfilingInfo;
 
@@ -95,6 +101,43 @@ public class BenchmarkTest extends PrologTestBase {
     ProfilingInfo.reportAll("Number of solutions to " + goal + " is " + count);
   }
 
+  @Test
+  public void queensWithIndexingSolver() {
+    loadTheoryFromTestResourcesDir("queens.pro");
+    final int interpreted = getProlog().solve("queens(6, Q)").count();
+    ((PrologReferenceImplementation) getProlog()).setSolver(new IndexingSolver(getProlog()));
+    assertThat(getProlog().solve("queens(6, Q)").count()).isEqualTo(interpreted);
+    loadTheoryFromTestResourcesDir("hanoi.pro");
+    uniqueSolution("move(7,left,right,center)");
+  }
+
+  /**
+   * Before/after timing of first-argument indexing: 2000 lookups by bound first argument in 2000 facts.
+   */
+  @Test
+  public void indexedLookupsTiming() {
+    final StringBuilder facts = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      facts.append("code(").append(i).append(", c").append(i).append(").\n");
+    }
+    final DefaultTheoryManager theoryManager = (DefaultTheoryManager) getProlog().getTheoryManager();
+    theoryManager.addTheory(theoryManager.load(facts));
+    final String goal = "code(K, _), code(K, V)";
+    // Warm up, then time
+    nSolutions(2000, goal);
+    long t1 = System.currentTimeMillis();
+    final List<Object> interpretedSolutions = getProlog().solve(goal).var("V").list();
+    final long interpreted = System.currentTimeMillis() - t1;
+    ((PrologReferenceImplementation) getProlog()).setSolver(new IndexingSolver(getProlog()));
+    nSolutions(2000, goal);
+    t1 = System.currentTimeMillis();
+    final List<Object> indexedSolutions = getProlog().solve(goal).var("V").list();
+    final long indexed = System.currentTimeMillis() - t1;
+    assertThat(interpretedSolutions).hasSize(2000);
+    assertThat(indexedSolutions).isEqualTo(interpretedSolutions);
+    logger.info("2000 lookups by first argument in 2000 facts: interpreter {} ms, IndexingSolver {} ms", interpreted, indexed);
+  }
+
   @Ignore("Use this in conjunction with jvisualvm to profile - this will typically never end unless user input")
   @Test
   public void queensForJVisualVMInteractive() throws IOException {
@@ -55,6 +55,19 @@ public class ExecutionPruningTest extends PrologTestBase {
     nSolutions(2, "true; !; true; !; true");
   }
 
+  @Test
+  public void ifThenElseAndOnce() {
+    loadTheoryFromTestResourcesDir("test-functional.pro");
+    nSolutions(1, "once(a(X))");
+    nSolutions(1, "a(X) -> true ; true");
+    nSolutions(3, "true -> a(X) ; true");
+    nSolutions(0, "fail -> true");
+    nSolutions(2, "a(X), (X > 1 -> true ; fail)");
+    nSolutions(3, "a(X), (!, fail -> true ; true)");
+    assertThat(uniqueSolution("a(X), X > 1 -> Y = X ; Y = none").var("Y").unique()).isEqualTo(term(2));
+    assertThat(uniqueSolution("a(X), X > 5 -> Y = X ; Y = none").var("Y").unique()).isEqualTo(term("none"));
+  }
+
   @Test
   public void withoutCut() {
     loadTheoryFromTestResourcesDir("test-functional.pro");
@@ -2,7 +2,12 @@ package org.logic2j.core.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
+import org.logic2j.engine.model.PrologLists;
 import org.logic2j.engine.model.Struct;
 
 /**
@@ -44,4 +49,35 @@ public class DefaultTermMarshallerTest {
   public void complicated() {
     assertThat(MARSHALLER.marshall( new Struct("\t\n\na\rb\t ")) ).isEqualTo("'\t\\n\\na\\rb\t '");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void appendToStringBuilder() {
+    final StringBuilder sb = new StringBuilder("X = ");
+    final Object term = DefaultTermUnmarshallerTest.UNMARSHALLER.unmarshall("f(a + b * c, [1, 'B'|T], - 1, - x)");
+    assertThat(MARSHALLER.marshall(term, sb).toString()).isEqualTo("X = f((a + b * c), [1, 'B'|T], -1, (- x))");
+  }
+
+  @Test
+  public void operatorAssociativity() {
+    assertThat(MARSHALLER.marshall(DefaultTermUnmarshallerTest.UNMARSHALLER.unmarshall("a - (b - c)"))).isEqualTo("a - (b - c)");
+    assertThat(MARSHALLER.marshall(DefaultTermUnmarshallerTest.UNMARSHALLER.unmarshall("(a - b) - c"))).isEqualTo("a - b - c");
+    assertThat(MARSHALLER.marshall(DefaultTermUnmarshallerTest.UNMARSHALLER.unmarshall("2 ** -1"))).isEqualTo("2 ** -1");
+  }
+
+  @Test
+  public void appendToCharBuffer() throws IOException {
+    final CharBuffer buffer = CharBuffer.allocate(100);
+    MARSHALLER.marshall(new Struct<>("t", "A", "b"), buffer);
+    assertThat(buffer.flip().toString()).isEqualTo("t('A', b)");
+  }
+
+  @Test
+  public void veryLongList() {
+    final List<Object> elements = new ArrayList<>();
+    for (int i = 0; i < 200000; i++) {
+      elements.add(i);
+    }
+    final CharSequence formatted = MARSHALLER.marshall(PrologLists.createPList(elements));
+    assertThat(formatted.toString()).startsWith("[0, 1, 2, ").endsWith(", 199999]");
+  }
+}
@@ -20,7 +20,12 @@ package org.logic2j.core.impl;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.logic2j.core.impl.DefaultTermMarshallerTest.MARSHALLER;
 
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Test;
+import org.logic2j.core.api.model.Operator;
+import org.logic2j.core.api.model.OperatorDefinitions;
 import org.logic2j.engine.exception.InvalidTermException;
 import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.model.Var;
@@ -106,4 +111,124 @@ public class DefaultTermUnmarshallerTest {
     assertThat(UNMARSHALLER.unmarshall("'\t\\n\\na\\rb\t '")).isEqualTo("\t\n\na\rb\t ");
   }
 
+  @Test
+  public void numberSyntax() {
+    assertThat(UNMARSHALLER.unmarshall("0x1F")).isEqualTo(31);
+    assertThat(UNMARSHALLER.unmarshall("0b101")).isEqualTo(5);
+    assertThat(UNMARSHALLER.unmarshall("0'a")).isEqualTo(97);
+    assertThat(UNMARSHALLER.unmarshall("1.5e-3")).isEqualTo(1.5e-3);
+    assertThat(UNMARSHALLER.unmarshall("-7")).isEqualTo(-7);
+    assertThat(UNMARSHALLER.unmarshall("-7L")).isEqualTo(-7L);
+    assertThat(UNMARSHALLER.unmarshall("2147483647")).isEqualTo(2147483647);
+    assertThat(UNMARSHALLER.unmarshall("3000000000")).isEqualTo(3000000000L);
+    assertThat(UNMARSHALLER.unmarshall("-2.5f")).isEqualTo(-2.5f);
+  }
+
+  @Test
+  public void commentsAndSymbols() {
+    assertThat(MARSHALLER.marshall(UNMARSHALLER.unmarshall("f(a, /* skipped */ b) % end"))).isEqualTo("f(a, b)");
+    assertThat(((Struct<?>) UNMARSHALLER.unmarshall("X =.. [f]")).getName()).isEqualTo("=..");
+    assertThat(UNMARSHALLER.unmarshall("'it''s'")).isEqualTo("it's");
+  }
+
+  @Test
+  public void namesAreInterned() {
+    final Struct<?> first = (Struct<?>) UNMARSHALLER.unmarshall("color(red)");
+    final Struct<?> second = (Struct<?>) UNMARSHALLER.unmarshall("color(" + "re" + "d)");
+    assertThat(second.getName()).isSameAs(first.getName());
+    assertThat(second.getArg(0)).isSameAs(first.getArg(0));
+  }
+
+  @Test(expected = InvalidTermException.class)
+  public void unterminatedQuote() {
+    UNMARSHALLER.unmarshall("'never closed");
+  }
+
+  @Test
+  public void cachedTermsHaveNewVars() {
+    final DefaultTermUnmarshaller unmarshaller = new DefaultTermUnmarshaller();
+    final Struct<?> first = (Struct<?>) unmarshaller.unmarshall("f(X, Y, g(a), X)");
+    final Struct<?> second = (Struct<?>) unmarshaller.unmarshall("f(X, Y, g(a), X)");
+    assertThat(unmarshaller.getCacheMisses()).isEqualTo(1);
+    assertThat(unmarshaller.getCacheHits()).isEqualTo(1);
+    assertThat(second.toString()).isEqualTo(first.toString());
+    assertThat(second.getArg(0)).isNotSameAs(first.getArg(0));
+    assertThat(second.getArg(3)).isSameAs(second.getArg(0));
+    assertThat(((Var<?>) second.getArg(1)).getIndex()).isEqualTo(((Var<?>) first.getArg(1)).getIndex());
+    assertThat(second.getArg(2)).isSameAs(first.getArg(2));
+    // Defining an operator invalidates what was parsed before
+    unmarshaller.getOperatorManager().addOperator("likes", Operator.XFX, 700);
+    unmarshaller.unmarshall("f(X, Y, g(a), X)");
+    assertThat(unmarshaller.getCacheMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void cacheIsBounded() {
+    final DefaultTermUnmarshaller unmarshaller = new DefaultTermUnmarshaller();
+    unmarshaller.setCacheSize(10);
+    for (int i = 0; i < 30; i++) {
+      unmarshaller.unmarshall("p(" + i + ", X)");
+    }
+    assertThat(unmarshaller.getCacheEvictions()).isGreaterThanOrEqualTo(20);
+    unmarshaller.unmarshall("p(29, X)");
+    assertThat(unmarshaller.getCacheHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void operatorDefinitionsOfOneAtom() {
+    final DefaultOperatorManager operators = new DefaultOperatorManager();
+    assertThat(operators.operatorsOf("-").fy()).isEqualTo(200);
+    assertThat(operators.operatorsOf("-").yfx()).isEqualTo(500);
+    assertThat(operators.operatorsOf("-").isPrefix()).isTrue();
+    assertThat(operators.operatorsOf("undefined")).isSameAs(OperatorDefinitions.NONE);
+    final int before = operators.getOperators().size();
+    operators.addOperator("-", Operator.YFX, 550);
+    assertThat(operators.precedence("-", Operator.YFX)).isEqualTo(550);
+    assertThat(operators.operatorsOf("-").fy()).isEqualTo(200);
+    assertThat(operators.getOperators()).hasSize(before);
+  }
+
+  @Test
+  public void readTermsOneByOne() {
+    final StringBuilder text = new StringBuilder("% A log of events\n");
+    for (int i = 0; i < 20000; i++) {
+      text.append("event(").append(i).append(", 'a. b', \"c. d\") . /* e. f */\n");
+    }
+    text.append(":- done.\nlast(X) :- event(X, _, _).");
+    final PrologImplementation prolog = new PrologReferenceImplementation(PrologReferenceImplementation.InitLevel.L0_BARE);
+    final TermReader reader = new TermReader(prolog, new StringReader(text.toString()));
+    int count = 0;
+    Object term = null;
+    while (reader.hasNext()) {
+      term = reader.next();
+      if (count < 20000) {
+        assertThat(((Struct<?>) term).getArgs()).containsExactly(count, "a. b", "c. d");
+      }
+      count++;
+    }
+    assertThat(count).isEqualTo(20002);
+    assertThat(((Struct<?>) term).getName()).isEqualTo(Struct.FUNCTOR_CLAUSE);
+  }
+
+  @Test
+  public void readTermsInParallel() {
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      text.append("n(").append(i).append(").\n");
+    }
+    final PrologImplementation prolog = new PrologReferenceImplementation(PrologReferenceImplementation.InitLevel.L0_BARE);
+    final List<Object> numbers;
+    try (final var stream = new TermReader(prolog, new StringReader(text.toString())).stream()) {
+      numbers = stream.parallel().map(term -> ((Struct<?>) term).getArg(0)).collect(Collectors.toList());
+    }
+    assertThat(numbers).hasSize(100000);
+    for (int i = 0; i < numbers.size(); i++) {
+      assertThat(numbers.get(i)).isEqualTo(i);
+    }
+    // Short-circuiting abandons batches, the rest of the input must still be readable
+    try (final var stream = new TermReader(prolog, new StringReader(text.toString())).stream()) {
+      assertThat(stream.parallel().anyMatch(term -> ((Struct<?>) term).getArg(0).equals(99999))).isTrue();
+    }
+  }
+
 }
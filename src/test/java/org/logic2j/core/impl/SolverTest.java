@@ -22,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.Test;
 import org.logic2j.core.ExtractingSolutionListener;
 import org.logic2j.core.PrologTestBase;
+import org.logic2j.core.api.model.CompiledGoal;
 import org.logic2j.engine.solver.holder.GoalHolder;
 
 /**
@@ -66,6 +67,19 @@ public class SolverTest extends PrologTestBase {
   }
 
 
+  @Test
+  public void compiledGoalTree() {
+    final CompiledGoal compiled = CompiledGoal.compile(unmarshall("a, (b -> c ; d ; e), !, true"));
+    assertThat(compiled).isInstanceOf(CompiledGoal.Conjunction.class);
+    final CompiledGoal.Conjunction conjunction = (CompiledGoal.Conjunction) compiled;
+    assertThat(conjunction.size()).isEqualTo(4);
+    assertThat(conjunction.goal(0)).isInstanceOf(CompiledGoal.Call.class);
+    assertThat(conjunction.goal(1)).isInstanceOf(CompiledGoal.IfThenElse.class);
+    assertThat(((CompiledGoal.IfThenElse) conjunction.goal(1)).orElse()).isInstanceOf(CompiledGoal.Disjunction.class);
+    assertThat(conjunction.goal(2)).isInstanceOf(CompiledGoal.Cut.class);
+    assertThat(conjunction.goal(3)).isInstanceOf(CompiledGoal.Call.class);
+  }
+
   @Test
   public void primitiveTrueAndTrue() {
     final Object goal = unmarshall("true,true");
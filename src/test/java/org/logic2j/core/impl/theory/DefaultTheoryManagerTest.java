@@ -17,11 +17,23 @@
 
 package org.logic2j.core.impl.theory;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 import org.junit.Test;
 import org.logic2j.core.PrologTestBase;
+import org.logic2j.core.api.model.Clause;
 import org.logic2j.core.impl.PrologReferenceImplementation;
+import org.logic2j.core.impl.SolutionIterator;
+import org.logic2j.engine.exception.PrologNonSpecificException;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
 
 public class DefaultTheoryManagerTest extends PrologTestBase {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(DefaultTheoryManagerTest.class);
@@ -47,4 +59,231 @@ public class DefaultTheoryManagerTest extends PrologTestBase {
       logger.info("Loaded library with content={}", content);
     }
   }
+
+  @Test
+  public void groundFactsAndOtherClauses() {
+    final DefaultTheoryManager theoryManager = (DefaultTheoryManager) this.prolog.getTheoryManager();
+    final TheoryContent content = theoryManager.load((CharSequence) ("p(a, 1, 'Quoted', 4.5).\n" +
+            "p(b, - 2, \"s\", 0.5).\n" +
+            "q(X) :- p(X, _, _, _).\n" +
+            "p(c, f(x), 3, Y).\n" +
+            "p(d, 2 + 3, e, 1).\n" +
+            "p(e, 7L, -2.5f, 'it''s').\n"));
+    final List<Clause> family = content.family("p/4");
+    assertThat(family).hasSize(5);
+    assertThat(((Struct<?>) family.get(0).getHead()).getArgs()).containsExactly("a", 1, "Quoted", 4.5);
+    assertThat(((Struct<?>) family.get(1).getHead()).getArgs()).containsExactly("b", -2, "s", 0.5);
+    assertThat(((Struct<?>) family.get(2).getHead()).getArg(3)).isInstanceOf(Var.class);
+    assertThat(((Struct<?>) family.get(3).getHead()).getArg(1)).isInstanceOf(Struct.class);
+    assertThat(((Struct<?>) family.get(4).getHead()).getArgs()).containsExactly("e", 7L, -2.5f, "it's");
+    assertThat(family.get(0).getBody()).isNull();
+    assertThat(content.family("q/1").get(0).getBody()).isNotNull();
+  }
+
+  @Test
+  public void loadLargeFileInParallelChunks() throws IOException {
+    final File facts = File.createTempFile("facts", ".pro");
+    facts.deleteOnExit();
+    final StringBuilder text = new StringBuilder("/* Sentences end with '. ' */\n");
+    for (int i = 0; i < 30000; i++) {
+      text.append("f(").append(i).append(", 'a. b', \"c. d\", 0'.). % e. f\n");
+    }
+    Files.writeString(facts.toPath(), text);
+    final File rules = File.createTempFile("rules", ".pro");
+    rules.deleteOnExit();
+    Files.writeString(rules.toPath(), ":- true.\nr(a) :- true.\nr(b).\n");
+    final List<TheoryContent> contents = this.prolog.getTheoryManager().loadInParallel(List.of(facts, rules));
+    final List<Clause> family = contents.get(0).family("f/4");
+    assertThat(family).hasSize(30000);
+    for (int i = 0; i < family.size(); i++) {
+      assertThat(((Struct<?>) family.get(i).getHead()).getArgs()).containsExactly(i, "a. b", "c. d", (int) '.');
+    }
+    assertThat(contents.get(1).family("r/1")).hasSize(2);
+  }
+
+  @Test
+  public void loadUtf8File() throws IOException {
+    final File file = File.createTempFile("utf8", ".pro");
+    file.deleteOnExit();
+    final byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    final byte[] text = "city('Zürich').\ncity(genève).\n".getBytes(StandardCharsets.UTF_8);
+    Files.write(file.toPath(), bom);
+    Files.write(file.toPath(), text, StandardOpenOption.APPEND);
+    final List<Clause> family = this.prolog.getTheoryManager().load(file).family("city/1");
+    assertThat(((Struct<?>) family.get(0).getHead()).getArg(0)).isEqualTo("Zürich");
+    assertThat(((Struct<?>) family.get(1).getHead()).getArg(0)).isEqualTo("genève");
+  }
+
+  @Test(expected = IOException.class)
+  public void loadInvalidUtf8File() throws IOException {
+    final File file = File.createTempFile("latin1", ".pro");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "city('Zürich').".getBytes(StandardCharsets.ISO_8859_1));
+    this.prolog.getTheoryManager().load(file);
+  }
+
+  @Test
+  public void loadCompiledTheory() throws IOException {
+    final File file = File.createTempFile("compiled", ".pro");
+    file.deleteOnExit();
+    final File compiledFile = CompiledTheory.compiledFileOf(file);
+    compiledFile.deleteOnExit();
+    final StringBuilder list = new StringBuilder("[0");
+    for (int i = 1; i < 50000; i++) {
+      list.append(',').append(i);
+    }
+    list.append(']');
+    Files.writeString(file.toPath(), ":- true.\n" +
+            "p(a, 1, 'Quoted', 4.5).\n" +
+            "p(b, 7L, -2.5f, _).\n" +
+            "q(X, Y) :- p(X, _, _, Y), X \\= Y.\n" +
+            "l(" + list + ").\n");
+    final TheoryManager theoryManager = this.prolog.getTheoryManager();
+    final TheoryContent parsed = theoryManager.compile(file);
+    assertThat(compiledFile).isFile();
+    final TheoryContent loaded = theoryManager.load(file);
+    assertThat(loaded.getDirectives()).hasSize(1);
+    assertThat(loaded.predicateKeys()).isEqualTo(parsed.predicateKeys());
+    for (String key : parsed.predicateKeys()) {
+      assertThat(loaded.family(key).toString()).isEqualTo(parsed.family(key).toString());
+    }
+    final Struct<?> rule = (Struct<?>) loaded.family("q/2").get(0).getContent();
+    assertThat(((Struct<?>) rule.getArg(0)).getArg(0)).isSameAs(((Struct<?>) ((Struct<?>) rule.getArg(1)).getArg(1)).getArg(0));
+    // Once the source changed, the compiled form is ignored
+    Files.writeString(file.toPath(), "p(c, 2, 'Other', 0.5).\n");
+    assertThat(theoryManager.load(file).predicateKeys()).containsOnly("p/4");
+  }
+
+  @Test
+  public void reloadOnlyChangedPredicates() throws IOException {
+    final File file = File.createTempFile("reload", ".pro");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "a(1). a(2). b(x). b(y).");
+    final DefaultTheoryManager theoryManager = (DefaultTheoryManager) this.prolog.getTheoryManager();
+    theoryManager.addTheory(theoryManager.load(file));
+    final List<Clause> familyOfB = theoryManager.getWholeContent().family("b/1");
+    Files.writeString(file.toPath(), "a(1). a(3). b(x). b(y). c.");
+    assertThat(theoryManager.reload(file)).containsOnly("a/1", "c/0");
+    assertThat(theoryManager.getWholeContent().family("a/1").toString()).isEqualTo("[a(1), a(3)]");
+    assertThat(theoryManager.getWholeContent().family("b/1")).isSameAs(familyOfB);
+    assertThat(theoryManager.reload(file)).isEmpty();
+    Files.writeString(file.toPath(), "b(x). b(y).");
+    assertThat(theoryManager.reload(file)).containsOnly("a/1", "c/0");
+    assertThat(theoryManager.getWholeContent().family("a/1")).isNull();
+  }
+
+  @Test
+  public void reloadDoesNotRepeatUnchangedDirectives() throws IOException {
+    final File file = File.createTempFile("reload", ".pro");
+    file.deleteOnExit();
+    final PrologReferenceImplementation prolog = new PrologReferenceImplementation(PrologReferenceImplementation.InitLevel.L1_CORE_LIBRARY);
+    final TheoryManager theoryManager = prolog.getTheoryManager();
+    Files.writeString(file.toPath(), ":- assertz(loaded(1)).\na(1).");
+    theoryManager.addTheory(theoryManager.load(file));
+    Files.writeString(file.toPath(), ":- assertz(loaded(1)).\na(2).");
+    assertThat(theoryManager.reload(file)).containsOnly("a/1");
+    assertThat(prolog.solve("loaded(_)").count()).isEqualTo(1);
+    Files.writeString(file.toPath(), ":- assertz(loaded(2)).\na(2).");
+    assertThat(theoryManager.reload(file)).isEmpty();
+    assertThat(prolog.solve("loaded(_)").count()).isEqualTo(2);
+  }
+
+  @Test
+  public void reloadFileLoadedThroughAnotherPath() throws IOException {
+    final File file = File.createTempFile("reload", ".pro");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "a(1). a(2).");
+    final DefaultTheoryManager theoryManager = (DefaultTheoryManager) this.prolog.getTheoryManager();
+    theoryManager.addTheory(theoryManager.load(new File(file.getParentFile(), "./" + file.getName())));
+    assertThat(theoryManager.reload(file)).isEmpty();
+    assertThat(theoryManager.getWholeContent().family("a/1")).hasSize(2);
+  }
+
+  @Test
+  public void reloadRunsOnlyItsOwnInitializationGoal() throws IOException {
+    final File file1 = File.createTempFile("reload", ".pro");
+    file1.deleteOnExit();
+    final File file2 = File.createTempFile("reload", ".pro");
+    file2.deleteOnExit();
+    final PrologReferenceImplementation prolog = new PrologReferenceImplementation(PrologReferenceImplementation.InitLevel.L1_CORE_LIBRARY);
+    final TheoryManager theoryManager = prolog.getTheoryManager();
+    Files.writeString(file1.toPath(), ":- initialization(assertz(init(1))).\na(1).");
+    Files.writeString(file2.toPath(), ":- initialization(assertz(init(2))).\nb(1).");
+    theoryManager.addTheory(theoryManager.load(file1));
+    theoryManager.addTheory(theoryManager.load(file2));
+    assertThat(prolog.solve("init(X)").var("X").list()).containsExactly(1, 2);
+    Files.writeString(file1.toPath(), ":- initialization(assertz(init(3))).\na(1).");
+    assertThat(theoryManager.reload(file1)).isEmpty();
+    assertThat(prolog.solve("init(X)").var("X").list()).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void dynamicDatabaseGenerations() throws InterruptedException {
+    final DynamicDatabase database = this.prolog.getTheoryManager().getDynamicDatabase();
+    final Object goal = unmarshall("gen(X)");
+    database.assertz(new Clause(this.prolog, unmarshall("gen(1)")));
+    database.pin();
+    try {
+      // Another thread's assertion is not seen by the pinned generation
+      final Thread writer = new Thread(() -> database.assertz(new Clause(this.prolog, unmarshall("gen(2)"))));
+      writer.start();
+      writer.join();
+      assertThat(database.candidates(goal, null)).hasSize(1);
+      // Our own assertion is
+      database.assertz(new Clause(this.prolog, unmarshall("gen(3)")));
+      assertThat(database.candidates(goal, null)).hasSize(2);
+      // Retracted clauses remain visible to the pinned generation after compaction
+      final Thread retracter = new Thread(() -> database.candidates(goal, null).forEach(database::retract));
+      retracter.start();
+      retracter.join();
+      database.compact();
+      assertThat(database.candidates(goal, null)).hasSize(2);
+    } finally {
+      database.unpin();
+    }
+    assertThat(database.candidates(goal, null)).isEmpty();
+    assertThat(database.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void parkedPinIsReleasedAfterTimeout() throws InterruptedException {
+    final DynamicDatabase database = this.prolog.getTheoryManager().getDynamicDatabase();
+    final Object goal = unmarshall("parked(X)");
+    database.assertz(new Clause(this.prolog, unmarshall("parked(1)")));
+    database.setParkedPinTimeoutMillis(0);
+    database.pin();
+    try {
+      // Waiting for a caller that does not come back, as with an abandoned iterator
+      database.park();
+      final Thread retracter = new Thread(() -> database.candidates(goal, null).forEach(database::retract));
+      retracter.start();
+      retracter.join();
+      database.compact();
+      // The retracted clause was purged: the solve cannot resume
+      assertThatThrownBy(database::unpark).isInstanceOf(PrologNonSpecificException.class);
+      assertThat(database.pinCount()).isZero();
+    } finally {
+      database.unpin();
+      database.setParkedPinTimeoutMillis(DynamicDatabase.DEFAULT_PARKED_PIN_TIMEOUT_MILLIS);
+    }
+  }
+
+  @Test
+  public void closedSolutionIteratorReleasesItsPin() throws InterruptedException {
+    final DynamicDatabase database = this.prolog.getTheoryManager().getDynamicDatabase();
+    database.assertz(new Clause(this.prolog, unmarshall("iter(1)")));
+    database.assertz(new Clause(this.prolog, unmarshall("iter(2)")));
+    try (SolutionIterator solutions = this.prolog.iterate("iter(X)")) {
+      assertThat(solutions.next().toString()).isEqualTo("iter(1)");
+      assertThat(database.pinCount()).isEqualTo(1);
+    }
+    final long deadline = System.currentTimeMillis() + 10000;
+    while (database.pinCount() != 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(database.pinCount()).isZero();
+    try (SolutionIterator solutions = this.prolog.iterate("iter(X)")) {
+      assertThat(solutions).toIterable().hasSize(2);
+    }
+  }
 }
\ No newline at end of file
@@ -19,10 +19,12 @@ package org.logic2j.core.library.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.File;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.logic2j.core.PrologTestBase;
 import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.exception.PrologNonSpecificException;
 import org.logic2j.engine.solver.holder.GoalHolder;
 
 public class CoreLibraryTest extends PrologTestBase {
@@ -47,6 +49,107 @@ public class CoreLibraryTest extends PrologTestBase {
     assertThat(uniqueSolution("N=10, M is N-1").intValue("M")).isEqualTo(term(9));
   }
 
+  @Test
+  public void isWithNumericTypes() {
+    assertThat(uniqueSolution("X is 2.5+1").var("X").unique()).isEqualTo(3.5);
+    assertThat(uniqueSolution("X is 1.5*3").var("X").unique()).isEqualTo(4.5);
+    assertThat(uniqueSolution("X is 2147483647+1").var("X").unique()).isEqualTo(2147483648L);
+    // Integral results that fit are Integers again, whatever the type of the operands
+    uniqueSolution("X is 2147483647+1, Y is X-2147483647, Y = 1");
+    uniqueSolution("X is 3000000000 // 1000, X = 3000000");
+    assertThat(uniqueSolution("X is -(3)").var("X").unique()).isEqualTo(-3);
+    uniqueSolution("X is 3*4, X =:= 12.0");
+    countNoSolution("X is 3*4, X =\\= 12.0");
+  }
+
+  @Test
+  public void arithmeticFunctors() {
+    assertThat(uniqueSolution("X is 12/4").var("X").unique()).isEqualTo(3);
+    assertThat(uniqueSolution("X is 7/2").var("X").unique()).isEqualTo(3.5);
+    assertThat(uniqueSolution("X is 7//2").var("X").unique()).isEqualTo(3);
+    assertThat(uniqueSolution("X is -7//2").var("X").unique()).isEqualTo(-3);
+    assertThat(uniqueSolution("X is -7 mod 2").var("X").unique()).isEqualTo(1);
+    assertThat(uniqueSolution("X is -7 rem 2").var("X").unique()).isEqualTo(-1);
+    assertThat(uniqueSolution("X is min(3, 2.5)").var("X").unique()).isEqualTo(2.5);
+    assertThat(uniqueSolution("X is max(3, 2.5)").var("X").unique()).isEqualTo(3);
+    assertThat(uniqueSolution("X is abs(-4)").var("X").unique()).isEqualTo(4);
+    assertThat(uniqueSolution("X is sign(-4.5)").var("X").unique()).isEqualTo(-1.0);
+    assertThat(uniqueSolution("X is 1 << 4").var("X").unique()).isEqualTo(16);
+    assertThat(uniqueSolution("X is 12 /\\ 10").var("X").unique()).isEqualTo(8);
+    assertThat(uniqueSolution("X is 12 \\/ 10").var("X").unique()).isEqualTo(14);
+    assertThat(uniqueSolution("X is 12 xor 10").var("X").unique()).isEqualTo(6);
+  }
+
+  @Test(expected = InvalidTermException.class)
+  public void integerDivisionByZero() {
+    uniqueSolution("X is 1//0");
+  }
+
+  @Test
+  public void listAggregates() {
+    assertThat(uniqueSolution("sum_list([1,2,3,4], S)").var("S").unique()).isEqualTo(10);
+    assertThat(uniqueSolution("sum_list([1,2.5], S)").var("S").unique()).isEqualTo(3.5);
+    assertThat(uniqueSolution("sum_list([], S)").var("S").unique()).isEqualTo(0);
+    assertThat(uniqueSolution("max_list([3,1,4,1,5], M)").var("M").unique()).isEqualTo(5);
+    assertThat(uniqueSolution("min_list([3,1,4,1,5], M)").var("M").unique()).isEqualTo(1);
+    countNoSolution("max_list([], M)");
+    assertThat(uniqueSolution("max_member(M, [b, 3, f(a), a])").var("M").unique()).isEqualTo(term("f(a)"));
+    assertThat(uniqueSolution("min_member(M, [b, 3, f(a), a])").var("M").unique()).isEqualTo(3);
+  }
+
+  @Test
+  public void aggregate_all() {
+    loadTheoryFromTestResourcesDir("test-data.pro");
+    assertThat(uniqueSolution("aggregate_all(count, int10(_), N)").var("N").unique()).isEqualTo(10);
+    assertThat(uniqueSolution("aggregate_all(sum(X), int10(X), S)").var("S").unique()).isEqualTo(55);
+    assertThat(uniqueSolution("aggregate_all(sum(X*2), int10(X), S)").var("S").unique()).isEqualTo(110);
+    assertThat(uniqueSolution("aggregate_all(max(X), int10(X), M)").var("M").unique()).isEqualTo(10);
+    assertThat(uniqueSolution("aggregate_all(min(X), int10(X), M)").var("M").unique()).isEqualTo(1);
+    countNoSolution("aggregate_all(max(X), fail, M)");
+    assertThat(uniqueSolution("aggregate_all(sum(X), fail, S)").var("S").unique()).isEqualTo(0);
+    assertThat(uniqueSolution("aggregate_all(bag(X), member(X, [c,a,b,a]), L)").var("L").unique()).isEqualTo(term("[c,a,b,a]"));
+    assertThat(uniqueSolution("aggregate_all(set(X), member(X, [c,a,b,a]), L)").var("L").unique()).isEqualTo(term("[a,b,c]"));
+    assertThat(uniqueSolution("aggregate_all(bag(X), fail, L)").var("L").unique()).isEqualTo(term("[]"));
+  }
+
+  @Test
+  public void aggregate_all_grouped() {
+    final String goal = "aggregate_all(sum(V), K, member(K-V, [a-1, b-2, a-3]), S)";
+    assertThat(nSolutions(2, goal).var("K").list()).isEqualTo(termList("a", "b"));
+    assertThat(nSolutions(2, goal).var("S").list()).isEqualTo(termList("4", "2"));
+    assertThat(uniqueSolution("aggregate_all(count, K, member(K-V, [a-1, b-2, a-3]), 2)").var("K").unique()).isEqualTo("a");
+    countNoSolution("aggregate_all(count, K, fail, N)");
+  }
+
+  @Test
+  public void distinct2_keepsFirstOccurrences() {
+    assertThat(nSolutions(3, "distinct(X, member(X, [a,b,a,c,b]))").var("X").list()).isEqualTo(termList("a", "b", "c"));
+    assertThat(nSolutions(2, "distinct(X-Y, member(X-Y, [1-a, 1-a, 1-b]))").var("Y").list()).isEqualTo(termList("a", "b"));
+    assertThat(uniqueSolution("distinct(X, member(X, [f(1),f(1),f(1.0)]), L)").var("L").unique().toString()).isEqualTo("[f(1),f(1.0)]");
+  }
+
+  @Test
+  public void distinctSetSpillingToDisk() {
+    try (final DistinctSet seen = new DistinctSet(10, new File(System.getProperty("java.io.tmpdir")))) {
+      int added = 0;
+      for (int pass = 0; pass < 2; pass++) {
+        for (int i = 0; i < 5000; i++) {
+          if (seen.add(term("f(" + i + ", [a,b])"))) {
+            added++;
+          }
+        }
+      }
+      assertThat(added).isEqualTo(5000);
+    }
+  }
+
+  @Test
+  public void distinctMemoryLimitFromProlog() {
+    uniqueSolution("distinct_memory_limit(2)");
+    assertThat(uniqueSolution("distinct_memory_limit(L)").var("L").unique()).isEqualTo(2);
+    assertThat(nSolutions(4, "distinct(X, member(X, [a,b,a,c,b,d,c]))").var("X").list()).isEqualTo(termList("a", "b", "c", "d"));
+  }
+
   @Test
   public void call() {
     countNoSolution("call(false)");
@@ -167,6 +270,73 @@ public class CoreLibraryTest extends PrologTestBase {
     assertThat(this.prolog.solve("reverse([a,b,c], L)").var("L").unique()).isEqualTo(term("[c,b,a]"));
   }
 
+  @Test
+  public void nativeListPredicates() {
+    assertThat(nSolutions(3, "member(X, [a,b,c])").var("X").list()).isEqualTo(termList("a", "b", "c"));
+    assertThat(nSolutions(2, "member(f(X), [f(1),g(2),f(3)])").var("X").list()).isEqualTo(termList("1", "3"));
+    assertThat(uniqueSolution("append([a,b], T, L)").var("L").unique().toString()).startsWith("[a,b|");
+    assertThat(nSolutions(2, "append([a|X], Y, [a,b])").var("X").list()).isEqualTo(termList("[]", "[b]"));
+    assertThat(uniqueSolution("reverse(L, [a,b])").var("L").unique()).isEqualTo(term("[b,a]"));
+    assertThat(nSolutions(3, "takeout(X, [a,b,c], R)").var("R").list()).isEqualTo(termList("[b,c]", "[a,c]", "[a,b]"));
+    assertThat(nSolutions(3, "takeout(x, L, [a,b])").var("L").list()).isEqualTo(termList("[x,a,b]", "[a,x,b]", "[a,b,x]"));
+    assertThat(uniqueSolution("deletelist([a,b,c,b,d], [b,d], R)").var("R").unique()).isEqualTo(term("[a,c]"));
+    assertThat(uniqueSolution("subtract([f(1),g(2),f(3)], [f(_)], R)").var("R").unique()).isEqualTo(term("[g(2)]"));
+  }
+
+  @Test
+  public void sorting() {
+    assertThat(uniqueSolution("compare(O, 1, a)").var("O").unique()).isEqualTo("<");
+    assertThat(uniqueSolution("sort([c,a,f(x),b,a,1], L)").var("L").unique()).isEqualTo(term("[1,a,b,c,f(x)]"));
+    assertThat(uniqueSolution("msort([c,a,b,a], L)").var("L").unique()).isEqualTo(term("[a,a,b,c]"));
+    assertThat(uniqueSolution("sort(0, @>=, [1,3,2,3], L)").var("L").unique()).isEqualTo(term("[3,3,2,1]"));
+    assertThat(uniqueSolution("sort(1, @<, [f(2,a),f(1,b),f(2,c)], L)").var("L").unique()).isEqualTo(term("[f(1,b),f(2,a)]"));
+    assertThat(uniqueSolution("keysort([b-1,a-2,b-0,a-1], L)").var("L").unique()).isEqualTo(term("[a-2,a-1,b-1,b-0]"));
+    assertThat(uniqueSolution("predsort(compare, [c,a,b,a], L)").var("L").unique()).isEqualTo(term("[a,b,c]"));
+    countNoSolution("sort([b,a], [b,a])");
+  }
+
+  @Test
+  public void globalVariables() {
+    countNoSolution("nb_getval(undefined_global, _)");
+    assertThat(uniqueSolution("nb_setval(counter, 1), nb_getval(counter, V)").var("V").unique()).isEqualTo(1);
+    // Survives the previous goal
+    assertThat(uniqueSolution("nb_getval(counter, V)").var("V").unique()).isEqualTo(1);
+    assertThat(uniqueSolution("nb_setval('thread.local', f(x)), nb_getval('thread.local', V)").var("V").unique()).isEqualTo(term("f(x)"));
+    assertThat(uniqueSolution("nb_setval('a.b[0]', g), nb_getval('a.b[0]', V)").var("V").unique()).isEqualTo("g");
+    // b_setval/2 is undone on backtracking
+    assertThat(nSolutions(2, "(b_setval(counter, 2) ; true), nb_getval(counter, V)").var("V").list()).isEqualTo(termList("2", "1"));
+    assertThat(uniqueSolution("nb_getval(counter, V)").var("V").unique()).isEqualTo(1);
+    assertThat(uniqueSolution("nb_getval('jvm.java.version', V)").var("V").unique()).isEqualTo(System.getProperty("java.version"));
+  }
+
+  @Test(expected = PrologNonSpecificException.class)
+  public void jvmPropertiesAreReadOnly() {
+    this.prolog.solve("nb_setval('jvm.user.home', x)").count();
+  }
+
+  @Test
+  public void assertAndRetract() {
+    noSolutions("dyn(_)");
+    uniqueSolution("assertz(dyn(2)), asserta(dyn(1)), assert(dyn(3)), assertz((dyn2(X) :- dyn(X), X > 1))");
+    assertThat(nSolutions(3, "dyn(X)").var("X").list()).isEqualTo(termList("1", "2", "3"));
+    assertThat(nSolutions(2, "dyn2(X)").var("X").list()).isEqualTo(termList("2", "3"));
+    uniqueSolution("dyn(2)");
+    // Logical update view: the running dyn(X) goal does not see the assertions it triggers
+    nSolutions(3, "dyn(X), Y is X + 10, assertz(dyn(Y))");
+    nSolutions(6, "dyn(X)");
+    // Goals with side effects are solved only once: nSolutions() would run them again to extract vars
+    assertThat(this.prolog.solve("retract(dyn(X)), X > 10").var("X").list()).isEqualTo(termList("11", "12", "13"));
+    noSolutions("dyn(X), X > 10");
+    nSolutions(3, "dyn(X)");
+    assertThat(this.prolog.solve("retract((dyn2(A) :- B))").var("B").list().toString()).contains("dyn");
+    noSolutions("dyn2(_)");
+    uniqueSolution("retractall(dyn(_))");
+    noSolutions("dyn(_)", "retract(dyn(_))");
+    this.prolog.getTheoryManager().getDynamicDatabase().compact();
+    assertThat(this.prolog.getTheoryManager().getDynamicDatabase().size()).isEqualTo(0);
+    uniqueSolution("assertz(dyn(a)), dyn(a)");
+  }
+
   @Test
   public void perm() {
     assertThat(this.prolog.solve("perm([a,b,c,d,e,f], L)").count()).isEqualTo(720);
@@ -0,0 +1,83 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.logic2j.core.library.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.logic2j.core.PrologTestBase;
+import org.logic2j.core.api.model.TermMap;
+import org.logic2j.core.impl.PrologReferenceImplementation.InitLevel;
+import org.logic2j.engine.model.Struct;
+
+public class MapLibraryTest extends PrologTestBase {
+
+  @Override
+  protected InitLevel initLevel() {
+    return InitLevel.L2_BASE_LIBRARIES;
+  }
+
+  @Test
+  public void putAndGet() {
+    assertThat(uniqueSolution("list_to_map([], M0), map_put(M0, b, 2, M1), map_put(M1, a, 1, M2), map_get(M2, a, V)").var("V").unique()).isEqualTo(1);
+    assertThat(uniqueSolution("list_to_map([a-1,b-2], M), map_put(M, a, 3, M2), map_get(M2, a, V)").var("V").unique()).isEqualTo(3);
+    countNoSolution("list_to_map([a-1], M), map_get(M, b, _)");
+  }
+
+  @Test
+  public void persistentUnderBacktracking() {
+    // The original map is unchanged by derived maps
+    assertThat(uniqueSolution("list_to_map([a-1,b-2], M), map_remove(M, a, M2), map_get(M, a, V)").var("V").unique()).isEqualTo(1);
+    assertThat(nSolutions(2, "list_to_map([a-1], M), (map_put(M, b, 2, M2) ; M2 = M), map_keys(M2, K)").var("K").list())
+            .isEqualTo(termList("[a,b]", "[a]"));
+  }
+
+  @Test
+  public void enumerateAndKeys() {
+    assertThat(nSolutions(3, "list_to_map([c-3,a-1,b-2], M), map_get(M, K, _)").var("K").list()).isEqualTo(termList("a", "b", "c"));
+    assertThat(uniqueSolution("list_to_map([f(2)-x,f(1)-y], M), map_keys(M, K)").var("K").unique()).isEqualTo(term("[f(1),f(2)]"));
+    uniqueSolution("list_to_map([a-1,b-2], M1), list_to_map([b-2,a-1], M2), M1 = M2");
+  }
+
+  @Test
+  public void manyEntries() {
+    TermMap map = TermMap.EMPTY;
+    for (int i = 0; i < 10000; i++) {
+      map = map.put(i, i * 2);
+    }
+    for (int i = 0; i < 10000; i += 2) {
+      map = map.remove(i);
+    }
+    assertThat(map.size()).isEqualTo(5000);
+    assertThat(map.get(4999)).isEqualTo(9998);
+    assertThat(map.get(4998)).isNull();
+    assertThat(map.keys().get(0)).isEqualTo(1);
+  }
+
+  @Test
+  public void equalMapsHaveEqualHashes() {
+    final TermMap m1 = TermMap.EMPTY.put(1, "x").put("a", "y").put(new Struct<>("f", 2), "z");
+    final TermMap m2 = TermMap.EMPTY.put(1L, "x").put(new Struct<>("a"), "y").put(new Struct<>("f", 2L), "z");
+    assertThat(m1).isEqualTo(m2);
+    assertThat(m1.hashCode()).isEqualTo(m2.hashCode());
+  }
+
+  @Test
+  public void formatting() {
+    assertThat(marshall(uniqueSolution("list_to_map(['B'-1,a-f(x)], M)").var("M").unique())).isEqualTo("map(['B'-1,a-f(x)])");
+  }
+}
@@ -20,16 +20,42 @@ package org.logic2j.core.library.impl;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
+import org.junit.After;
 import org.junit.Test;
 import org.logic2j.contrib.helper.FluentPrologBuilder;
 import org.logic2j.core.api.Prolog;
+import org.logic2j.core.api.model.Operator;
+import org.logic2j.core.impl.PrologReferenceImplementation;
+import org.logic2j.core.impl.PrologSnapshot;
+import org.logic2j.core.impl.theory.TheoryFileWatcher;
 
 /**
  * Demonstrate simple use cases for Logic2j.
  */
 public class UseCaseTest {
 
+  /**
+   * Created by tests that need files, deleted after each.
+   */
+  private Path directory;
+
+  @After
+  public void deleteDirectory() throws IOException {
+    if (this.directory != null) {
+      try (Stream<Path> paths = Files.walk(this.directory)) {
+        for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
   @Test
   public void instantiateViaFactory() {
     final Prolog prolog = new FluentPrologBuilder().build();
@@ -60,6 +86,14 @@ public class UseCaseTest {
     assertThat(prolog.solve("queens(4, _)").count()).isEqualTo(2);
   }
 
+  @Test
+  public void loadTheoriesInParallel() {
+    final File th1 = new File("src/test/resources/queens.pro");
+    final File th2 = new File("src/test/resources/hanoi.pro");
+    final Prolog prolog = new FluentPrologBuilder().withTheory(th1, th2).withParallelLoading(true).build();
+    assertThat(prolog.solve("queens(4, _)").count()).isEqualTo(2);
+  }
+
 
   @Test
   public void solve() {
@@ -71,4 +105,50 @@ public class UseCaseTest {
     assertThat(objectList.get(0).toString()).isEqualTo("[3, 1, 4, 2]");
     assertThat(objectList.get(1).toString()).isEqualTo("[2, 4, 1, 3]");
   }
+
+  @Test
+  public void saveAndRestoreSnapshot() throws Exception {
+    final PrologReferenceImplementation prolog = (PrologReferenceImplementation) new FluentPrologBuilder()
+            .withTheory(new File("src/test/resources/queens.pro"))
+            .build();
+    prolog.getOperatorManager().addOperator("likes", Operator.XFX, 700);
+    assertThat(prolog.solve("assertz(counter(1)), assertz(counter(2)), retract(counter(1))").count()).isEqualTo(1);
+    final File file = File.createTempFile("logic2j", ".snapshot");
+    file.deleteOnExit();
+    PrologSnapshot.save(prolog, file);
+
+    final PrologReferenceImplementation restored = PrologSnapshot.restore(file);
+    assertThat(restored.getInitLevel()).isEqualTo(prolog.getInitLevel());
+    assertThat(restored.solve("queens(4, _)").count()).isEqualTo(2);
+    assertThat(restored.solve("counter(X)").var("X").list()).containsExactly(2);
+    assertThat(restored.solve("X = (bob likes alice)").count()).isEqualTo(1);
+    assertThat(restored.solve("member(X, [a,b,c,d])").count()).isEqualTo(4);
+  }
+
+  @Test
+  public void hotReloadOfWatchedDirectory() throws Exception {
+    this.directory = Files.createTempDirectory("logic2j");
+    final Path theory = this.directory.resolve("colors.pro");
+    Files.writeString(theory, "color(red).\n");
+    final FluentPrologBuilder builder = new FluentPrologBuilder().withTheory(this.directory.toFile()).withHotReload(true);
+    final Prolog prolog = builder.build();
+    try (TheoryFileWatcher watcher = builder.getTheoryWatcher()) {
+      assertThat(prolog.solve("color(X)").count()).isEqualTo(1);
+      // An invalid theory is not published
+      final long attempts = watcher.getReloadAttempts();
+      Files.writeString(theory, "color(red\n");
+      final long deadline = System.currentTimeMillis() + 10000;
+      while (watcher.getReloadAttempts() == attempts && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+      }
+      assertThat(watcher.getReloadAttempts()).isGreaterThan(attempts);
+      assertThat(prolog.solve("color(X)").count()).isEqualTo(1);
+      Files.writeString(theory, "color(red).\ncolor(blue).\n");
+      while (prolog.solve("color(X)").count() != 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+      }
+      assertThat(prolog.solve("color(X)").count()).isEqualTo(2);
+      assertThat(watcher.getReloadCount()).isGreaterThanOrEqualTo(1);
+    }
+  }
 }